@@ -0,0 +1,20 @@
+package com.editype.benchmark;
+
+import com.editype.article.entity.Article;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Full synthetic article: document size x reference count
+ */
+@State(Scope.Benchmark)
+public class ArticleState {
+    
+    public Article article;
+    
+    @Setup
+    public void setup(DocumentState document, ReferencesState references) {
+        article = SyntheticArticles.article(document.size, references.references);
+    }
+}
@@ -0,0 +1,23 @@
+package com.editype.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic ProseMirror document of a parameterised size
+ */
+@State(Scope.Benchmark)
+public class DocumentState {
+    
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public SyntheticArticles.Size size;
+    
+    public String pmJson;
+    
+    @Setup
+    public void setup() {
+        pmJson = SyntheticArticles.pmJson(size);
+    }
+}
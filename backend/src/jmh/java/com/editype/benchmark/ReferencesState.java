@@ -0,0 +1,26 @@
+package com.editype.benchmark;
+
+import com.editype.article.entity.ArticleReference;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Synthetic reference list of a parameterised length
+ */
+@State(Scope.Benchmark)
+public class ReferencesState {
+    
+    @Param({"10", "200", "2000"})
+    public int references;
+    
+    public List<ArticleReference> list;
+    
+    @Setup
+    public void setup() {
+        list = SyntheticArticles.references(references);
+    }
+}
@@ -0,0 +1,205 @@
+package com.editype.benchmark;
+
+import com.editype.article.entity.Article;
+import com.editype.article.entity.ArticleMetadata;
+import com.editype.article.entity.ArticleReference;
+import com.editype.publication.entity.Publication;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic synthetic articles for export benchmarks.
+ * Documents mix headings, marked text, inline and display formulas, lists, tables and code
+ * blocks, and include characters that need escaping in HTML, XML, LaTeX and YAML.
+ */
+public final class SyntheticArticles {
+    
+    /**
+     * Document size in top-level blocks
+     */
+    public enum Size {
+        SMALL(20),
+        MEDIUM(400),
+        HUGE(8000);
+        
+        private final int blocks;
+        
+        Size(int blocks) {
+            this.blocks = blocks;
+        }
+        
+        public int blocks() {
+            return blocks;
+        }
+    }
+    
+    private static final String SENTENCE =
+            "Lorem ipsum dolor sit amet, consectetur adipiscing elit & \"quoted\" <tag> 50% of $x_1$ #";
+    private static final String SENTENCE_RU =
+            "Съешь же ещё этих мягких французских булок, да выпей чаю: a < b & c > d";
+    
+    private SyntheticArticles() {
+    }
+    
+    /**
+     * Article with pmJson of the given size and the given number of references
+     */
+    public static Article article(Size size, int references) {
+        Map<String, ArticleMetadata> metadata = new HashMap<>();
+        metadata.put("en", ArticleMetadata.builder()
+                .title("Synthetic \"benchmark\" article: " + size.name().toLowerCase() + " & friends")
+                .annotation(paragraphs(SENTENCE, 6))
+                .keywords("benchmark, export, typesetting, ProseMirror, LaTeX")
+                .build());
+        metadata.put("ru", ArticleMetadata.builder()
+                .title("Синтетическая статья для замеров")
+                .annotation(paragraphs(SENTENCE_RU, 6))
+                .keywords("замеры, экспорт, вёрстка")
+                .build());
+        
+        return Article.builder()
+                .id("bench-" + size.name().toLowerCase() + "-" + references)
+                .metadata(metadata)
+                .pmJson(pmJson(size))
+                .references(references(references))
+                .languages(List.of("en", "ru"))
+                .doi("10.1234/bench." + size.blocks())
+                .firstPage(1)
+                .lastPage(1 + size.blocks() / 10)
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+    
+    /**
+     * Publication with multilingual text of roughly the same length as the article body
+     */
+    public static Publication publication(Size size) {
+        Map<String, String> texts = new HashMap<>();
+        texts.put("en", paragraphs(SENTENCE, size.blocks()));
+        texts.put("ru", paragraphs(SENTENCE_RU, size.blocks()));
+        
+        Map<String, Map<String, String>> metadata = new HashMap<>();
+        metadata.put("en", Map.of("author", "A. N. Author & Co", "journal", "Journal of <Benchmarks>", "year", "2024"));
+        metadata.put("ru", Map.of("author", "А. Н. Автор", "journal", "Вестник замеров", "year", "2024"));
+        
+        return Publication.builder()
+                .id("bench-" + size.name().toLowerCase())
+                .titles(Map.of("en", "Synthetic publication", "ru", "Синтетическая публикация"))
+                .texts(texts)
+                .metadata(metadata)
+                .doi("10.1234/pub." + size.blocks())
+                .build();
+    }
+    
+    /**
+     * ProseMirror JSON document in canonical key order
+     */
+    public static String pmJson(Size size) {
+        StringBuilder json = new StringBuilder(size.blocks() * 400);
+        json.append("{\"type\":\"doc\",\"content\":[");
+        for (int i = 0; i < size.blocks(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (i % 25 == 0) {
+                json.append("{\"type\":\"heading\",\"attrs\":{\"level\":").append(1 + (i / 25) % 3)
+                        .append("},\"content\":[{\"type\":\"text\",\"text\":\"Section ").append(i / 25 + 1).append("\"}]}");
+            } else if (i % 40 == 7) {
+                appendTable(json, 4, 3);
+            } else if (i % 15 == 3) {
+                appendList(json, i % 2 == 0 ? "bulletList" : "orderedList", 4);
+            } else if (i % 10 == 5) {
+                json.append("{\"type\":\"math_display\",\"attrs\":{\"latex\":\"\\\\int_0^\\\\infty e^{-x^2}\\\\,dx = \\\\frac{\\\\sqrt{\\\\pi}}{2} + ")
+                        .append(i).append("\"}}");
+            } else if (i % 50 == 9) {
+                json.append("{\"type\":\"codeBlock\",\"content\":[{\"type\":\"text\",\"text\":\"for (int i = 0; i < n; i++) {\\n  sum += a[i];\\n}\"}]}");
+            } else if (i % 30 == 11) {
+                json.append("{\"type\":\"blockquote\",\"content\":[");
+                appendParagraph(json, i);
+                json.append("]}");
+            } else {
+                appendParagraph(json, i);
+            }
+        }
+        return json.append("]}").toString();
+    }
+    
+    /**
+     * References with bilingual text, DOIs and URLs
+     */
+    public static List<ArticleReference> references(int count) {
+        List<ArticleReference> references = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, String> text = new HashMap<>();
+            text.put("en", "Author " + i + ", Co-Author. Title of cited work #" + i + " & its {sequel} // Journal. 2020. Vol. "
+                    + (i % 40) + ". P. " + i + "–" + (i + 9) + ".");
+            text.put("ru", "Автор " + i + ". Название работы № " + i + " // Журнал. 2020. Т. " + (i % 40) + ".");
+            references.add(ArticleReference.builder()
+                    .id("ref" + i)
+                    .text(text)
+                    .doi(i % 3 == 0 ? null : "10.1000/ref." + i)
+                    .url(i % 5 == 0 ? "https://example.org/ref/" + i + "?a=1&b=2" : null)
+                    .build());
+        }
+        return references;
+    }
+    
+    private static void appendParagraph(StringBuilder json, int i) {
+        json.append("{\"type\":\"paragraph\",\"content\":[")
+                .append("{\"type\":\"text\",\"text\":\"").append(escapeJson(SENTENCE)).append(' ').append(i).append(" \"},")
+                .append("{\"type\":\"text\",\"marks\":[{\"type\":\"bold\"}],\"text\":\"bold\"},")
+                .append("{\"type\":\"text\",\"text\":\" and \"},")
+                .append("{\"type\":\"text\",\"marks\":[{\"type\":\"italic\"},{\"type\":\"bold\"}],\"text\":\"bold italic\"},")
+                .append("{\"type\":\"text\",\"text\":\" with \"},")
+                .append("{\"type\":\"math_inline\",\"attrs\":{\"latex\":\"a_{").append(i).append("}^2 + b^2\"}},")
+                .append("{\"type\":\"text\",\"text\":\" ").append(escapeJson(SENTENCE_RU)).append("\"}]}");
+    }
+    
+    private static void appendList(StringBuilder json, String type, int items) {
+        json.append("{\"type\":\"").append(type).append("\",\"content\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"type\":\"listItem\",\"content\":[{\"type\":\"paragraph\",\"content\":[{\"type\":\"text\",\"text\":\"Item ")
+                    .append(i + 1).append(": ").append(escapeJson(SENTENCE)).append("\"}]}]}");
+        }
+        json.append("]}");
+    }
+    
+    private static void appendTable(StringBuilder json, int rows, int columns) {
+        json.append("{\"type\":\"table\",\"content\":[");
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) {
+                json.append(',');
+            }
+            json.append("{\"type\":\"tableRow\",\"content\":[");
+            for (int c = 0; c < columns; c++) {
+                if (c > 0) {
+                    json.append(',');
+                }
+                json.append("{\"type\":\"").append(r == 0 ? "tableHeader" : "tableCell")
+                        .append("\",\"attrs\":{\"colspan\":1,\"rowspan\":1,\"colwidth\":null},\"content\":[{\"type\":\"paragraph\",\"content\":[{\"type\":\"text\",\"text\":\"R")
+                        .append(r).append('C').append(c).append("\"}]}]}");
+            }
+            json.append("]}");
+        }
+        json.append("]}");
+    }
+    
+    private static String paragraphs(String sentence, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(sentence).append(i % 4 == 3 ? "\n" : " ");
+        }
+        return text.toString();
+    }
+    
+    private static String escapeJson(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
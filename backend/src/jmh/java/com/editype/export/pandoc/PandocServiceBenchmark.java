@@ -0,0 +1,41 @@
+package com.editype.export.pandoc;
+
+import com.editype.benchmark.DocumentState;
+import com.editype.export.prosemirror.PmHtmlRenderer;
+import com.editype.export.prosemirror.PmParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM step of the Pandoc pipeline: wrapping editor HTML into a standalone document
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PandocServiceBenchmark {
+    
+    private PandocService service;
+    private String html;
+    
+    @Setup
+    public void setup(DocumentState document) throws IOException {
+        service = new PandocService(null);
+        StringBuilder body = new StringBuilder();
+        new PmParser(new ObjectMapper()).stream(document.pmJson, new PmHtmlRenderer().begin(body));
+        html = body.toString();
+    }
+    
+    @Benchmark
+    public String wrapHtml() {
+        return service.wrapHtml(html, "Synthetic article");
+    }
+}
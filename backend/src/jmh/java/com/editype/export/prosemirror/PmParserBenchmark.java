@@ -0,0 +1,59 @@
+package com.editype.export.prosemirror;
+
+import com.editype.benchmark.DocumentState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree (parse then render) vs streaming (render while reading tokens) ProseMirror conversion.
+ * Run with -prof gc to compare allocation per document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PmParserBenchmark {
+    
+    private PmParser parser;
+    
+    @Setup
+    public void setup() {
+        parser = new PmParser(new ObjectMapper());
+    }
+    
+    @Benchmark
+    public String treeHtml(DocumentState document) throws IOException {
+        StringBuilder html = new StringBuilder(document.pmJson.length() / 2);
+        new PmHtmlRenderer().render(parser.parse(document.pmJson), html);
+        return html.toString();
+    }
+    
+    @Benchmark
+    public String streamingHtml(DocumentState document) throws IOException {
+        StringBuilder html = new StringBuilder(document.pmJson.length() / 2);
+        parser.stream(document.pmJson, new PmHtmlRenderer().begin(html));
+        return html.toString();
+    }
+    
+    @Benchmark
+    public String treeMarkdown(DocumentState document) throws IOException {
+        StringBuilder markdown = new StringBuilder(document.pmJson.length() / 2);
+        new PmMarkdownRenderer().render(parser.parse(document.pmJson), markdown);
+        return markdown.toString();
+    }
+    
+    @Benchmark
+    public String streamingMarkdown(DocumentState document) throws IOException {
+        StringBuilder markdown = new StringBuilder(document.pmJson.length() / 2);
+        parser.stream(document.pmJson, new PmMarkdownRenderer().begin(markdown));
+        return markdown.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.editype.export.service;
+
+import com.editype.benchmark.SyntheticArticles;
+import com.editype.publication.entity.Publication;
+import com.editype.publication.repository.PublicationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publication exports: HTML and JATS XML, with the repository replaced by an in-memory stub
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExportServiceBenchmark {
+    
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    private SyntheticArticles.Size size;
+    
+    @Param({"en", "ru"})
+    private String language;
+    
+    private ExportService service;
+    private String id;
+    
+    @Setup
+    public void setup() {
+        Publication publication = SyntheticArticles.publication(size);
+        id = publication.getId();
+        service = new ExportService(stubRepository(publication));
+    }
+    
+    @Benchmark
+    public String html() {
+        return service.exportToHtml(id, language);
+    }
+    
+    @Benchmark
+    public String jats() {
+        return service.exportToJatsXml(id, language);
+    }
+    
+    private static PublicationRepository stubRepository(Publication publication) {
+        return (PublicationRepository) Proxy.newProxyInstance(
+                PublicationRepository.class.getClassLoader(),
+                new Class<?>[] {PublicationRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.of(publication);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
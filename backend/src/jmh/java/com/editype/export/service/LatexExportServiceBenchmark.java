@@ -0,0 +1,51 @@
+package com.editype.export.service;
+
+import com.editype.article.entity.Article;
+import com.editype.benchmark.DocumentState;
+import com.editype.benchmark.ReferencesState;
+import com.editype.benchmark.SyntheticArticles;
+import com.editype.export.prosemirror.PmParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM steps of the LaTeX pipeline: Markdown body, YAML front matter and BibTeX
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LatexExportServiceBenchmark {
+    
+    private LatexExportService service;
+    private Article article;
+    
+    @Setup
+    public void setup() {
+        // Cache, process pool, LaTeX compiler and pandoc-server pool are only used by the external rendering steps
+        service = new LatexExportService(new PmParser(new ObjectMapper()), null, null, null, null, null);
+        article = SyntheticArticles.article(SyntheticArticles.Size.SMALL, 0);
+    }
+    
+    @Benchmark
+    public String markdown(DocumentState document) {
+        return service.convertPmJsonToMarkdown(document.pmJson);
+    }
+    
+    @Benchmark
+    public String yamlFrontMatter() {
+        return service.buildYamlFrontMatter(article, "en");
+    }
+    
+    @Benchmark
+    public String bibtex(ReferencesState references) {
+        return service.convertReferencesToBibTeX(references.list);
+    }
+}
@@ -0,0 +1,35 @@
+package com.editype.export.service;
+
+import com.editype.benchmark.ArticleState;
+import com.editype.export.prosemirror.PmParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM step of the Vivliostyle pipeline: the complete HTML page (header, body, references)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VivliostyleExportServiceBenchmark {
+    
+    private VivliostyleExportService service;
+    
+    @Setup
+    public void setup() {
+        service = new VivliostyleExportService(new PmParser(new ObjectMapper()), null, null, null, null);
+    }
+    
+    @Benchmark
+    public String generateHTML(ArticleState state) {
+        return service.generateHTML(state.article, "en");
+    }
+}
@@ -0,0 +1,80 @@
+package com.editype.article.body;
+
+import com.editype.article.entity.Article;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves large body fields out of article documents on save and reads them back on load.
+ * Reads that project only some fields (locks, summaries, paragraph lookups) do not select
+ * bodyChunks and therefore never touch the blocks.
+ */
+@Component
+public class ArticleBodyCallbacks implements BeforeSaveCallback<Article>, AfterSaveCallback<Article>,
+        AfterConvertCallback<Article> {
+
+    private final ObjectProvider<ArticleBodyStore> bodyStoreProvider;
+
+    // The mapping converter looks up callbacks while the MongoTemplate the store needs is being created
+    public ArticleBodyCallbacks(ObjectProvider<ArticleBodyStore> bodyStoreProvider) {
+        this.bodyStoreProvider = bodyStoreProvider;
+    }
+
+    @Override
+    public Article onBeforeSave(Article article, Document document, String collection) {
+        ArticleBodyStore bodyStore = bodyStoreProvider.getObject();
+        Document references = new Document();
+        for (String field : ArticleBodyStore.FIELDS) {
+            String value = document.getString(field);
+            if (!bodyStore.isLarge(value)) {
+                continue;
+            }
+            if (article.getId() == null) {
+                // Blocks need the article ID before the document is inserted
+                ObjectId id = new ObjectId();
+                article.setId(id.toHexString());
+                document.put("_id", id);
+            }
+            references.put(field, bodyStore.write(article.getId(), field, value));
+            document.remove(field);
+        }
+        if (!references.isEmpty()) {
+            document.put(ArticleBodyStore.BODY_CHUNKS, references);
+        }
+        return article;
+    }
+
+    @Override
+    public Article onAfterSave(Article article, Document document, String collection) {
+        Document references = document.get(ArticleBodyStore.BODY_CHUNKS, Document.class);
+        bodyStoreProvider.getObject().cleanup(article.getId(), references);
+        return article;
+    }
+
+    @Override
+    public Article onAfterConvert(Article article, Document document, String collection) {
+        Document references = document.get(ArticleBodyStore.BODY_CHUNKS, Document.class);
+        if (references == null) {
+            return article;
+        }
+        ArticleBodyStore bodyStore = bodyStoreProvider.getObject();
+        String text = references.containsKey("text") && article.getText() == null
+                ? bodyStore.read(article.getId(), "text", references.get("text", Document.class))
+                : null;
+        if (text != null) {
+            article.setText(text);
+        }
+        String pmJson = references.containsKey("pmJson") && article.getPmJson() == null
+                ? bodyStore.read(article.getId(), "pmJson", references.get("pmJson", Document.class))
+                : null;
+        if (pmJson != null) {
+            article.setPmJson(pmJson);
+        }
+        return article;
+    }
+}
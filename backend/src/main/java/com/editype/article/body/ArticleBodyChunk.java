@@ -0,0 +1,36 @@
+package com.editype.article.body;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One block of a large article body field (text or pmJson) stored outside the article document.
+ * A body is written as a new version of consecutive blocks, so readers never see a half-written body.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "article_body_chunks")
+@CompoundIndex(name = "article_field_version_n", def = "{'articleId': 1, 'field': 1, 'version': 1, 'n': 1}", unique = true)
+public class ArticleBodyChunk {
+    
+    @Id
+    private String id;
+    
+    private String articleId;
+    private String field; // Article field: text or pmJson
+    private String version; // Body version the block belongs to
+    private int n; // Block number within the version
+    private String data;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime supersededAt; // When the article stopped referencing the version
+}
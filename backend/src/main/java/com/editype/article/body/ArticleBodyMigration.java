@@ -0,0 +1,81 @@
+package com.editype.article.body;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Moves inline bodies above the size limit into blocks for articles written before chunked storage.
+ * Runs at startup and only touches articles that still need it, so repeated runs are cheap.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArticleBodyMigration {
+
+    private static final String ARTICLES = "articles";
+
+    private final MongoTemplate mongoTemplate;
+    private final ArticleBodyStore bodyStore;
+
+    @Value("${articles.body.migrate-on-startup:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = 0;
+            for (String field : ArticleBodyStore.FIELDS) {
+                migrated += migrate(field);
+            }
+            if (migrated > 0) {
+                log.info("Moved {} large article bodies to chunked storage", migrated);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Article body migration skipped: {}", e.getMessage());
+        }
+    }
+
+    private int migrate(String field) {
+        Document oversized = new Document("$expr", new Document("$gt", List.of(
+                new Document("$strLenCP", new Document("$ifNull", List.of("$" + field, ""))),
+                bodyStore.inlineLimit())));
+        Query query = new BasicQuery(oversized, new Document("_id", 1).append(field, 1));
+
+        int migrated = 0;
+        try (Stream<Document> articles = mongoTemplate.stream(query, Document.class, ARTICLES)) {
+            for (Document article : (Iterable<Document>) articles::iterator) {
+                migrated += migrate(article, field);
+            }
+        }
+        return migrated;
+    }
+
+    private int migrate(Document article, String field) {
+        Object id = article.get("_id");
+        String articleId = id.toString();
+        String value = article.getString(field);
+        // Only replace the body that was read, a concurrent save wins
+        Query unchanged = Query.query(where("_id").is(id).and(field).is(value));
+        Update update = bodyStore.setField(new Update(), articleId, field, value);
+        long modified = mongoTemplate.updateFirst(unchanged, update, ARTICLES).getModifiedCount();
+        bodyStore.cleanup(articleId);
+        return (int) modified;
+    }
+}
@@ -0,0 +1,187 @@
+package com.editype.article.body;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Stores large article body fields (text, pmJson) as fixed-size blocks in article_body_chunks.
+ * The article document keeps only a reference under bodyChunks.{field}: {version, chunks, length}.
+ * Small bodies stay inline. Superseded versions are removed a grace period after they were
+ * superseded, so concurrent readers can finish and a concurrent writer never loses the blocks
+ * it is about to reference.
+ */
+@Slf4j
+@Component
+public class ArticleBodyStore {
+
+    public static final String BODY_CHUNKS = "bodyChunks";
+    public static final List<String> FIELDS = List.of("text", "pmJson");
+
+    private static final long CLEANUP_GRACE_MINUTES = 5;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${articles.body.inline-limit-kb:256}")
+    private int inlineLimitKb;
+
+    @Value("${articles.body.chunk-size-kb:255}")
+    private int chunkSizeKb;
+
+    public ArticleBodyStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Whether a value is too large to stay inline
+     */
+    public boolean isLarge(String value) {
+        return value != null && value.length() > inlineLimit();
+    }
+
+    /**
+     * Largest body length in characters that is kept inline
+     */
+    public int inlineLimit() {
+        return inlineLimitKb * 1024;
+    }
+
+    /**
+     * Write a value as a new version of blocks and return the reference to store on the article
+     */
+    public Document write(String articleId, String field, String value) {
+        String version = new ObjectId().toHexString();
+        int chunkSize = chunkSizeKb * 1024;
+        LocalDateTime now = LocalDateTime.now();
+        List<ArticleBodyChunk> chunks = new ArrayList<>();
+        int offset = 0;
+        while (offset < value.length()) {
+            int end = Math.min(value.length(), offset + chunkSize);
+            // Do not split a surrogate pair between two blocks
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            chunks.add(ArticleBodyChunk.builder()
+                    .articleId(articleId)
+                    .field(field)
+                    .version(version)
+                    .n(chunks.size())
+                    .data(value.substring(offset, end))
+                    .createdAt(now)
+                    .build());
+            offset = end;
+        }
+        mongoTemplate.insert(chunks, ArticleBodyChunk.class);
+        return new Document("version", version)
+                .append("chunks", chunks.size())
+                .append("length", value.length());
+    }
+
+    /**
+     * Read a value from its reference.
+     * If the blocks are gone because the article was rewritten meanwhile, the value is read again
+     * from the current article; a body that cannot be read in full is an error, never an empty value.
+     */
+    public String read(String articleId, String field, Document reference) {
+        String value = readBlocks(articleId, field, reference);
+        if (value != null) {
+            return value;
+        }
+
+        Query current = Query.query(where("_id").is(articleId));
+        current.fields().include(field, BODY_CHUNKS + "." + field);
+        Document article = mongoTemplate.findOne(current, Document.class, "articles");
+        Document references = article != null ? article.get(BODY_CHUNKS, Document.class) : null;
+        Document currentReference = references != null ? references.get(field, Document.class) : null;
+        if (currentReference == null && article != null && article.get(field) instanceof String inline) {
+            return inline;
+        }
+        if (currentReference != null && !currentReference.getString("version").equals(reference.getString("version"))) {
+            value = readBlocks(articleId, field, currentReference);
+        }
+        if (value == null) {
+            log.error("Article {} {} body version {} is missing blocks", articleId, field, reference.getString("version"));
+            throw new IllegalStateException("Body of article " + articleId + " could not be read");
+        }
+        return value;
+    }
+
+    /**
+     * Blocks of a version joined, or null if some are missing
+     */
+    private String readBlocks(String articleId, String field, Document reference) {
+        String version = reference.getString("version");
+        int expected = reference.getInteger("chunks", 0);
+        Query query = Query.query(where("articleId").is(articleId).and("field").is(field).and("version").is(version))
+                .with(Sort.by("n"));
+        List<ArticleBodyChunk> chunks = mongoTemplate.find(query, ArticleBodyChunk.class);
+        if (chunks.size() != expected) {
+            return null;
+        }
+        StringBuilder value = new StringBuilder(reference.getInteger("length", 0));
+        for (ArticleBodyChunk chunk : chunks) {
+            value.append(chunk.getData());
+        }
+        return value.toString();
+    }
+
+    /**
+     * Targeted update that stores a field inline or as blocks, replacing the previous form
+     */
+    public Update setField(Update update, String articleId, String field, String value) {
+        if (isLarge(value)) {
+            return update.unset(field).set(BODY_CHUNKS + "." + field, write(articleId, field, value));
+        }
+        return update.set(field, value).unset(BODY_CHUNKS + "." + field);
+    }
+
+    /**
+     * Remove block versions the article no longer references, as currently stored
+     */
+    public void cleanup(String articleId) {
+        Query current = Query.query(where("_id").is(articleId));
+        current.fields().include(BODY_CHUNKS);
+        Document article = mongoTemplate.findOne(current, Document.class, "articles");
+        cleanup(articleId, article != null ? article.get(BODY_CHUNKS, Document.class) : null);
+    }
+
+    /**
+     * Mark block versions the article no longer references as superseded, and remove those
+     * superseded longer than the grace period ago.
+     * Pass the bodyChunks references as just written, or null if every field is inline.
+     */
+    public void cleanup(String articleId, Document references) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime graceLimit = now.minusMinutes(CLEANUP_GRACE_MINUTES);
+        for (String field : FIELDS) {
+            Document reference = references != null ? references.get(field, Document.class) : null;
+            Query unreferenced = Query.query(where("articleId").is(articleId).and("field").is(field));
+            if (reference != null) {
+                unreferenced.addCriteria(where("version").ne(reference.getString("version")));
+            }
+            mongoTemplate.remove(Query.of(unreferenced).addCriteria(where("supersededAt").lt(graceLimit)),
+                    ArticleBodyChunk.class);
+            mongoTemplate.updateMulti(Query.of(unreferenced).addCriteria(where("supersededAt").is(null)),
+                    Update.update("supersededAt", now), ArticleBodyChunk.class);
+        }
+    }
+
+    /**
+     * Remove all blocks of a deleted article
+     */
+    public void delete(String articleId) {
+        mongoTemplate.remove(Query.query(where("articleId").is(articleId)), ArticleBodyChunk.class);
+    }
+}
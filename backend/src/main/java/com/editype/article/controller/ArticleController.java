@@ -1,12 +1,21 @@
 package com.editype.article.controller;
 
+import com.editype.article.dto.ArticlePageDTO;
+import com.editype.article.dto.ArticleSyncJobDTO;
+import com.editype.article.dto.ArticleSyncRequestDTO;
+import com.editype.article.dto.ParagraphPatchRequestDTO;
 import com.editype.article.entity.Article;
 import com.editype.article.service.ArticleService;
+import com.editype.article.sync.ArticleSyncJob;
+import com.editype.article.sync.ArticleSyncService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +29,7 @@ import java.util.Map;
 public class ArticleController {
     
     private final ArticleService articleService;
+    private final ArticleSyncService articleSyncService;
     
     /**
      * Get all articles
@@ -29,6 +39,19 @@ public class ArticleController {
         return ResponseEntity.ok(articleService.getAllArticles());
     }
     
+    /**
+     * Paginated article listing with summary fields only.
+     * Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<ArticlePageDTO> getArticleSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestParam(required = false, defaultValue = "desc") String order) {
+        boolean ascending = "asc".equalsIgnoreCase(order);
+        return ResponseEntity.ok(articleService.getArticleSummaries(cursor, limit, ascending));
+    }
+    
     /**
      * Get article by ID
      */
@@ -53,6 +76,34 @@ public class ArticleController {
         return ResponseEntity.ok(article);
     }
     
+    /**
+     * Sync a batch of articles from Editorum in the background
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<ArticleSyncJobDTO> syncFromEditorum(
+            @Valid @RequestBody ArticleSyncRequestDTO requestDTO,
+            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication) {
+        
+        String accessToken = extractToken(authHeader);
+        ArticleSyncJob job = articleSyncService.submit(
+                authentication.getName(), requestDTO.getEditorumIds(), accessToken);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/articles/sync/" + job.getId()))
+                .body(ArticleSyncJobDTO.fromJob(job));
+    }
+    
+    /**
+     * Get batch sync progress and per-article failures
+     */
+    @GetMapping("/sync/{jobId}")
+    public ResponseEntity<ArticleSyncJobDTO> getSyncJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        ArticleSyncJob job = articleSyncService.getJob(jobId, authentication.getName());
+        return ResponseEntity.ok(ArticleSyncJobDTO.fromJob(job));
+    }
+    
     /**
      * Save article (locally and to Editorum)
      */
@@ -74,6 +125,18 @@ public class ArticleController {
         return ResponseEntity.ok(saved);
     }
     
+    /**
+     * Save paragraph-level changes (autosave); the response carries the new revision
+     */
+    @PatchMapping("/{id}/paragraphs")
+    public ResponseEntity<Map<String, Object>> patchParagraphs(
+            @PathVariable String id,
+            @Valid @RequestBody ParagraphPatchRequestDTO request) {
+        
+        long revision = articleService.patchParagraphs(id, request);
+        return ResponseEntity.ok(Map.of("revision", revision));
+    }
+    
     /**
      * Acquire lock for editing
      */
@@ -89,6 +152,21 @@ public class ArticleController {
         ));
     }
     
+    /**
+     * Renew lock lease (editors call this periodically while editing)
+     */
+    @PostMapping("/{id}/lock/renew")
+    public ResponseEntity<Map<String, Object>> renewLock(
+            @PathVariable String id,
+            @RequestParam String userEmail) {
+        
+        boolean renewed = articleService.renewLock(id, userEmail);
+        return ResponseEntity.ok(Map.of(
+                "success", renewed,
+                "message", renewed ? "Lock renewed" : "Lock is no longer held"
+        ));
+    }
+    
     /**
      * Release lock
      */
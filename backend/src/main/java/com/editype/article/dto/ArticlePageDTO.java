@@ -0,0 +1,21 @@
+package com.editype.article.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of article summaries; nextCursor is null on the last page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticlePageDTO {
+    
+    private List<ArticleSummaryDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.editype.article.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Lightweight article listing entry (no text, pmJson, paragraphs or references)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSummaryDTO {
+    
+    private String id;
+    private Long editorumId;
+    
+    // Title per language: ru, en, ...
+    private Map<String, String> titles;
+    
+    private String doi;
+    private Integer status;
+    private LocalDateTime updatedAt;
+}
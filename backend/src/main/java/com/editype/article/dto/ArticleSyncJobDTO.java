@@ -0,0 +1,56 @@
+package com.editype.article.dto;
+
+import com.editype.article.sync.ArticleSyncJob;
+import com.editype.article.sync.ArticleSyncStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for returning batch sync progress
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSyncJobDTO {
+
+    private String id;
+    private ArticleSyncStatus status;
+    private int total;
+    private int fetched;
+    private int created;
+    private int updated;
+    private int unchanged;
+    private List<ArticleSyncJob.Failure> failures;
+    private List<Long> conflicts; // Editorum IDs changed on both sides, left for a manual load or save
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    /**
+     * Convert ArticleSyncJob to DTO
+     */
+    public static ArticleSyncJobDTO fromJob(ArticleSyncJob job) {
+        return ArticleSyncJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .total(job.getTotal())
+                .fetched(job.getFetched())
+                .created(job.getCreated())
+                .updated(job.getUpdated())
+                .unchanged(job.getUnchanged())
+                .failures(job.getFailures())
+                .conflicts(job.getConflicts())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.editype.article.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a batch sync of Editorum articles
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSyncRequestDTO {
+
+    @NotEmpty(message = "Editorum article IDs are required")
+    private List<Long> editorumIds;
+}
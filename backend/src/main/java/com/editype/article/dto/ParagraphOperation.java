@@ -0,0 +1,33 @@
+package com.editype.article.dto;
+
+import com.editype.article.entity.ArticleParagraph;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single paragraph-level edit of an article, addressed by {@link ArticleParagraph#getId()}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParagraphOperation {
+    
+    private Type op;
+    private String paragraphId;
+    
+    // New paragraph for INSERT and UPDATE
+    private ArticleParagraph paragraph;
+    
+    // Target index for INSERT and MOVE (appended when null)
+    private Integer position;
+    
+    public enum Type {
+        INSERT,
+        UPDATE,
+        MOVE,
+        DELETE
+    }
+}
@@ -0,0 +1,27 @@
+package com.editype.article.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for incremental paragraph saves.
+ * The revision is the one the client last loaded; the patch is rejected if the article changed since.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParagraphPatchRequestDTO {
+    
+    @NotNull(message = "Revision is required")
+    private Long revision;
+    
+    @NotEmpty(message = "Operations are required")
+    private List<ParagraphOperation> operations;
+}
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -24,14 +26,24 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "articles")
+@CompoundIndex(name = "updatedAt_id", def = "{'updatedAt': -1, '_id': -1}")
 public class Article {
     
     @Id
     private String id;
     
     // Editorum article ID (если статья из Editorum)
+    @Indexed(unique = true, sparse = true)
     private Long editorumId;
     
+    // Hash of the Editorum-owned fields as last pulled or pushed, and when Editorum last confirmed them
+    private String editorumHash;
+    @Indexed
+    private LocalDateTime editorumSyncedAt;
+    // Set when the article changed both here and in Editorum since the last sync; background sync
+    // leaves it alone until a manual load or save resolves it
+    private LocalDateTime editorumConflictAt;
+    
     // Multilingual metadata: ru, en, cn, etc
     // Maps to article[ru][title], article[en][title], etc
     @Builder.Default
@@ -64,6 +76,7 @@ public class Article {
     private Long rubricId;
     
     // DOI
+    @Indexed(unique = true, sparse = true)
     private String doi;
     
     // Page numbers
@@ -86,6 +99,12 @@ public class Article {
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
+    // Incremented on every write; paragraph patches must name the revision they are based on
+    private Long revision;
+    
+    // Version of the collaborative editing history that pmJson reflects
+    private Long collabVersion;
+    
     // Soft lock for sequential editing (before CRDT)
     private String lockedBy; // user email
     private LocalDateTime lockedAt;
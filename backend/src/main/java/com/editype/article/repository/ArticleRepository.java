@@ -10,7 +10,7 @@ import java.util.Optional;
  * Repository for Article entity
  */
 @Repository
-public interface ArticleRepository extends MongoRepository<Article, String> {
+public interface ArticleRepository extends MongoRepository<Article, String>, ArticleRepositoryCustom {
     
     /**
      * Find article by Editorum ID
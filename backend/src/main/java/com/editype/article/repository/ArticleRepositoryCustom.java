@@ -0,0 +1,75 @@
+package com.editype.article.repository;
+
+import com.editype.article.dto.ArticleSummaryDTO;
+import com.editype.article.dto.ParagraphOperation;
+import com.editype.article.entity.Article;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Targeted updates of Article documents that do not rewrite the whole document
+ */
+public interface ArticleRepositoryCustom {
+
+    /**
+     * Apply paragraph operations to an article if it is still at the expected revision.
+     * Returns the new revision, or -1 if the article does not exist or was changed concurrently.
+     * Operations on missing paragraphs or positions past the end throw IllegalArgumentException
+     * before anything is written.
+     */
+    long applyParagraphOperations(String articleId, long expectedRevision, List<ParagraphOperation> operations);
+
+    /**
+     * Atomically take the edit lock if it is free, stale (taken before staleBefore) or already held by the user.
+     * Returns false if another user holds a fresh lock or the article does not exist.
+     */
+    boolean acquireLock(String articleId, String userEmail, LocalDateTime now, LocalDateTime staleBefore);
+
+    /**
+     * Extend the lease of a lock held by the user. Returns false if the user no longer holds it.
+     */
+    boolean renewLock(String articleId, String userEmail, LocalDateTime now);
+
+    /**
+     * Release the lock if it is held by the user
+     */
+    void releaseLock(String articleId, String userEmail);
+
+    /**
+     * Store a collaborative editing snapshot unless a newer one is already stored.
+     * Returns false if the article does not exist or holds a newer snapshot.
+     */
+    boolean saveCollabSnapshot(String articleId, String pmJson, long collabVersion);
+
+    /**
+     * Replace an article if it is still at the expected revision, moving it to the next revision.
+     * Returns false if the article does not exist or is at another revision.
+     */
+    boolean replaceAtRevision(Article article, long expectedRevision);
+
+    /**
+     * Record a push to Editorum if the article is still at the revision that was pushed,
+     * moving it to the next revision and clearing a sync conflict.
+     * Returns false if the article does not exist or is at another revision.
+     */
+    boolean recordEditorumPush(String articleId, long expectedRevision, Long editorumId, String editorumHash,
+                               LocalDateTime syncedAt);
+
+    /**
+     * Link an article to the Editorum article created for it, unless it is linked already
+     */
+    void linkEditorum(String articleId, Long editorumId);
+
+    /**
+     * Set the page range of an article, moving it to the next revision.
+     * Returns the new revision, or null if the article does not exist.
+     */
+    Long updatePages(String articleId, int firstPage, int lastPage, LocalDateTime now);
+
+    /**
+     * Article summaries ordered by (updatedAt, id), starting after the given position (keyset pagination).
+     * Pass null for the first page.
+     */
+    List<ArticleSummaryDTO> findSummaries(LocalDateTime afterUpdatedAt, String afterId, boolean ascending, int limit);
+}
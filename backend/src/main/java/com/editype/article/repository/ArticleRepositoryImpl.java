@@ -0,0 +1,311 @@
+package com.editype.article.repository;
+
+import com.editype.article.body.ArticleBodyStore;
+import com.editype.article.dto.ArticleSummaryDTO;
+import com.editype.article.dto.ParagraphOperation;
+import com.editype.article.entity.Article;
+import com.editype.article.entity.ArticleParagraph;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Paragraph patches as a single pipeline update of the paragraphs array.
+ * Operations are validated against the stored paragraphs before anything is written, and the
+ * update is guarded by the expected revision, so a patch applies in full or not at all.
+ * Edit locks are single conditional findAndModify calls that only project the lock fields.
+ */
+@RequiredArgsConstructor
+public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
+
+    private static final String PARAGRAPHS = "paragraphs";
+    private static final String REVISION = "revision";
+    private static final String LOCKED_BY = "lockedBy";
+    private static final String LOCKED_AT = "lockedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final ArticleBodyStore bodyStore;
+
+    @Override
+    public long applyParagraphOperations(String articleId, long expectedRevision, List<ParagraphOperation> operations) {
+        // Every operation is checked against the stored layout first; a patch that cannot apply in full writes nothing
+        List<ArticleParagraph> layout = findLayout(articleId, expectedRevision);
+        if (layout == null) {
+            return -1;
+        }
+        // The resulting layout: paragraph IDs and the stored index of each, or -1 if the patch supplies it
+        List<String> ids = new ArrayList<>(layout.size());
+        List<Integer> sources = new ArrayList<>(layout.size());
+        for (int i = 0; i < layout.size(); i++) {
+            ids.add(layout.get(i).getId());
+            sources.add(i);
+        }
+
+        Map<String, ArticleParagraph> written = new HashMap<>();
+        for (ParagraphOperation operation : operations) {
+            String paragraphId = operation.getParagraphId();
+            Integer position = operation.getPosition();
+            switch (operation.getOp()) {
+                case INSERT -> {
+                    if (ids.contains(paragraphId)) {
+                        throw new IllegalArgumentException("Paragraph " + paragraphId + " already exists");
+                    }
+                    int index = targetIndex(position, ids.size());
+                    ids.add(index, paragraphId);
+                    sources.add(index, -1);
+                    written.put(paragraphId, operation.getParagraph());
+                }
+                case UPDATE -> {
+                    sources.set(indexOf(ids, paragraphId), -1);
+                    written.put(paragraphId, operation.getParagraph());
+                }
+                case DELETE -> {
+                    int index = indexOf(ids, paragraphId);
+                    ids.remove(index);
+                    sources.remove(index);
+                    written.remove(paragraphId);
+                }
+                case MOVE -> {
+                    int from = indexOf(ids, paragraphId);
+                    ids.remove(from);
+                    Integer source = sources.remove(from);
+                    int index = targetIndex(position, ids.size());
+                    ids.add(index, paragraphId);
+                    sources.add(index, source);
+                }
+            }
+        }
+
+        // One pipeline update guarded by the expected revision applies the whole patch or nothing.
+        // Kept paragraphs are taken from the stored array by index, which the guard keeps valid,
+        // so only the paragraphs supplied by the patch are sent.
+        List<Object> paragraphs = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int source = sources.get(i);
+            if (source < 0) {
+                ArticleParagraph paragraph = withPosition(written.get(ids.get(i)), ids.get(i), i);
+                paragraphs.add(new Document("$literal", mongoTemplate.getConverter()
+                        .convertToMongoType(paragraph, TypeInformation.of(ArticleParagraph.class))));
+            } else {
+                Document stored = new Document("$arrayElemAt", List.of("$" + PARAGRAPHS, source));
+                // Paragraphs shifted by inserts, deletes and moves keep their order in step with their index
+                paragraphs.add(layout.get(source).getOrder() == i
+                        ? stored
+                        : new Document("$mergeObjects", List.of(stored, new Document("order", i))));
+            }
+        }
+        Document set = new Document(PARAGRAPHS, paragraphs)
+                .append(REVISION, new Document("$add", List.of(new Document("$ifNull", List.of("$" + REVISION, 0L)), 1L)))
+                .append("updatedAt", mongoTemplate.getConverter().convertToMongoType(LocalDateTime.now()));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+
+        boolean applied = mongoTemplate.updateFirst(atRevision(articleId, expectedRevision), update, Article.class)
+                .getMatchedCount() > 0;
+        return applied ? expectedRevision + 1 : -1;
+    }
+
+    @Override
+    public boolean acquireLock(String articleId, String userEmail, LocalDateTime now, LocalDateTime staleBefore) {
+        Query query = Query.query(where("_id").is(articleId)).addCriteria(new Criteria().orOperator(
+                where(LOCKED_BY).is(null),
+                where(LOCKED_BY).is(userEmail),
+                where(LOCKED_AT).lt(staleBefore)));
+        return modifyLock(query, new Update().set(LOCKED_BY, userEmail).set(LOCKED_AT, now));
+    }
+
+    @Override
+    public boolean renewLock(String articleId, String userEmail, LocalDateTime now) {
+        Query query = Query.query(where("_id").is(articleId).and(LOCKED_BY).is(userEmail));
+        return modifyLock(query, new Update().set(LOCKED_AT, now));
+    }
+
+    @Override
+    public void releaseLock(String articleId, String userEmail) {
+        Query query = Query.query(where("_id").is(articleId).and(LOCKED_BY).is(userEmail));
+        mongoTemplate.updateFirst(query, new Update().unset(LOCKED_BY).unset(LOCKED_AT), Article.class);
+    }
+
+    private boolean modifyLock(Query query, Update update) {
+        query.fields().include(LOCKED_BY, LOCKED_AT);
+        Article locked = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Article.class);
+        return locked != null;
+    }
+
+    @Override
+    public boolean saveCollabSnapshot(String articleId, String pmJson, long collabVersion) {
+        Query query = Query.query(where("_id").is(articleId)).addCriteria(new Criteria().orOperator(
+                where("collabVersion").is(null),
+                where("collabVersion").lt(collabVersion)));
+        Update update = bodyStore.setField(touch(LocalDateTime.now()), articleId, "pmJson", pmJson)
+                .set("collabVersion", collabVersion);
+        boolean saved = mongoTemplate.updateFirst(query, update, Article.class).getMatchedCount() > 0;
+        bodyStore.cleanup(articleId);
+        return saved;
+    }
+
+    @Override
+    public boolean replaceAtRevision(Article article, long expectedRevision) {
+        Query query = atRevision(article.getId(), expectedRevision);
+        // The previous version is not needed; projecting the ID keeps its body from being loaded
+        query.fields().include("_id");
+        article.setRevision(expectedRevision + 1);
+        // Unlike a conditional update, findAndReplace runs the save callbacks that move large bodies out
+        return mongoTemplate.findAndReplace(query, article) != null;
+    }
+
+    @Override
+    public boolean recordEditorumPush(String articleId, long expectedRevision, Long editorumId, String editorumHash,
+                                      LocalDateTime syncedAt) {
+        Update update = new Update().inc(REVISION, 1)
+                .set("editorumId", editorumId)
+                .set("editorumHash", editorumHash)
+                .set("editorumSyncedAt", syncedAt)
+                .unset("editorumConflictAt");
+        return mongoTemplate.updateFirst(atRevision(articleId, expectedRevision), update, Article.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void linkEditorum(String articleId, Long editorumId) {
+        Query query = Query.query(where("_id").is(articleId).and("editorumId").is(null));
+        mongoTemplate.updateFirst(query, new Update().inc(REVISION, 1).set("editorumId", editorumId), Article.class);
+    }
+
+    @Override
+    public Long updatePages(String articleId, int firstPage, int lastPage, LocalDateTime now) {
+        // Moves the revision so that full saves from a copy loaded before the issue was compiled get a conflict
+        Update update = new Update().set("firstPage", firstPage).set("lastPage", lastPage).set("updatedAt", now)
+                .inc(REVISION, 1);
+        Query query = Query.query(where("_id").is(articleId));
+        query.fields().include(REVISION);
+        Article updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Article.class);
+        return updated != null ? updated.getRevision() : null;
+    }
+
+    @Override
+    public List<ArticleSummaryDTO> findSummaries(LocalDateTime afterUpdatedAt, String afterId, boolean ascending, int limit) {
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (afterUpdatedAt != null && afterId != null) {
+            // Range operators on _id are not converted by the query mapper
+            Object id = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+            Criteria after = new Criteria().orOperator(
+                    ascending ? where("updatedAt").gt(afterUpdatedAt) : where("updatedAt").lt(afterUpdatedAt),
+                    ascending
+                            ? where("updatedAt").is(afterUpdatedAt).and("_id").gt(id)
+                            : where("updatedAt").is(afterUpdatedAt).and("_id").lt(id));
+            stages.add(Aggregation.match(after));
+        }
+        // Served by the (updatedAt, _id) index in either direction
+        stages.add(Aggregation.sort(Sort.by(direction, "updatedAt").and(Sort.by(direction, "id"))));
+        stages.add(Aggregation.limit(limit));
+        // Only titles are taken from the per-language metadata
+        stages.add(context -> new Document("$project", new Document("editorumId", 1)
+                .append("doi", 1)
+                .append("status", 1)
+                .append("updatedAt", 1)
+                .append("titles", new Document("$arrayToObject", new Document("$map", new Document()
+                        .append("input", new Document("$objectToArray", new Document("$ifNull", List.of("$metadata", new Document()))))
+                        .append("in", new Document("k", "$$this.k").append("v", "$$this.v.title")))))));
+
+        List<ArticleSummaryDTO> summaries = new ArrayList<>(limit);
+        for (Document doc : mongoTemplate.aggregate(Aggregation.newAggregation(Article.class, stages), Document.class)) {
+            summaries.add(toSummary(doc));
+        }
+        return summaries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArticleSummaryDTO toSummary(Document doc) {
+        Date updatedAt = doc.getDate("updatedAt");
+        Number editorumId = doc.get("editorumId", Number.class);
+        Map<String, String> titles = new HashMap<>();
+        Object rawTitles = doc.get("titles");
+        if (rawTitles instanceof Map<?, ?> map) {
+            ((Map<String, Object>) map).forEach((lang, title) -> {
+                if (title != null) {
+                    titles.put(lang, title.toString());
+                }
+            });
+        }
+        return ArticleSummaryDTO.builder()
+                .id(doc.get("_id").toString())
+                .editorumId(editorumId != null ? editorumId.longValue() : null)
+                .titles(titles)
+                .doi(doc.getString("doi"))
+                .status(doc.getInteger("status"))
+                .updatedAt(updatedAt != null ? LocalDateTime.ofInstant(updatedAt.toInstant(), ZoneId.systemDefault()) : null)
+                .build();
+    }
+
+    /**
+     * IDs and orders of the stored paragraphs, or null if the article is not at the given revision
+     */
+    private List<ArticleParagraph> findLayout(String articleId, long revision) {
+        Query query = atRevision(articleId, revision);
+        query.fields().include(PARAGRAPHS + ".id", PARAGRAPHS + ".order");
+        Article article = mongoTemplate.findOne(query, Article.class);
+        if (article == null) {
+            return null;
+        }
+        return article.getParagraphs() != null ? article.getParagraphs() : List.of();
+    }
+
+    private static int indexOf(List<String> ids, String paragraphId) {
+        int index = ids.indexOf(paragraphId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Paragraph not found: " + paragraphId);
+        }
+        return index;
+    }
+
+    private static int targetIndex(Integer position, int size) {
+        if (position == null) {
+            return size;
+        }
+        if (position > size) {
+            throw new IllegalArgumentException("Paragraph position " + position + " is past the end (" + size + ")");
+        }
+        return position;
+    }
+
+    private static Query atRevision(String articleId, long revision) {
+        // Documents written before revisions were introduced have no revision field
+        Criteria revisionCriteria = revision == 0
+                ? where(REVISION).in(0L, null)
+                : where(REVISION).is(revision);
+        return Query.query(where("_id").is(articleId)).addCriteria(revisionCriteria);
+    }
+
+    private static Update touch(LocalDateTime now) {
+        return new Update().inc(REVISION, 1).set("updatedAt", now);
+    }
+
+    private static ArticleParagraph withPosition(ArticleParagraph paragraph, String paragraphId, int index) {
+        paragraph.setId(paragraphId);
+        paragraph.setOrder(index);
+        return paragraph;
+    }
+}
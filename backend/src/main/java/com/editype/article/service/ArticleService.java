@@ -1,17 +1,27 @@
 package com.editype.article.service;
 
+import com.editype.article.body.ArticleBodyStore;
+import com.editype.article.dto.ArticlePageDTO;
+import com.editype.article.dto.ArticleSummaryDTO;
+import com.editype.article.dto.ParagraphOperation;
+import com.editype.article.dto.ParagraphPatchRequestDTO;
 import com.editype.article.entity.Article;
-import com.editype.article.entity.ArticleMetadata;
 import com.editype.article.repository.ArticleRepository;
 import com.editype.editorum.client.EditorumApiClient;
 import com.editype.editorum.dto.EditorumArticleDTO;
+import com.editype.exception.ConflictException;
 import com.editype.exception.ResourceNotFoundException;
+import com.editype.export.cache.RenderCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +36,13 @@ public class ArticleService {
     
     private final ArticleRepository articleRepository;
     private final EditorumApiClient editorumApiClient;
+    private final RenderCache renderCache;
+    private final ArticleBodyStore bodyStore;
+    
+    private static final int MAX_PAGE_SIZE = 200;
+    
+    @Value("${articles.lock.ttl-minutes:5}")
+    private long lockTtlMinutes;
     
     /**
      * Get all articles
@@ -34,6 +51,55 @@ public class ArticleService {
         return articleRepository.findAll();
     }
     
+    /**
+     * Page of article summaries ordered by last modification, continuing after the given cursor
+     */
+    public ArticlePageDTO getArticleSummaries(String cursor, int limit, boolean ascending) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        LocalDateTime afterUpdatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterUpdatedAt = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
+        
+        // One extra row tells whether there is a next page
+        List<ArticleSummaryDTO> items = articleRepository.findSummaries(afterUpdatedAt, afterId, ascending, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            ArticleSummaryDTO last = items.get(limit - 1);
+            nextCursor = encodeCursor(last.getUpdatedAt(), last.getId());
+        }
+        return ArticlePageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
+    private static String encodeCursor(LocalDateTime updatedAt, String id) {
+        String position = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
     /**
      * Get article by ID
      */
@@ -59,46 +125,33 @@ public class ArticleService {
         // Fetch from Editorum
         EditorumArticleDTO editorumArticle = editorumApiClient.getArticle(accessToken, editorumId.toString());
         
+        // Skip the write if Editorum has not changed since the last sync
+        Article incoming = new Article();
+        EditorumArticleMapper.apply(incoming, editorumId, editorumArticle);
+        String hash = EditorumArticleMapper.contentHash(incoming);
+        if (existing != null && hash.equals(existing.getEditorumHash())) {
+            log.debug("Editorum article {} unchanged since last sync", editorumId);
+            return existing;
+        }
+        
         // Map to our Article entity
         Article article = existing != null ? existing : new Article();
-        article.setEditorumId(editorumId);
-        article.setText(editorumArticle.getText());
-        article.setDoi(editorumArticle.getDoi());
-        article.setFirstPage(editorumArticle.getFirstPage());
-        article.setLastPage(editorumArticle.getLastPage());
-        article.setLanguages(editorumArticle.getLanguages());
-        article.setAuthorIds(editorumArticle.getAuthors());
-        article.setRubricId(editorumArticle.getRubric() != null ? editorumArticle.getRubric().getId() : null);
+        EditorumArticleMapper.apply(article, editorumId, editorumArticle);
+        article.setEditorumHash(hash);
+        article.setEditorumSyncedAt(LocalDateTime.now());
+        // An explicit load takes Editorum's side of a sync conflict
+        article.setEditorumConflictAt(null);
         
-        // Map metadata
-        Map<String, ArticleMetadata> metadata = new HashMap<>();
-        if (editorumArticle.getRu() != null) {
-            EditorumArticleDTO.MetadataFields ruMeta = editorumArticle.getRu().get("article");
-            if (ruMeta != null) {
-                metadata.put("ru", ArticleMetadata.builder()
-                        .title(ruMeta.getTitle())
-                        .annotation(ruMeta.getAnnotation())
-                        .keywords(ruMeta.getKeywords())
-                        .build());
-            }
+        if (existing == null) {
+            article.setRevision(1L);
+            return articleRepository.save(article);
         }
-        if (editorumArticle.getEn() != null) {
-            EditorumArticleDTO.MetadataFields enMeta = editorumArticle.getEn().get("article");
-            if (enMeta != null) {
-                metadata.put("en", ArticleMetadata.builder()
-                        .title(enMeta.getTitle())
-                        .annotation(enMeta.getAnnotation())
-                        .keywords(enMeta.getKeywords())
-                        .build());
-            }
+        // Moves to the next revision, so patches based on the replaced content are rejected
+        long expectedRevision = existing.getRevision() != null ? existing.getRevision() : 0L;
+        if (!articleRepository.replaceAtRevision(article, expectedRevision)) {
+            throw new ConflictException("Article " + article.getId() + " was modified while it was loaded from Editorum");
         }
-        article.setMetadata(metadata);
-        
-        // Map references
-        // TODO: Map references from Editorum format
-        
-        // Save to local DB
-        return articleRepository.save(article);
+        return article;
     }
     
     /**
@@ -107,92 +160,142 @@ public class ArticleService {
     public Article saveToEditorum(String id, String accessToken) {
         Article article = getArticleById(id);
         
-        // Build Editorum DTO
-        EditorumArticleDTO editorumDto = new EditorumArticleDTO();
-        editorumDto.setId(article.getEditorumId());
-        editorumDto.setText(article.getText());
-        editorumDto.setDoi(article.getDoi());
-        editorumDto.setFirstPage(article.getFirstPage());
-        editorumDto.setLastPage(article.getLastPage());
-        editorumDto.setLanguages(article.getLanguages());
-        editorumDto.setAuthors(article.getAuthorIds());
-        
-        // Map metadata back
-        Map<String, EditorumArticleDTO.MetadataFields> ru = new HashMap<>();
-        Map<String, EditorumArticleDTO.MetadataFields> en = new HashMap<>();
-        
-        if (article.getMetadata().containsKey("ru")) {
-            ArticleMetadata ruMeta = article.getMetadata().get("ru");
-            EditorumArticleDTO.MetadataFields ruFields = new EditorumArticleDTO.MetadataFields();
-            ruFields.setTitle(ruMeta.getTitle());
-            ruFields.setAnnotation(ruMeta.getAnnotation());
-            ruFields.setKeywords(ruMeta.getKeywords());
-            ru.put("ru", ruFields);
-        }
-        
-        if (article.getMetadata().containsKey("en")) {
-            ArticleMetadata enMeta = article.getMetadata().get("en");
-            EditorumArticleDTO.MetadataFields enFields = new EditorumArticleDTO.MetadataFields();
-            enFields.setTitle(enMeta.getTitle());
-            enFields.setAnnotation(enMeta.getAnnotation());
-            enFields.setKeywords(enMeta.getKeywords());
-            en.put("en", enFields);
+        // Nothing to push if the Editorum-owned fields match the last synced state
+        String hash = EditorumArticleMapper.contentHash(article);
+        if (article.getEditorumId() != null && hash.equals(article.getEditorumHash())) {
+            log.debug("Article {} unchanged since last Editorum sync", id);
+            return article;
         }
         
-        editorumDto.setRu(ru);
-        editorumDto.setEn(en);
+        // Build Editorum DTO
+        EditorumArticleDTO editorumDto = EditorumArticleMapper.toDto(article);
+        long revision = article.getRevision() != null ? article.getRevision() : 0L;
         
         // Save to Editorum
-        if (article.getEditorumId() != null) {
+        boolean created = article.getEditorumId() == null;
+        if (!created) {
             editorumApiClient.updateArticle(accessToken, article.getEditorumId().toString(), editorumDto);
         } else {
-            EditorumArticleDTO created = editorumApiClient.createArticle(accessToken, editorumDto);
-            article.setEditorumId(created.getId());
+            article.setEditorumId(editorumApiClient.createArticle(accessToken, editorumDto).getId());
         }
         
-        return articleRepository.save(article);
+        // Only the sync fields are written: edits made during the Editorum call must not be rolled back.
+        // An explicit save takes the local side of a sync conflict.
+        LocalDateTime now = LocalDateTime.now();
+        if (!articleRepository.recordEditorumPush(id, revision, article.getEditorumId(), hash, now)) {
+            if (created) {
+                // Keep the link so the next save updates the new Editorum article instead of creating another
+                articleRepository.linkEditorum(id, article.getEditorumId());
+            }
+            throw new ConflictException("Article " + id + " was modified while it was saved to Editorum");
+        }
+        article.setEditorumHash(hash);
+        article.setEditorumSyncedAt(now);
+        article.setEditorumConflictAt(null);
+        article.setRevision(revision + 1);
+        return article;
     }
     
     /**
-     * Create or update article locally
+     * Create or update article locally.
+     * An update must carry the revision it is based on; it fails with a conflict if the article
+     * changed since, e.g. through paragraph patches.
      */
     public Article saveArticle(Article article) {
+        long expectedRevision = article.getRevision() != null ? article.getRevision() : 0L;
+        if (article.getId() != null && articleRepository.replaceAtRevision(article, expectedRevision)) {
+            return article;
+        }
+        if (article.getId() != null && articleRepository.existsById(article.getId())) {
+            throw new ConflictException("Article " + article.getId() + " was modified since revision " + expectedRevision);
+        }
+        article.setRevision(1L);
         return articleRepository.save(article);
     }
     
     /**
-     * Acquire lock for editing
+     * Store the page range an article got in a compiled issue and mirror it on the given instance
      */
-    public boolean acquireLock(String id, String userEmail) {
-        Article article = getArticleById(id);
-        
-        // Check if already locked
-        if (article.getLockedBy() != null) {
-            // Check if lock is stale (older than 5 minutes)
-            if (article.getLockedAt() != null && 
-                article.getLockedAt().plusMinutes(5).isAfter(LocalDateTime.now())) {
-                return false; // Still locked by someone else
-            }
+    public void updatePages(Article article, int firstPage, int lastPage) {
+        // Mongo keeps milliseconds; the instance must match what a reload returns for render cache keys
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Long revision = articleRepository.updatePages(article.getId(), firstPage, lastPage, now);
+        if (revision == null) {
+            throw new ResourceNotFoundException("Article not found with id: " + article.getId());
+        }
+        article.setRevision(revision);
+        article.setFirstPage(firstPage);
+        article.setLastPage(lastPage);
+        article.setUpdatedAt(now);
+    }
+
+    /**
+     * Apply paragraph-level edits without rewriting the article.
+     * Returns the new revision; fails with a conflict if the article changed since the client's revision.
+     */
+    public long patchParagraphs(String id, ParagraphPatchRequestDTO request) {
+        for (ParagraphOperation operation : request.getOperations()) {
+            validate(operation);
         }
         
-        // Acquire lock
-        article.setLockedBy(userEmail);
-        article.setLockedAt(LocalDateTime.now());
-        articleRepository.save(article);
-        
-        return true;
+        long revision = articleRepository.applyParagraphOperations(id, request.getRevision(), request.getOperations());
+        if (revision < 0) {
+            requireExists(id);
+            throw new ConflictException("Article " + id + " was modified since revision " + request.getRevision());
+        }
+        return revision;
+    }
+    
+    private void validate(ParagraphOperation operation) {
+        if (operation == null || operation.getOp() == null) {
+            throw new IllegalArgumentException("Paragraph operation type is required");
+        }
+        if (operation.getParagraphId() == null || operation.getParagraphId().isBlank()) {
+            throw new IllegalArgumentException("Paragraph ID is required for " + operation.getOp());
+        }
+        boolean needsParagraph = operation.getOp() == ParagraphOperation.Type.INSERT
+                || operation.getOp() == ParagraphOperation.Type.UPDATE;
+        if (needsParagraph && operation.getParagraph() == null) {
+            throw new IllegalArgumentException("Paragraph content is required for " + operation.getOp());
+        }
+        if (operation.getPosition() != null && operation.getPosition() < 0) {
+            throw new IllegalArgumentException("Paragraph position must not be negative");
+        }
+    }
+    
+    /**
+     * Acquire lock for editing (free, stale or already ours)
+     */
+    public boolean acquireLock(String id, String userEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        if (articleRepository.acquireLock(id, userEmail, now, now.minusMinutes(lockTtlMinutes))) {
+            return true;
+        }
+        requireExists(id);
+        return false; // Still locked by someone else
+    }
+    
+    /**
+     * Extend the lease of a held lock
+     */
+    public boolean renewLock(String id, String userEmail) {
+        if (articleRepository.renewLock(id, userEmail, LocalDateTime.now())) {
+            return true;
+        }
+        requireExists(id);
+        return false;
     }
     
     /**
      * Release lock
      */
     public void releaseLock(String id, String userEmail) {
-        Article article = getArticleById(id);
-        
-        if (userEmail.equals(article.getLockedBy())) {
-            article.setLockedBy(null);
-            article.setLockedAt(null);
-            articleRepository.save(article);
+        articleRepository.releaseLock(id, userEmail);
+    }
+    
+    private void requireExists(String id) {
+        if (!articleRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Article not found with id: " + id);
         }
     }
     
@@ -201,6 +304,8 @@ public class ArticleService {
      */
     public void deleteArticle(String id) {
         articleRepository.deleteById(id);
+        bodyStore.delete(id);
+        renderCache.invalidate(id);
     }
 }
 
@@ -0,0 +1,172 @@
+package com.editype.article.service;
+
+import com.editype.article.entity.Article;
+import com.editype.article.entity.ArticleMetadata;
+import com.editype.editorum.dto.EditorumArticleDTO;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps Editorum article payloads onto local articles.
+ * Only the fields owned by Editorum are touched; editor state (pmJson, paragraphs, locks) is kept.
+ */
+public final class EditorumArticleMapper {
+
+    private EditorumArticleMapper() {
+    }
+
+    /**
+     * Copy Editorum-owned fields onto an article
+     */
+    public static void apply(Article article, Long editorumId, EditorumArticleDTO editorumArticle) {
+        article.setEditorumId(editorumId);
+        article.setText(editorumArticle.getText());
+        article.setDoi(editorumArticle.getDoi());
+        article.setFirstPage(editorumArticle.getFirstPage());
+        article.setLastPage(editorumArticle.getLastPage());
+        article.setLanguages(editorumArticle.getLanguages());
+        article.setAuthorIds(editorumArticle.getAuthors());
+        article.setRubricId(editorumArticle.getRubric() != null ? editorumArticle.getRubric().getId() : null);
+        article.setMetadata(metadata(editorumArticle));
+
+        // Map references
+        // TODO: Map references from Editorum format
+    }
+
+    /**
+     * Editorum payload for pushing an article back
+     */
+    public static EditorumArticleDTO toDto(Article article) {
+        EditorumArticleDTO editorumDto = new EditorumArticleDTO();
+        editorumDto.setId(article.getEditorumId());
+        editorumDto.setText(article.getText());
+        editorumDto.setDoi(article.getDoi());
+        editorumDto.setFirstPage(article.getFirstPage());
+        editorumDto.setLastPage(article.getLastPage());
+        editorumDto.setLanguages(article.getLanguages());
+        editorumDto.setAuthors(article.getAuthorIds());
+
+        // Map metadata back
+        Map<String, EditorumArticleDTO.MetadataFields> ru = new HashMap<>();
+        Map<String, EditorumArticleDTO.MetadataFields> en = new HashMap<>();
+
+        if (article.getMetadata().containsKey("ru")) {
+            ArticleMetadata ruMeta = article.getMetadata().get("ru");
+            EditorumArticleDTO.MetadataFields ruFields = new EditorumArticleDTO.MetadataFields();
+            ruFields.setTitle(ruMeta.getTitle());
+            ruFields.setAnnotation(ruMeta.getAnnotation());
+            ruFields.setKeywords(ruMeta.getKeywords());
+            ru.put("ru", ruFields);
+        }
+
+        if (article.getMetadata().containsKey("en")) {
+            ArticleMetadata enMeta = article.getMetadata().get("en");
+            EditorumArticleDTO.MetadataFields enFields = new EditorumArticleDTO.MetadataFields();
+            enFields.setTitle(enMeta.getTitle());
+            enFields.setAnnotation(enMeta.getAnnotation());
+            enFields.setKeywords(enMeta.getKeywords());
+            en.put("en", enFields);
+        }
+
+        editorumDto.setRu(ru);
+        editorumDto.setEn(en);
+        return editorumDto;
+    }
+
+    /**
+     * Same fields as {@link #apply} as a targeted update, for bulk writes that skip the entity lifecycle.
+     * The text is left to the caller because it may have to be stored as blocks.
+     */
+    public static Update update(EditorumArticleDTO editorumArticle) {
+        return new Update()
+                .set("doi", editorumArticle.getDoi())
+                .set("firstPage", editorumArticle.getFirstPage())
+                .set("lastPage", editorumArticle.getLastPage())
+                .set("languages", editorumArticle.getLanguages())
+                .set("authorIds", editorumArticle.getAuthors())
+                .set("rubricId", editorumArticle.getRubric() != null ? editorumArticle.getRubric().getId() : null)
+                .set("metadata", metadata(editorumArticle));
+    }
+
+    /**
+     * SHA-256 of the Editorum-owned fields of an article.
+     * Equal hashes mean the article and its last synced Editorum state have the same content.
+     */
+    public static String contentHash(Article article) {
+        MessageDigest digest = sha256();
+        update(digest, article.getText());
+        update(digest, article.getDoi());
+        update(digest, article.getFirstPage());
+        update(digest, article.getLastPage());
+        update(digest, article.getLanguages());
+        update(digest, article.getAuthorIds());
+        update(digest, article.getRubricId());
+        Map<String, ArticleMetadata> metadata = article.getMetadata() != null ? article.getMetadata() : Map.of();
+        for (String language : List.of("ru", "en")) {
+            ArticleMetadata fields = metadata.get(language);
+            update(digest, fields != null ? language : null);
+            if (fields != null) {
+                update(digest, fields.getTitle());
+                update(digest, fields.getAnnotation());
+                update(digest, fields.getKeywords());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Article metadata by language from the Editorum ru/en sections
+     */
+    public static Map<String, ArticleMetadata> metadata(EditorumArticleDTO editorumArticle) {
+        Map<String, ArticleMetadata> metadata = new HashMap<>();
+        putMetadata(metadata, "ru", editorumArticle.getRu());
+        putMetadata(metadata, "en", editorumArticle.getEn());
+        return metadata;
+    }
+
+    private static void putMetadata(Map<String, ArticleMetadata> metadata, String language,
+                                    Map<String, EditorumArticleDTO.MetadataFields> section) {
+        EditorumArticleDTO.MetadataFields fields = section != null ? section.get("article") : null;
+        if (fields != null) {
+            metadata.put(language, ArticleMetadata.builder()
+                    .title(fields.getTitle())
+                    .annotation(fields.getAnnotation())
+                    .keywords(fields.getKeywords())
+                    .build());
+        }
+    }
+
+    private static void update(MessageDigest digest, List<?> values) {
+        update(digest, values != null ? Integer.toString(values.size()) : null);
+        if (values != null) {
+            values.forEach(value -> update(digest, value));
+        }
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
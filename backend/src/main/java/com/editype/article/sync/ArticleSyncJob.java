@@ -0,0 +1,143 @@
+package com.editype.article.sync;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process batch sync of Editorum articles.
+ * Counters are updated by fetch workers and the job runner while clients poll.
+ */
+public class ArticleSyncJob {
+
+    /**
+     * Article that could not be fetched or written
+     */
+    public record Failure(Long editorumId, String error) {}
+
+    private final String id;
+    private final String owner;
+    private final List<Long> editorumIds;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> conflicts = new ConcurrentLinkedQueue<>();
+
+    private volatile ArticleSyncStatus status = ArticleSyncStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public ArticleSyncJob(String id, String owner, List<Long> editorumIds) {
+        this.id = id;
+        this.owner = owner;
+        this.editorumIds = List.copyOf(editorumIds);
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ArticleSyncStatus.RUNNING;
+    }
+
+    void markSucceeded() {
+        finishedAt = LocalDateTime.now();
+        status = ArticleSyncStatus.SUCCEEDED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = ArticleSyncStatus.FAILED;
+    }
+
+    void recordFetched() {
+        fetched.incrementAndGet();
+    }
+
+    void recordWritten(int created, int updated) {
+        this.created.addAndGet(created);
+        this.updated.addAndGet(updated);
+    }
+
+    void recordUnchanged(int unchanged) {
+        this.unchanged.addAndGet(unchanged);
+    }
+
+    void recordFailure(Long editorumId, String error) {
+        failures.add(new Failure(editorumId, error));
+    }
+
+    void recordConflict(Long editorumId) {
+        conflicts.add(editorumId);
+    }
+
+    public boolean isFinished() {
+        return status == ArticleSyncStatus.SUCCEEDED || status == ArticleSyncStatus.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public List<Long> getEditorumIds() {
+        return editorumIds;
+    }
+
+    public int getTotal() {
+        return editorumIds.size();
+    }
+
+    public int getFetched() {
+        return fetched.get();
+    }
+
+    public int getCreated() {
+        return created.get();
+    }
+
+    public int getUpdated() {
+        return updated.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public List<Failure> getFailures() {
+        return List.copyOf(failures);
+    }
+
+    public List<Long> getConflicts() {
+        return List.copyOf(conflicts);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public ArticleSyncStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,431 @@
+package com.editype.article.sync;
+
+import com.editype.article.body.ArticleBodyStore;
+import com.editype.article.entity.Article;
+import com.editype.article.service.EditorumArticleMapper;
+import com.editype.editorum.client.EditorumApiClient;
+import com.editype.editorum.dto.EditorumArticleDTO;
+import com.editype.exception.ResourceNotFoundException;
+import com.editype.exception.ServiceOverloadedException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Batch import of Editorum articles.
+ * Articles are fetched by a shared pool of bounded size, mapped on the fetching thread
+ * and written in unordered bulk upserts keyed by editorumId. Editor state of existing
+ * articles (pmJson, paragraphs, locks) is left untouched, as with a single load.
+ * Articles whose Editorum content hash matches the last sync are not rewritten, and articles
+ * changed locally since the last sync are not overwritten: if Editorum changed too, the article
+ * is marked as a conflict and left for a manual load or save.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArticleSyncService {
+
+    private final MongoTemplate mongoTemplate;
+    private final EditorumApiClient editorumApiClient;
+    private final ArticleBodyStore bodyStore;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ArticleSyncJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${editorum.sync.parallelism:8}")
+    private int parallelism;
+
+    @Value("${editorum.sync.max-jobs:2}")
+    private int maxJobs;
+
+    @Value("${editorum.sync.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${editorum.sync.max-articles:1000}")
+    private int maxArticles;
+
+    @Value("${editorum.sync.batch-size:100}")
+    private int batchSize;
+
+    @Value("${editorum.sync.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${export.render.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor jobExecutor;
+    private ThreadPoolExecutor fetchExecutor;
+
+    /**
+     * Article fetched and mapped, ready for the bulk write.
+     * The filter of an existing article only matches the revision its local fields were compared at.
+     */
+    private record SyncItem(Long editorumId, String articleId, boolean insert, boolean chunked, boolean conflict,
+                            String hash, Query filter, Update update) {
+
+        boolean unchanged() {
+            return update == null && !conflict;
+        }
+    }
+
+    /**
+     * Local article already linked to an Editorum ID, with its Editorum-owned fields.
+     * The text of a chunked article is only read when its local hash is needed.
+     */
+    private record Existing(String articleId, boolean chunked, String editorumHash, Long revision, Article local,
+                            Document textReference) {}
+
+    @PostConstruct
+    void init() {
+        jobExecutor = new ThreadPoolExecutor(
+                maxJobs, maxJobs,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads("editorum-sync-job-"));
+        // Fetches of all jobs share one pool so the Editorum connection pool is never oversubscribed
+        fetchExecutor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                daemonThreads("editorum-sync-fetch-"));
+        fetchExecutor.allowCoreThreadTimeOut(true);
+
+        new ExecutorServiceMetrics(fetchExecutor, "editorum-sync", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Queue a sync of the given Editorum articles
+     */
+    public ArticleSyncJob submit(String owner, List<Long> editorumIds, String accessToken) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(editorumIds));
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("Editorum article IDs must not be null");
+        }
+        if (ids.size() > maxArticles) {
+            throw new IllegalArgumentException("At most " + maxArticles + " articles can be synced at once");
+        }
+
+        ArticleSyncJob job = new ArticleSyncJob(UUID.randomUUID().toString(), owner, ids);
+        jobs.put(job.getId(), job);
+
+        try {
+            jobExecutor.execute(() -> run(job, accessToken));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ServiceOverloadedException("Too many pending sync jobs, please retry later", retryAfterSeconds);
+        }
+
+        log.info("Queued Editorum sync {} of {} articles", job.getId(), ids.size());
+        return job;
+    }
+
+    /**
+     * Sync the given Editorum articles on the calling thread, for scheduled background syncs
+     */
+    public ArticleSyncJob syncNow(String owner, List<Long> editorumIds, String accessToken) {
+        ArticleSyncJob job = new ArticleSyncJob(UUID.randomUUID().toString(), owner, editorumIds);
+        run(job, accessToken);
+        return job;
+    }
+
+    /**
+     * Get job visible to the given user
+     */
+    public ArticleSyncJob getJob(String id, String owner) {
+        ArticleSyncJob job = jobs.get(id);
+        if (job == null || !job.getOwner().equals(owner)) {
+            throw new ResourceNotFoundException("Sync job not found with id: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Drop finished jobs older than the configured TTL
+     */
+    @Scheduled(fixedDelayString = "${editorum.sync.cleanup-interval-ms:60000}")
+    public void expireJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void run(ArticleSyncJob job, String accessToken) {
+        job.markRunning();
+        List<Future<SyncItem>> pending = new ArrayList<>();
+        try {
+            Map<Long, Existing> existing = findExisting(job.getEditorumIds());
+
+            CompletionService<SyncItem> completion = new ExecutorCompletionService<>(fetchExecutor);
+            for (Long editorumId : job.getEditorumIds()) {
+                pending.add(completion.submit(
+                        () -> fetchItem(job, editorumId, existing.get(editorumId), accessToken)));
+            }
+
+            List<SyncItem> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < pending.size(); i++) {
+                Future<SyncItem> next = completion.take();
+                SyncItem item = next.get();
+                if (item == null) {
+                    continue;
+                }
+                batch.add(item);
+                if (batch.size() >= batchSize) {
+                    write(job, batch);
+                    batch.clear();
+                }
+            }
+            write(job, batch);
+
+            job.markSucceeded();
+            log.info("Editorum sync {} finished: {} created, {} updated, {} unchanged, {} failed", job.getId(),
+                    job.getCreated(), job.getUpdated(), job.getUnchanged(), job.getFailures().size());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(future -> future.cancel(true));
+            job.markFailed("Sync interrupted");
+        } catch (Exception e) {
+            log.error("Editorum sync {} failed", job.getId(), e);
+            pending.forEach(future -> future.cancel(true));
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    private Map<Long, Existing> findExisting(List<Long> editorumIds) {
+        Query query = Query.query(where("editorumId").in(editorumIds));
+        query.fields().include("editorumId", "editorumHash", "revision", "text", "doi", "firstPage", "lastPage", "languages",
+                "authorIds", "rubricId", "metadata", ArticleBodyStore.BODY_CHUNKS + ".text");
+        Map<Long, Existing> existing = new HashMap<>();
+        for (Document article : mongoTemplate.find(query, Document.class, "articles")) {
+            Document chunks = article.get(ArticleBodyStore.BODY_CHUNKS, Document.class);
+            Document textReference = chunks != null ? chunks.get("text", Document.class) : null;
+            existing.put(((Number) article.get("editorumId")).longValue(),
+                    new Existing(article.get("_id").toString(), textReference != null,
+                            article.getString("editorumHash"), article.get("revision", Number.class) != null
+                                    ? article.get("revision", Number.class).longValue() : null,
+                            mongoTemplate.getConverter().read(Article.class, article), textReference));
+        }
+        return existing;
+    }
+
+    /**
+     * Fetch one article and map it to its upsert.
+     * Failures are recorded on the job rather than thrown so one bad article does not stop the batch.
+     */
+    private SyncItem fetchItem(ArticleSyncJob job, Long editorumId, Existing existing, String accessToken) {
+        try {
+            SyncItem item = fetch(editorumId, existing, accessToken);
+            job.recordFetched();
+            return item;
+        } catch (RuntimeException e) {
+            log.warn("Editorum sync {}: article {} failed: {}", job.getId(), editorumId, e.getMessage());
+            job.recordFailure(editorumId, e.getMessage());
+            return null;
+        }
+    }
+
+    private SyncItem fetch(Long editorumId, Existing existing, String accessToken) {
+        EditorumArticleDTO editorumArticle = editorumApiClient.getArticle(accessToken, editorumId.toString());
+        if (editorumArticle == null) {
+            throw new IllegalStateException("Editorum returned no article " + editorumId);
+        }
+
+        // Articles whose Editorum content matches the last sync are only marked as checked
+        Article incoming = new Article();
+        EditorumArticleMapper.apply(incoming, editorumId, editorumArticle);
+        String hash = EditorumArticleMapper.contentHash(incoming);
+        if (existing != null && hash.equals(existing.editorumHash())) {
+            return new SyncItem(editorumId, existing.articleId(), false, false, false, hash, null, null);
+        }
+        // Articles linked before hashes were recorded have no base to compare with and take Editorum's copy
+        if (existing != null && existing.editorumHash() != null) {
+            String localHash = localHash(existing);
+            if (!localHash.equals(existing.editorumHash()) && !localHash.equals(hash)) {
+                return new SyncItem(editorumId, existing.articleId(), false, false, true, hash, null, null);
+            }
+        }
+
+        boolean insert = existing == null;
+        String articleId = insert ? new ObjectId().toHexString() : existing.articleId();
+        LocalDateTime now = LocalDateTime.now();
+        Update update = EditorumArticleMapper.update(editorumArticle)
+                .set("editorumHash", hash)
+                .set("editorumSyncedAt", now)
+                .set("updatedAt", now)
+                .unset("editorumConflictAt")
+                .inc("revision", 1)
+                .setOnInsert("_id", new ObjectId(articleId))
+                .setOnInsert("createdAt", now);
+        // Bulk updates bypass the save callbacks, so large text is moved to blocks here
+        bodyStore.setField(update, articleId, "text", editorumArticle.getText());
+        boolean chunked = (existing != null && existing.chunked()) || bodyStore.isLarge(editorumArticle.getText());
+
+        Query filter = Query.query(where("editorumId").is(editorumId));
+        if (!insert) {
+            // A local edit made while Editorum was fetched moves the revision and makes the write miss
+            filter.addCriteria(existing.revision() == null || existing.revision() == 0
+                    ? where("revision").in(0L, null)
+                    : where("revision").is(existing.revision()));
+        }
+        return new SyncItem(editorumId, articleId, insert, chunked, false, hash, filter, update);
+    }
+
+    private String localHash(Existing existing) {
+        Article local = existing.local();
+        if (existing.chunked() && local.getText() == null) {
+            local.setText(bodyStore.read(existing.articleId(), "text", existing.textReference()));
+        }
+        return EditorumArticleMapper.contentHash(local);
+    }
+
+    private void write(ArticleSyncJob job, List<SyncItem> items) {
+        List<Long> unchanged = items.stream().filter(SyncItem::unchanged).map(SyncItem::editorumId).toList();
+        if (!unchanged.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(where("editorumId").in(unchanged)),
+                    Update.update("editorumSyncedAt", LocalDateTime.now()), Article.class);
+            job.recordUnchanged(unchanged.size());
+        }
+
+        List<Long> conflicts = items.stream().filter(SyncItem::conflict).map(SyncItem::editorumId).toList();
+        if (!conflicts.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            mongoTemplate.updateMulti(Query.query(where("editorumId").in(conflicts)),
+                    new Update().set("editorumConflictAt", now).set("editorumSyncedAt", now), Article.class);
+            conflicts.forEach(job::recordConflict);
+            log.warn("Editorum sync {}: {} articles changed both locally and in Editorum, not overwritten: {}",
+                    job.getId(), conflicts.size(), conflicts);
+        }
+
+        List<SyncItem> batch = items.stream().filter(item -> item.update() != null).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Article.class);
+        for (SyncItem item : batch) {
+            if (item.insert()) {
+                bulk.upsert(item.filter(), item.update());
+            } else {
+                bulk.updateOne(item.filter(), item.update());
+            }
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            record(job, bulk.execute());
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                job.recordFailure(batch.get(error.getIndex()).editorumId(), error.getMessage());
+            }
+            record(job, e.getResult());
+        } catch (DataAccessException e) {
+            log.warn("Editorum sync {} bulk write of {} articles failed: {}", job.getId(), batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                failed.add(i);
+                job.recordFailure(batch.get(i).editorumId(), e.getMessage());
+            }
+        }
+
+        recordConcurrentEdits(job, batch, failed);
+
+        for (int i = 0; i < batch.size(); i++) {
+            SyncItem item = batch.get(i);
+            if (!item.chunked()) {
+                continue;
+            }
+            if (!failed.contains(i)) {
+                bodyStore.cleanup(item.articleId());
+            } else if (item.insert()) {
+                // The article was never created, so its blocks are unreachable
+                bodyStore.delete(item.articleId());
+            }
+        }
+    }
+
+    /**
+     * Existing articles whose write missed because they were edited locally after they were read.
+     * They are left as they are and counted as conflicts; the next pull compares them again.
+     */
+    private void recordConcurrentEdits(ArticleSyncJob job, List<SyncItem> batch, Set<Integer> failed) {
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!batch.get(i).insert() && !failed.contains(i)) {
+                expected.put(batch.get(i).editorumId(), batch.get(i).hash());
+            }
+        }
+        if (expected.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(where("editorumId").in(expected.keySet()));
+        query.fields().include("editorumId", "editorumHash");
+        List<Long> missed = new ArrayList<>();
+        for (Article article : mongoTemplate.find(query, Article.class)) {
+            if (!expected.get(article.getEditorumId()).equals(article.getEditorumHash())) {
+                missed.add(article.getEditorumId());
+            }
+        }
+        if (!missed.isEmpty()) {
+            missed.forEach(job::recordConflict);
+            log.warn("Editorum sync {}: {} articles were edited locally during the sync, not overwritten: {}",
+                    job.getId(), missed.size(), missed);
+        }
+    }
+
+    private static void record(ArticleSyncJob job, BulkWriteResult result) {
+        job.recordWritten(result.getUpserts().size(), result.getMatchedCount());
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.editype.article.sync;
+
+/**
+ * Lifecycle of a batch Editorum sync.
+ * A job that ran to the end is SUCCEEDED even if single articles failed; see its failures.
+ */
+public enum ArticleSyncStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,248 @@
+package com.editype.article.sync;
+
+import com.editype.article.body.ArticleBodyStore;
+import com.editype.article.entity.Article;
+import com.editype.article.service.EditorumArticleMapper;
+import com.editype.auth.service.AuthService;
+import com.editype.editorum.client.EditorumApiClient;
+import com.editype.editorum.dto.EditorumArticleDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Scheduled delta sync with Editorum, run as a configured service user with a stored Editorum token.
+ * Push: articles modified since the watermark are sent only if their Editorum-owned fields
+ * no longer match the hash of the last sync and Editorum still has the last synced copy;
+ * otherwise the article is marked as a conflict. Pull: the linked articles confirmed longest ago
+ * are re-fetched, and those whose Editorum content is unchanged are not rewritten.
+ * A lease in sync_state keeps several instances from running it at the same time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EditorumIncrementalSync {
+
+    private static final String STATE_ID = "editorum";
+
+    // Identifies this instance's lease, so it never extends or releases a lease another instance took over
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    private final MongoTemplate mongoTemplate;
+    private final EditorumApiClient editorumApiClient;
+    private final ArticleSyncService articleSyncService;
+    private final AuthService authService;
+
+    @Value("${editorum.sync.incremental.user:}")
+    private String serviceUser;
+
+    @Value("${editorum.sync.incremental.push-batch:200}")
+    private int pushBatch;
+
+    @Value("${editorum.sync.incremental.pull-batch:200}")
+    private int pullBatch;
+
+    @Value("${editorum.sync.incremental.settle-seconds:5}")
+    private long settleSeconds;
+
+    @Value("${editorum.sync.incremental.lease-minutes:30}")
+    private long leaseMinutes;
+
+    @Scheduled(fixedDelayString = "${editorum.sync.incremental.interval-ms:300000}",
+            initialDelayString = "${editorum.sync.incremental.initial-delay-ms:60000}")
+    public void sync() {
+        if (serviceUser.isBlank()) {
+            return;
+        }
+        try {
+            String accessToken = authService.getEditorumAccessToken(serviceUser);
+            if (accessToken == null) {
+                log.warn("Incremental Editorum sync skipped: no Editorum token for {}", serviceUser);
+                return;
+            }
+            if (!acquireLease()) {
+                log.debug("Incremental Editorum sync running on another instance");
+                return;
+            }
+            try {
+                push(accessToken);
+                pull(accessToken);
+            } finally {
+                releaseLease();
+            }
+        } catch (RuntimeException e) {
+            // MongoDB or Editorum unavailable; the next run resumes from the watermark
+            log.warn("Incremental Editorum sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Push local changes made since the watermark.
+     * The watermark only moves past articles that were pushed or rejected by Editorum,
+     * so an outage resumes where it stopped.
+     */
+    private void push(String accessToken) {
+        EditorumSyncState state = mongoTemplate.findById(STATE_ID, EditorumSyncState.class);
+        LocalDateTime after = state != null ? state.getPushedUntil() : null;
+        String afterId = state != null ? state.getPushedUntilId() : null;
+        // Leave recent writes alone so saves still in flight are not skipped by the watermark
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(settleSeconds);
+
+        int checked = 0;
+        int pushed = 0;
+        int rejected = 0;
+        int conflicts = 0;
+        int skipped = 0;
+        try {
+            while (true) {
+                List<Article> articles = mongoTemplate.find(changedSince(after, afterId, settled), Article.class);
+                for (Article article : articles) {
+                    String hash = EditorumArticleMapper.contentHash(article);
+                    if (article.getEditorumHash() == null || article.getEditorumConflictAt() != null) {
+                        // No base to compare Editorum with until a pull records one, or a conflict is
+                        // waiting for a manual load or save
+                        skipped++;
+                    } else if (!hash.equals(article.getEditorumHash())) {
+                        try {
+                            switch (pushIfUnchangedRemotely(article, hash, accessToken)) {
+                                case PUSHED -> pushed++;
+                                case CONFLICT -> conflicts++;
+                                case ALREADY_IN_SYNC -> { }
+                            }
+                        } catch (HttpClientErrorException e) {
+                            // Retrying will not help; the article is checked again after its next edit
+                            log.warn("Editorum rejected article {}: {}", article.getId(), e.getStatusCode());
+                            rejected++;
+                        }
+                    }
+                    checked++;
+                    after = article.getUpdatedAt();
+                    afterId = article.getId();
+                }
+                if (articles.size() < pushBatch) {
+                    break;
+                }
+            }
+        } finally {
+            if (after != null) {
+                mongoTemplate.updateFirst(Query.query(where("_id").is(STATE_ID)),
+                        new Update().set("pushedUntil", after).set("pushedUntilId", afterId),
+                        EditorumSyncState.class);
+            }
+            if (checked > 0) {
+                log.info("Incremental Editorum push: {} changed articles checked, {} pushed, {} rejected, "
+                        + "{} conflicts, {} skipped", checked, pushed, rejected, conflicts, skipped);
+            }
+        }
+    }
+
+    private enum PushResult { PUSHED, CONFLICT, ALREADY_IN_SYNC }
+
+    /**
+     * Send the local copy unless Editorum changed since the last sync
+     */
+    private PushResult pushIfUnchangedRemotely(Article article, String hash, String accessToken) {
+        String editorumId = article.getEditorumId().toString();
+        EditorumArticleDTO editorumArticle = editorumApiClient.getArticle(accessToken, editorumId);
+        if (editorumArticle == null) {
+            throw new IllegalStateException("Editorum returned no article " + editorumId);
+        }
+        Article remote = new Article();
+        EditorumArticleMapper.apply(remote, article.getEditorumId(), editorumArticle);
+        String remoteHash = EditorumArticleMapper.contentHash(remote);
+
+        Update update = new Update().set("editorumSyncedAt", LocalDateTime.now());
+        PushResult result;
+        if (remoteHash.equals(hash)) {
+            // Both sides made the same change
+            result = PushResult.ALREADY_IN_SYNC;
+            update.set("editorumHash", hash);
+        } else if (!remoteHash.equals(article.getEditorumHash())) {
+            log.warn("Article {} changed both locally and in Editorum since the last sync, not pushed", article.getId());
+            result = PushResult.CONFLICT;
+            update.set("editorumConflictAt", LocalDateTime.now());
+        } else {
+            editorumApiClient.updateArticle(accessToken, editorumId, EditorumArticleMapper.toDto(article));
+            result = PushResult.PUSHED;
+            update.set("editorumHash", hash);
+        }
+        // Targeted update: updatedAt stays, so the article is not picked up again
+        mongoTemplate.updateFirst(Query.query(where("_id").is(article.getId())), update, Article.class);
+        return result;
+    }
+
+    private Query changedSince(LocalDateTime after, String afterId, LocalDateTime settled) {
+        Criteria criteria = where("editorumId").ne(null).and("updatedAt").lte(settled);
+        if (after != null) {
+            criteria = criteria.orOperator(
+                    where("updatedAt").gt(after),
+                    where("updatedAt").is(after).and("_id").gt(ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt", "_id"))
+                .limit(pushBatch);
+        // Editorum-owned fields only; a chunked text is read back by the body callbacks
+        query.fields().include("editorumId", "editorumHash", "editorumConflictAt", "updatedAt", "text", "doi", "firstPage", "lastPage",
+                "languages", "authorIds", "rubricId", "metadata", ArticleBodyStore.BODY_CHUNKS + ".text");
+        return query;
+    }
+
+    /**
+     * Re-fetch the linked articles confirmed longest ago
+     */
+    private void pull(String accessToken) {
+        Query query = Query.query(where("editorumId").ne(null))
+                .with(Sort.by(Sort.Direction.ASC, "editorumSyncedAt"))
+                .limit(pullBatch);
+        query.fields().include("editorumId");
+        List<Long> editorumIds = mongoTemplate.find(query, Article.class).stream()
+                .map(Article::getEditorumId)
+                .toList();
+        if (editorumIds.isEmpty()) {
+            return;
+        }
+        ArticleSyncJob job = articleSyncService.syncNow(serviceUser, editorumIds, accessToken);
+        log.info("Incremental Editorum pull: {} checked, {} unchanged, {} updated, {} conflicts, {} failed",
+                job.getTotal(), job.getUnchanged(), job.getUpdated(), job.getConflicts().size(),
+                job.getFailures().size());
+    }
+
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(where("_id").is(STATE_ID).orOperator(
+                where("leaseUntil").is(null),
+                where("leaseUntil").lt(now),
+                where("leaseOwner").is(leaseOwner)));
+        try {
+            mongoTemplate.upsert(query, new Update().set("leaseUntil", now.plusMinutes(leaseMinutes))
+                            .set("leaseOwner", leaseOwner),
+                    EditorumSyncState.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The state exists and its lease is held
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        // A run that outlived its lease must not clear the lease of the instance that took over
+        mongoTemplate.updateFirst(Query.query(where("_id").is(STATE_ID).and("leaseOwner").is(leaseOwner)),
+                new Update().unset("leaseUntil").unset("leaseOwner"), EditorumSyncState.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.editype.article.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the scheduled Editorum sync, shared by all application instances.
+ * The push watermark is the (updatedAt, id) of the last article checked for local changes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sync_state")
+public class EditorumSyncState {
+    
+    @Id
+    private String id;
+    
+    private LocalDateTime leaseUntil; // Instance running the sync holds the lease until then
+    private String leaseOwner; // Token of the instance holding the lease
+    private LocalDateTime pushedUntil;
+    private String pushedUntilId;
+}
@@ -6,6 +6,8 @@ import com.editype.auth.dto.RegisterRequestDTO;
 import com.editype.editorum.dto.EditorumUserDTO;
 import com.editype.editorum.dto.OAuth2TokenResponse;
 import com.editype.security.JwtUtil;
+import com.editype.security.TokenVersionRegistry;
+import com.editype.security.VerifiedTokenCache;
 import com.editype.user.entity.User;
 import com.editype.user.entity.UserRole;
 import com.editype.user.repository.UserRepository;
@@ -27,6 +29,8 @@ public class AuthService {
     
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
     
     /**
      * Login user and return JWT token (локальная авторизация - deprecated)
@@ -39,7 +43,7 @@ public class AuthService {
             throw new IllegalArgumentException("Invalid email or password");
         }
         
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user);
         
         return AuthResponseDTO.builder()
                 .token(token)
@@ -69,7 +73,8 @@ public class AuthService {
                 .build();
         
         User savedUser = userRepository.save(user);
-        String token = jwtUtil.generateToken(savedUser.getEmail());
+        tokenVersionRegistry.update(savedUser);
+        String token = jwtUtil.generateToken(savedUser);
         
         return AuthResponseDTO.builder()
                 .token(token)
@@ -101,9 +106,12 @@ public class AuthService {
         user.setEditorumAccessToken(tokenResponse.getAccessToken());
         user.setEditorumRefreshToken(tokenResponse.getRefreshToken());
         user = userRepository.save(user);
+        // Роли могли измениться - старые токены должны пройти проверку заново
+        verifiedTokenCache.evictUser(user.getEmail());
+        tokenVersionRegistry.update(user);
         
         // Генерируем JWT токен для нашей системы
-        String jwtToken = jwtUtil.generateToken(user.getEmail());
+        String jwtToken = jwtUtil.generateToken(user);
         
         log.info("Successfully authenticated user via Editorum: {}", email);
         
@@ -156,7 +164,11 @@ public class AuthService {
         
         // Обновляем роли на основе данных из Editorum
         Set<UserRole> newRoles = determineUserRoles(editorumUser);
-        user.setRoles(newRoles);
+        if (!newRoles.equals(user.getRoles())) {
+            // Токены со старыми ролями больше не принимаются
+            user.setRoles(newRoles);
+            user.setTokenVersion(TokenVersionRegistry.versionOf(user) + 1);
+        }
     }
     
     /**
@@ -0,0 +1,146 @@
+package com.editype.collab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory state of one article being edited collaboratively.
+ * Holds the latest client snapshot and the ordered ProseMirror steps since (and some before) it.
+ * All mutating methods must be called while holding the document's monitor.
+ */
+final class CollabDocument {
+
+    final String articleId;
+    final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+
+    private final ArrayDeque<Step> steps = new ArrayDeque<>();
+    private final int maxHistory;
+
+    // Version before the oldest retained step
+    private long baseVersion;
+    private long version;
+
+    private String snapshot;
+    private long snapshotVersion;
+    private long persistedVersion;
+    private long snapshotRequestedAt;
+    private long idleSince = System.currentTimeMillis();
+
+    CollabDocument(String articleId, String snapshot, long snapshotVersion, int maxHistory) {
+        this.articleId = articleId;
+        this.snapshot = snapshot;
+        this.snapshotVersion = snapshotVersion;
+        this.persistedVersion = snapshotVersion;
+        this.baseVersion = snapshotVersion;
+        this.version = snapshotVersion;
+        this.maxHistory = maxHistory;
+    }
+
+    /**
+     * A step together with the client that produced it
+     */
+    record Step(JsonNode step, String clientId) {}
+
+    long version() {
+        return version;
+    }
+
+    String snapshot() {
+        return snapshot;
+    }
+
+    long snapshotVersion() {
+        return snapshotVersion;
+    }
+
+    /**
+     * Append steps if they are based on the current version; returns false if the client is behind
+     */
+    boolean append(long clientVersion, List<JsonNode> newSteps, String clientId) {
+        if (clientVersion != version) {
+            return false;
+        }
+        for (JsonNode step : newSteps) {
+            steps.addLast(new Step(step, clientId));
+        }
+        version += newSteps.size();
+        trim();
+        return true;
+    }
+
+    /**
+     * Steps after the given version, or null if they are no longer retained
+     */
+    List<Step> stepsSince(long fromVersion) {
+        if (fromVersion < baseVersion || fromVersion > version) {
+            return null;
+        }
+        List<Step> result = new ArrayList<>((int) (version - fromVersion));
+        long stepVersion = baseVersion;
+        for (Step step : steps) {
+            if (stepVersion++ >= fromVersion) {
+                result.add(step);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Accept a client snapshot of the document at a version newer than the current snapshot
+     */
+    boolean acceptSnapshot(long docVersion, String doc) {
+        if (docVersion <= snapshotVersion || docVersion > version) {
+            return false;
+        }
+        snapshot = doc;
+        snapshotVersion = docVersion;
+        snapshotRequestedAt = 0;
+        trim();
+        return true;
+    }
+
+    boolean needsSnapshot() {
+        return version > snapshotVersion;
+    }
+
+    boolean hasUnpersistedSnapshot() {
+        return snapshotVersion > persistedVersion;
+    }
+
+    void markPersisted(long persisted) {
+        persistedVersion = Math.max(persistedVersion, persisted);
+    }
+
+    /**
+     * Whether a snapshot request is due (none outstanding within the timeout)
+     */
+    boolean snapshotRequestDue(long now, long timeoutMillis) {
+        return now - snapshotRequestedAt >= timeoutMillis;
+    }
+
+    void snapshotRequested(long now) {
+        snapshotRequestedAt = now;
+    }
+
+    void touchIdle(long now) {
+        idleSince = now;
+    }
+
+    long idleSince() {
+        return idleSince;
+    }
+
+    private void trim() {
+        // Steps after the snapshot are needed to bring new editors up to date
+        while (steps.size() > maxHistory && baseVersion < snapshotVersion) {
+            steps.removeFirst();
+            baseVersion++;
+        }
+    }
+}
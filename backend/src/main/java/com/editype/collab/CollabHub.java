@@ -0,0 +1,279 @@
+package com.editype.collab;
+
+import com.editype.article.entity.Article;
+import com.editype.article.repository.ArticleRepository;
+import com.editype.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central authority for collaborative editing (prosemirror-collab protocol).
+ * Clients submit ProseMirror steps against the version they have seen; steps based on
+ * the current version are appended and broadcast, others are answered with the missing
+ * steps so the client can rebase and resubmit. The server never applies steps itself:
+ * up-to-date clients are asked for snapshots, which are stored in {@link Article#getPmJson()}
+ * by a periodic flush and let old steps be dropped.
+ */
+@Slf4j
+@Component
+public class CollabHub {
+
+    private final ArticleRepository articleRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CollabDocument> documents = new ConcurrentHashMap<>();
+    private final Counter stepCounter;
+    private final Counter rejectCounter;
+
+    @Value("${collab.max-history:1000}")
+    private int maxHistory;
+
+    @Value("${collab.snapshot-every-steps:200}")
+    private int snapshotEverySteps;
+
+    @Value("${collab.snapshot-request-timeout-ms:30000}")
+    private long snapshotRequestTimeoutMs;
+
+    @Value("${collab.idle-eviction-minutes:10}")
+    private long idleEvictionMinutes;
+
+    public CollabHub(ArticleRepository articleRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.articleRepository = articleRepository;
+        this.objectMapper = objectMapper;
+        this.stepCounter = Counter.builder("editype.collab.steps")
+                .description("ProseMirror steps accepted by the collaboration hub")
+                .register(meterRegistry);
+        this.rejectCounter = Counter.builder("editype.collab.rejections")
+                .description("Step submissions rejected because the client was behind")
+                .register(meterRegistry);
+        Gauge.builder("editype.collab.documents", documents, Map::size)
+                .description("Articles open for collaborative editing")
+                .register(meterRegistry);
+        Gauge.builder("editype.collab.sessions", documents,
+                        docs -> docs.values().stream().mapToInt(doc -> doc.sessions.size()).sum())
+                .description("Connected collaborative editing sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Register a session and send it the current snapshot and the steps since
+     */
+    public void join(String articleId, WebSocketSession session) throws IOException {
+        CollabDocument document = documents.computeIfAbsent(articleId, this::load);
+        synchronized (document) {
+            if (documents.get(articleId) != document) {
+                // Evicted by a concurrent flush, load it again
+                join(articleId, session);
+                return;
+            }
+            document.sessions.add(session);
+            ObjectNode init = message("init", document.snapshotVersion());
+            init.set("doc", parseDoc(document.snapshot()));
+            appendSteps(init, document.stepsSince(document.snapshotVersion()));
+            send(document, session, new TextMessage(objectMapper.writeValueAsString(init)));
+            if (document.needsSnapshot()) {
+                // Let the new editor persist what it just caught up with
+                requestSnapshot(document, session);
+            }
+        }
+    }
+
+    /**
+     * Unregister a session
+     */
+    public void leave(String articleId, WebSocketSession session) {
+        CollabDocument document = documents.get(articleId);
+        if (document == null) {
+            return;
+        }
+        synchronized (document) {
+            document.sessions.remove(session);
+            document.touchIdle(System.currentTimeMillis());
+            if (document.needsSnapshot() && !document.sessions.isEmpty()) {
+                requestSnapshot(document, document.sessions.iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Handle steps submitted by a client
+     */
+    public void receiveSteps(String articleId, WebSocketSession session, long clientVersion,
+                             List<JsonNode> steps, String clientId) throws IOException {
+        CollabDocument document = requireDocument(articleId);
+        synchronized (document) {
+            if (!document.append(clientVersion, steps, clientId)) {
+                rejectCounter.increment();
+                List<CollabDocument.Step> missing = document.stepsSince(clientVersion);
+                if (missing == null) {
+                    send(document, session, new TextMessage(objectMapper.writeValueAsString(
+                            message("resync", document.version()))));
+                    return;
+                }
+                ObjectNode reject = message("reject", document.version());
+                appendSteps(reject, missing);
+                send(document, session, new TextMessage(objectMapper.writeValueAsString(reject)));
+                return;
+            }
+            stepCounter.increment(steps.size());
+
+            ObjectNode broadcast = message("steps", document.version());
+            broadcast.put("from", clientVersion);
+            appendSteps(broadcast, document.stepsSince(clientVersion));
+            TextMessage text = new TextMessage(objectMapper.writeValueAsString(broadcast));
+            for (WebSocketSession member : document.sessions) {
+                send(document, member, text);
+            }
+
+            if (document.version() - document.snapshotVersion() >= snapshotEverySteps) {
+                requestSnapshot(document, session);
+            }
+        }
+    }
+
+    /**
+     * Handle a document snapshot sent by a client
+     */
+    public void receiveSnapshot(String articleId, long version, JsonNode doc) throws JsonProcessingException {
+        CollabDocument document = requireDocument(articleId);
+        String json = objectMapper.writeValueAsString(doc);
+        synchronized (document) {
+            document.acceptSnapshot(version, json);
+        }
+    }
+
+    /**
+     * Persist new snapshots, ask for overdue ones and drop documents nobody edits anymore
+     */
+    @Scheduled(fixedDelayString = "${collab.flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (CollabDocument document : documents.values()) {
+            String snapshot;
+            long snapshotVersion;
+            synchronized (document) {
+                if (document.needsSnapshot() && !document.sessions.isEmpty()) {
+                    requestSnapshot(document, document.sessions.iterator().next());
+                }
+                snapshot = document.hasUnpersistedSnapshot() ? document.snapshot() : null;
+                snapshotVersion = document.snapshotVersion();
+            }
+
+            if (snapshot != null) {
+                try {
+                    articleRepository.saveCollabSnapshot(document.articleId, snapshot, snapshotVersion);
+                    synchronized (document) {
+                        document.markPersisted(snapshotVersion);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to persist collaborative snapshot of article {}", document.articleId, e);
+                    continue;
+                }
+            }
+
+            synchronized (document) {
+                boolean idle = document.sessions.isEmpty()
+                        && now - document.idleSince() > idleEvictionMinutes * 60_000;
+                if (idle && !document.hasUnpersistedSnapshot()) {
+                    if (document.needsSnapshot()) {
+                        log.warn("Dropping {} unsnapshotted steps of article {}",
+                                document.version() - document.snapshotVersion(), document.articleId);
+                    }
+                    documents.remove(document.articleId, document);
+                }
+            }
+        }
+    }
+
+    private CollabDocument load(String articleId) {
+        Article article = articleRepository.findById(articleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Article not found with id: " + articleId));
+        long version = article.getCollabVersion() != null ? article.getCollabVersion() : 0L;
+        return new CollabDocument(articleId, article.getPmJson(), version, maxHistory);
+    }
+
+    private CollabDocument requireDocument(String articleId) {
+        CollabDocument document = documents.get(articleId);
+        if (document == null) {
+            throw new IllegalStateException("Article " + articleId + " is not open for collaboration");
+        }
+        return document;
+    }
+
+    private void requestSnapshot(CollabDocument document, WebSocketSession session) {
+        long now = System.currentTimeMillis();
+        if (!document.snapshotRequestDue(now, snapshotRequestTimeoutMs)) {
+            return;
+        }
+        document.snapshotRequested(now);
+        try {
+            send(document, session, new TextMessage(objectMapper.writeValueAsString(
+                    message("snapshot-request", document.version()))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ObjectNode message(String type, long version) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", type);
+        node.put("version", version);
+        return node;
+    }
+
+    private void appendSteps(ObjectNode message, List<CollabDocument.Step> steps) {
+        ArrayNode stepArray = message.putArray("steps");
+        ArrayNode clientIds = message.putArray("clientIds");
+        for (CollabDocument.Step step : steps) {
+            stepArray.add(step.step());
+            clientIds.add(step.clientId());
+        }
+    }
+
+    private JsonNode parseDoc(String pmJson) {
+        if (pmJson == null || pmJson.isBlank()) {
+            return objectMapper.nullNode();
+        }
+        try {
+            return objectMapper.readTree(pmJson);
+        } catch (JsonProcessingException e) {
+            log.warn("Stored pmJson is not valid JSON, starting from an empty document: {}", e.getMessage());
+            return objectMapper.nullNode();
+        }
+    }
+
+    /**
+     * Send through the session's bounded buffer; a client that cannot keep up is disconnected
+     * and resynchronises on reconnect instead of holding back the others
+     */
+    private void send(CollabDocument document, WebSocketSession session, TextMessage message) {
+        try {
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dropping slow or broken collaboration session {}: {}", session.getId(), e.getMessage());
+            document.sessions.remove(session);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.editype.collab;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket configuration for collaborative editing
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class CollabWebSocketConfig implements WebSocketConfigurer {
+
+    private final CollabWebSocketHandler collabWebSocketHandler;
+
+    @Value("${collab.max-message-kb:4096}")
+    private int maxMessageKb;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(collabWebSocketHandler, "/api/collab/articles/*")
+                .setAllowedOrigins("*");
+    }
+
+    /**
+     * Snapshots carry the whole document, so allow larger incoming messages than the container default
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageKb * 1024);
+        return container;
+    }
+}
@@ -0,0 +1,115 @@
+package com.editype.collab;
+
+import com.editype.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket endpoint for collaborative editing of one article: /api/collab/articles/{articleId}.
+ * Client messages: {"type":"steps","version":n,"clientId":"..","steps":[..]} and
+ * {"type":"snapshot","version":n,"doc":{..}}. Server messages: init, steps, reject, resync, snapshot-request.
+ */
+@Slf4j
+@Component
+public class CollabWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String ARTICLE_ID = "articleId";
+
+    private final CollabHub hub;
+    private final ObjectMapper objectMapper;
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${collab.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${collab.send-buffer-limit-kb:1024}")
+    private int sendBufferLimitKb;
+
+    public CollabWebSocketHandler(CollabHub hub, ObjectMapper objectMapper) {
+        this.hub = hub;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String articleId = articleId(session);
+        if (articleId == null || session.getPrincipal() == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        session.getAttributes().put(ARTICLE_ID, articleId);
+
+        // Outgoing messages are buffered per session, bounded in time and size
+        WebSocketSession bounded = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimitMs, sendBufferLimitKb * 1024);
+        sessions.put(session.getId(), bounded);
+        try {
+            hub.join(articleId, bounded);
+        } catch (ResourceNotFoundException e) {
+            sessions.remove(session.getId());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Article not found"));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        String articleId = (String) session.getAttributes().get(ARTICLE_ID);
+        WebSocketSession bounded = sessions.get(session.getId());
+        if (articleId == null || bounded == null) {
+            return;
+        }
+
+        JsonNode payload = objectMapper.readTree(message.getPayload());
+        String type = payload.path("type").asText();
+        long version = payload.path("version").asLong(-1);
+        switch (type) {
+            case "steps" -> {
+                List<JsonNode> steps = new ArrayList<>();
+                payload.path("steps").forEach(steps::add);
+                String clientId = payload.path("clientId").asText(session.getPrincipal().getName());
+                if (!steps.isEmpty()) {
+                    hub.receiveSteps(articleId, bounded, version, steps, clientId);
+                }
+            }
+            case "snapshot" -> hub.receiveSnapshot(articleId, version, payload.path("doc"));
+            default -> log.debug("Ignoring collaboration message of type '{}'", type);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        log.debug("Collaboration transport error on session {}: {}", session.getId(), exception.getMessage());
+        session.close(CloseStatus.SERVER_ERROR);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        WebSocketSession bounded = sessions.remove(session.getId());
+        String articleId = (String) session.getAttributes().get(ARTICLE_ID);
+        if (bounded != null && articleId != null) {
+            hub.leave(articleId, bounded);
+        }
+    }
+
+    private static String articleId(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return null;
+        }
+        String path = session.getUri().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        return id.isBlank() ? null : id;
+    }
+}
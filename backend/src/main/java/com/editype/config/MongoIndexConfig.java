@@ -0,0 +1,168 @@
+package com.editype.config;
+
+import com.editype.article.body.ArticleBodyChunk;
+import com.editype.article.entity.Article;
+import com.editype.publication.entity.Publication;
+import com.editype.style.entity.ParagraphStyle;
+import com.editype.template.entity.DocumentTemplate;
+import com.editype.user.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared on entities once the application is up.
+ * Automatic index creation is off in Spring Boot, so declared indexes would otherwise not exist.
+ * Afterwards it reports declared indexes that could not be created (e.g. duplicate DOIs)
+ * and repository query shapes that the planner would still answer with a collection scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            User.class, Article.class, ArticleBodyChunk.class, Publication.class, ParagraphStyle.class,
+            DocumentTemplate.class);
+
+    /**
+     * Filters and sorts issued by the repositories, checked with explain at startup
+     */
+    private static final List<QueryShape> QUERY_SHAPES = List.of(
+            new QueryShape("users", "findByEmail", new Document("email", ""), null),
+            new QueryShape("articles", "findByEditorumId", new Document("editorumId", 0L), null),
+            new QueryShape("articles", "findByDoi", new Document("doi", ""), null),
+            new QueryShape("articles", "EditorumIncrementalSync.pull",
+                    new Document("editorumId", new Document("$ne", null)), new Document("editorumSyncedAt", 1)),
+            new QueryShape("articles", "findSummaries", new Document(),
+                    new Document("updatedAt", -1).append("_id", -1)),
+            new QueryShape("article_body_chunks", "ArticleBodyStore.read",
+                    new Document("articleId", "").append("field", "").append("version", ""), new Document("n", 1)),
+            new QueryShape("publications", "findByDoi", new Document("doi", ""), null),
+            new QueryShape("paragraph_styles", "findByType", new Document("type", ""), null),
+            new QueryShape("paragraph_styles", "findByCategory", new Document("category", ""), null),
+            new QueryShape("document_templates", "findByDocumentTypeIdAndIsDefaultTrueAndActiveTrue",
+                    new Document("documentTypeId", "").append("isDefault", true).append("active", true), null),
+            new QueryShape("document_templates", "findByCategoryAndActiveTrue",
+                    new Document("category", "").append("active", true), null),
+            new QueryShape("document_templates", "findByActiveTrueOrderByCreatedAtDesc",
+                    new Document("active", true), new Document("createdAt", -1)),
+            new QueryShape("document_templates", "findByCreatedByAndActiveTrueOrderByCreatedAtDesc",
+                    new Document("createdBy", "").append("active", true), new Document("createdAt", -1)));
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${mongodb.index-report.enabled:true}")
+    private boolean reportEnabled;
+
+    private record QueryShape(String collection, String query, Document filter, Document sort) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.getDb().runCommand(new Document("ping", 1));
+        } catch (RuntimeException e) {
+            log.warn("MongoDB unavailable, indexes not created: {}", e.getMessage());
+            return;
+        }
+
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        List<String> missing = new ArrayList<>();
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(entity);
+                List<IndexDefinition> declared = new ArrayList<>();
+                resolver.resolveIndexFor(entity).forEach(declared::add);
+                for (IndexDefinition index : declared) {
+                    try {
+                        indexOps.ensureIndex(index);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not create index {} on {}: {}",
+                                index.getIndexKeys().toJson(), entity.getSimpleName(), e.getMessage());
+                    }
+                }
+                if (reportEnabled) {
+                    missing.addAll(missingIndexes(entity, indexOps, declared));
+                }
+            } catch (RuntimeException e) {
+                // Log and move on so one entity does not block the indexes of the others
+                log.warn("Could not create indexes for {}: {}", entity.getSimpleName(), e.getMessage());
+            }
+        }
+
+        if (reportEnabled) {
+            if (!missing.isEmpty()) {
+                log.warn("Declared MongoDB indexes missing: {}", missing);
+            }
+            reportCollectionScans();
+        }
+    }
+
+    private List<String> missingIndexes(Class<?> entity, IndexOperations indexOps, List<IndexDefinition> declared) {
+        Set<String> existing = indexOps.getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet());
+        List<String> missing = new ArrayList<>();
+        for (IndexDefinition index : declared) {
+            String name = index.getIndexOptions().getString("name");
+            if (name != null && !existing.contains(name)) {
+                missing.add(entity.getSimpleName() + "." + name);
+            }
+        }
+        return missing;
+    }
+
+    private void reportCollectionScans() {
+        List<String> scans = new ArrayList<>();
+        for (QueryShape shape : QUERY_SHAPES) {
+            Document find = new Document("find", shape.collection()).append("filter", shape.filter());
+            if (shape.sort() != null) {
+                find.append("sort", shape.sort());
+            }
+            try {
+                Document explain = mongoTemplate.getDb().runCommand(
+                        new Document("explain", find).append("verbosity", "queryPlanner"));
+                Document planner = explain.get("queryPlanner", Document.class);
+                if (planner != null && containsStage(planner.get("winningPlan"), "COLLSCAN")) {
+                    scans.add(shape.collection() + "." + shape.query());
+                }
+            } catch (RuntimeException e) {
+                log.debug("Could not explain {}: {}", shape.query(), e.getMessage());
+            }
+        }
+        if (scans.isEmpty()) {
+            log.info("MongoDB index report: all {} repository queries use an index", QUERY_SHAPES.size());
+        } else {
+            log.warn("MongoDB index report: collection scans for {}", scans);
+        }
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.editype.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs MongoDB commands that take longer than a threshold.
+ * Only the command name, collection and the filter's field names are logged, never values.
+ */
+@Slf4j
+@Configuration
+public class MongoSlowCommandConfig {
+
+    @Value("${mongodb.slow-command-ms:200}")
+    private long slowCommandMs;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowCommandLogger() {
+        return settings -> settings.addCommandListener(new SlowCommandListener(slowCommandMs));
+    }
+
+    static final class SlowCommandListener implements CommandListener {
+
+        private final long thresholdNanos;
+        // Command shape by request id, kept only between start and completion
+        private final Map<Integer, String> started = new ConcurrentHashMap<>();
+
+        SlowCommandListener(long thresholdMs) {
+            this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            started.put(event.getRequestId(), describe(event.getCommandName(), event.getCommand()));
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            String command = started.remove(event.getRequestId());
+            if (command != null && event.getElapsedTime(TimeUnit.NANOSECONDS) >= thresholdNanos) {
+                log.warn("Slow MongoDB command ({} ms): {}", event.getElapsedTime(TimeUnit.MILLISECONDS), command);
+            }
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            started.remove(event.getRequestId());
+        }
+
+        private static String describe(String commandName, BsonDocument command) {
+            BsonValue collection = command.get(commandName);
+            StringBuilder description = new StringBuilder(commandName);
+            if (collection != null && collection.isString()) {
+                description.append(' ').append(collection.asString().getValue());
+            }
+            BsonValue filter = command.containsKey("filter") ? command.get("filter") : command.get("q");
+            if (filter != null && filter.isDocument()) {
+                description.append(" filter=").append(filter.asDocument().keySet());
+            }
+            BsonValue sort = command.get("sort");
+            if (sort != null && sort.isDocument()) {
+                description.append(" sort=").append(sort.asDocument().keySet());
+            }
+            return description.toString();
+        }
+    }
+}
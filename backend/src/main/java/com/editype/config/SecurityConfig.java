@@ -2,6 +2,10 @@ package com.editype.config;
 
 import com.editype.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -10,6 +14,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * Spring Security configuration
@@ -21,6 +26,17 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    // Role required for metrics and the other actuator endpoints on the application port
+    @Value("${spring.security.actuator-role:EDITOR}")
+    private String actuatorRole;
+
+    // Separate management port, expected to be reachable only from inside the deployment
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
     
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -30,7 +46,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/oauth/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class)).permitAll()
+                .requestMatchers(onManagementPort()).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole(actuatorRole)
                 .requestMatchers("/api/users/**").authenticated()
                 .requestMatchers("/api/publications/**").authenticated()
                 .requestMatchers("/api/znan/**").authenticated()
@@ -45,5 +63,13 @@ public class SecurityConfig {
         
         return http.build();
     }
+
+    /**
+     * Requests to a management port other than the application port, e.g. Prometheus scrapes
+     */
+    private RequestMatcher onManagementPort() {
+        boolean separate = managementPort > 0 && managementPort != serverPort;
+        return request -> separate && request.getLocalPort() == managementPort;
+    }
 }
 
@@ -0,0 +1,62 @@
+package com.editype.editorum.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Shared second-level tier for {@link EditorumReferenceCache}, stored as JSON in Redis.
+ * Redis failures are logged and treated as misses so Editorum stays reachable without it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "editorum.cache.redis.enabled", havingValue = "true")
+public class EditorumRedisCache {
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+    
+    public EditorumRedisCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("editorum.reference.redis.requests", "result", "hit");
+        this.misses = meterRegistry.counter("editorum.reference.redis.requests", "result", "miss");
+    }
+    
+    /**
+     * Cached value, or null on miss or Redis failure
+     */
+    public Object get(String key, TypeReference<?> type) {
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            if (json == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Redis cache read failed for {}: {}", key, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+    
+    public void put(String key, Object value, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), ttl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Redis cache write failed for {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.editype.editorum.cache;
+
+import com.editype.editorum.client.EditorumApiClient;
+import com.editype.editorum.dto.EditorumDocumentTypeDTO;
+import com.editype.editorum.dto.EditorumJournalDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache for Editorum reference data (journals, document types).
+ * Entries are scoped per user, expire after a TTL and are refreshed in the background
+ * with the token of the user who finds them old; concurrent misses for the same key share
+ * a single Editorum call. Tokens are only held for the duration of a load, never by the cache.
+ * When enabled, Redis is consulted before Editorum so replicas share loaded data.
+ */
+@Slf4j
+@Component
+public class EditorumReferenceCache {
+    
+    private final EditorumApiClient editorumApiClient;
+    private final MeterRegistry meterRegistry;
+    private final EditorumRedisCache redisCache;
+    
+    @Value("${editorum.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+    
+    @Value("${editorum.cache.refresh-minutes:10}")
+    private long refreshMinutes;
+    
+    @Value("${editorum.cache.max-entries:10000}")
+    private long maxEntries;
+    
+    private Cache<Key, Object> cache;
+    
+    // Background refreshes in flight, one per key
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+    
+    public EditorumReferenceCache(EditorumApiClient editorumApiClient,
+                                  MeterRegistry meterRegistry,
+                                  ObjectProvider<EditorumRedisCache> redisCache) {
+        this.editorumApiClient = editorumApiClient;
+        this.meterRegistry = meterRegistry;
+        this.redisCache = redisCache.getIfAvailable();
+    }
+    
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "editorum.reference");
+        log.info("Editorum reference cache: ttl={}m, refresh={}m, redis={}", 
+                ttlMinutes, refreshMinutes, redisCache != null);
+    }
+    
+    /**
+     * All journals visible to the user
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, EditorumJournalDTO> getAllJournals(String scope, String accessToken) {
+        return (Map<String, EditorumJournalDTO>) get(new Key(Kind.JOURNALS, scope, ""), accessToken);
+    }
+    
+    /**
+     * Journal by ID
+     */
+    public EditorumJournalDTO getJournal(String scope, Long id, String accessToken) {
+        return (EditorumJournalDTO) get(new Key(Kind.JOURNAL, scope, String.valueOf(id)), accessToken);
+    }
+    
+    /**
+     * Document types available to the user
+     */
+    @SuppressWarnings("unchecked")
+    public List<EditorumDocumentTypeDTO> getDocumentTypes(String scope, String accessToken) {
+        return (List<EditorumDocumentTypeDTO>) get(new Key(Kind.DOCUMENT_TYPES, scope, ""), accessToken);
+    }
+    
+    /**
+     * Document type by ID
+     */
+    public EditorumDocumentTypeDTO getDocumentType(String scope, String id, String accessToken) {
+        return (EditorumDocumentTypeDTO) get(new Key(Kind.DOCUMENT_TYPE, scope, id), accessToken);
+    }
+    
+    private Object get(Key key, String accessToken) {
+        Object value = cache.get(key, k -> loadThroughRedis(k, accessToken));
+        if (value != null) {
+            refreshIfOld(key, accessToken);
+        }
+        return value;
+    }
+    
+    /**
+     * Reload an old entry in the background with the caller's token; the old value is served meanwhile
+     */
+    private void refreshIfOld(Key key, String accessToken) {
+        boolean old = cache.policy().expireAfterWrite()
+                .flatMap(policy -> policy.ageOf(key))
+                .filter(age -> age.toMinutes() >= refreshMinutes)
+                .isPresent();
+        if (!old) {
+            return;
+        }
+        if (!refreshing.add(key)) {
+            return;
+        }
+        // Refresh-ahead must bypass Redis, which holds the same generation
+        CompletableFuture.supplyAsync(() -> loadFromEditorum(key, accessToken))
+                .whenComplete((value, error) -> {
+                    if (value != null) {
+                        cache.put(key, value);
+                    } else if (error != null) {
+                        log.warn("Refreshing {} {} from Editorum failed: {}", key.kind, key.id, error.getMessage());
+                    }
+                    refreshing.remove(key);
+                });
+    }
+    
+    private Object loadThroughRedis(Key key, String accessToken) {
+        if (redisCache != null) {
+            Object cached = redisCache.get(key.redisKey(), key.kind.type);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return loadFromEditorum(key, accessToken);
+    }
+    
+    private Object loadFromEditorum(Key key, String accessToken) {
+        log.debug("Loading {} {} from Editorum", key.kind, key.id);
+        Object value = switch (key.kind) {
+            case JOURNALS -> editorumApiClient.getAllJournals(accessToken);
+            case JOURNAL -> editorumApiClient.getJournal(Long.valueOf(key.id), accessToken);
+            case DOCUMENT_TYPES -> editorumApiClient.getDocumentTypes(accessToken);
+            case DOCUMENT_TYPE -> editorumApiClient.getDocumentType(accessToken, key.id);
+        };
+        if (value != null && redisCache != null) {
+            redisCache.put(key.redisKey(), value, Duration.ofMinutes(ttlMinutes));
+        }
+        return value;
+    }
+    
+    /**
+     * Kinds of cached reference data and their JSON shape in Redis
+     */
+    enum Kind {
+        JOURNALS(new TypeReference<Map<String, EditorumJournalDTO>>() {}),
+        JOURNAL(new TypeReference<EditorumJournalDTO>() {}),
+        DOCUMENT_TYPES(new TypeReference<List<EditorumDocumentTypeDTO>>() {}),
+        DOCUMENT_TYPE(new TypeReference<EditorumDocumentTypeDTO>() {});
+        
+        private final TypeReference<?> type;
+        
+        Kind(TypeReference<?> type) {
+            this.type = type;
+        }
+    }
+    
+    /**
+     * Cache key: kind + hashed user scope + item id
+     */
+    static final class Key {
+        private final Kind kind;
+        private final String scope;
+        private final String id;
+        
+        Key(Kind kind, String scope, String id) {
+            this.kind = kind;
+            this.scope = hash(scope);
+            this.id = id;
+        }
+        
+        String redisKey() {
+            return "editorum:" + kind.name().toLowerCase() + ":" + scope + ":" + id;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return kind == other.kind && scope.equals(other.scope) && id.equals(other.id);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, scope, id);
+        }
+        
+        private static String hash(String scope) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest(String.valueOf(scope).getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest, 0, 16);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.editype.editorum.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Times every call to the Editorum API.
+ * Identifier path segments are collapsed to {id} so the uri tag stays low-cardinality.
+ */
+public class EditorumMetricsInterceptor implements ClientHttpRequestInterceptor {
+    
+    public static final String TIMER = "editorum.client.requests";
+    
+    private final MeterRegistry meterRegistry;
+    
+    public EditorumMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = Integer.toString(response.getStatusCode().value());
+            return response;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .description("Editorum API calls")
+                    .tag("method", request.getMethod().name())
+                    .tag("uri", normalizePath(request.getURI().getPath()))
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Replace path segments that look like identifiers (contain digits or are very long) with {id}
+     */
+    static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder normalized = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            normalized.append('/');
+            normalized.append(isIdentifier(segment) ? "{id}" : segment);
+        }
+        return normalized.length() > 0 ? normalized.toString() : "/";
+    }
+    
+    private static boolean isIdentifier(String segment) {
+        if (segment.length() > 24) {
+            return true;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,20 @@
 package com.editype.editorum.config;
 
+import com.editype.editorum.client.EditorumMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -23,9 +35,68 @@ public class EditorumConfig {
     @Value("${editorum.oauth.redirect-uri:http://localhost:3000/auth/callback}")
     private String redirectUri;
     
+    @Value("${editorum.http.max-connections:200}")
+    private int maxConnections;
+    
+    @Value("${editorum.http.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+    
+    @Value("${editorum.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+    
+    @Value("${editorum.http.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+    
+    @Value("${editorum.http.connection-request-timeout-ms:2000}")
+    private long connectionRequestTimeoutMs;
+    
+    @Value("${editorum.http.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+    
+    @Value("${editorum.http.idle-eviction-seconds:60}")
+    private long idleEvictionSeconds;
+    
+    /**
+     * Connection pool shared by all Editorum calls (API and OAuth)
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager editorumConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+        
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "editorum").bindTo(meterRegistry);
+        return connectionManager;
+    }
+    
+    /**
+     * Keep-alive HTTP client; gzip/deflate responses are negotiated and decoded by default
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient editorumHttpClient(PoolingHttpClientConnectionManager editorumConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(editorumConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setConnectionKeepAlive(TimeValue.ofSeconds(keepAliveSeconds))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+    
     @Bean
-    public RestTemplate editorumRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate editorumRestTemplate(CloseableHttpClient editorumHttpClient, MeterRegistry meterRegistry) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(editorumHttpClient));
+        restTemplate.getInterceptors().add(new EditorumMetricsInterceptor(meterRegistry));
+        return restTemplate;
     }
     
     public String getBaseUrl() {
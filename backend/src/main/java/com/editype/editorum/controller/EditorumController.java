@@ -1,10 +1,12 @@
 package com.editype.editorum.controller;
 
+import com.editype.editorum.cache.EditorumReferenceCache;
 import com.editype.editorum.client.EditorumApiClient;
 import com.editype.editorum.dto.EditorumJournalDTO;
 import com.editype.editorum.dto.EditorumUserDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -20,6 +22,7 @@ import java.util.Map;
 public class EditorumController {
     
     private final EditorumApiClient editorumApiClient;
+    private final EditorumReferenceCache referenceCache;
     
     /**
      * Get current user profile from Editorum
@@ -38,10 +41,11 @@ public class EditorumController {
      */
     @GetMapping("/journals")
     public ResponseEntity<Map<String, EditorumJournalDTO>> getAllJournals(
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication) {
         
         String accessToken = extractToken(authHeader);
-        Map<String, EditorumJournalDTO> journals = editorumApiClient.getAllJournals(accessToken);
+        Map<String, EditorumJournalDTO> journals = referenceCache.getAllJournals(authentication.getName(), accessToken);
         return ResponseEntity.ok(journals);
     }
     
@@ -51,10 +55,11 @@ public class EditorumController {
     @GetMapping("/journals/{id}")
     public ResponseEntity<EditorumJournalDTO> getJournal(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication) {
         
         String accessToken = extractToken(authHeader);
-        EditorumJournalDTO journal = editorumApiClient.getJournal(id, accessToken);
+        EditorumJournalDTO journal = referenceCache.getJournal(authentication.getName(), id, accessToken);
         return ResponseEntity.ok(journal);
     }
     
@@ -0,0 +1,10 @@
+package com.editype.exception;
+
+/**
+ * Exception thrown when an update is based on a stale revision of a resource
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
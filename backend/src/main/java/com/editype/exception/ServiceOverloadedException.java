@@ -0,0 +1,18 @@
+package com.editype.exception;
+
+/**
+ * Exception thrown when a bounded resource (e.g. a render queue) cannot accept more work
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
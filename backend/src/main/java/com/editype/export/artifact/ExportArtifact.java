@@ -0,0 +1,96 @@
+package com.editype.export.artifact;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * File-backed export result.
+ * Temporary artifacts own their work directory and delete it on close;
+ * persistent artifacts (render cache entries, job results) are left in place.
+ */
+public final class ExportArtifact implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExportArtifact.class);
+    
+    private final Path file;
+    private final Path workDir;
+    
+    private ExportArtifact(Path file, Path workDir) {
+        this.file = file;
+        this.workDir = workDir;
+    }
+    
+    /**
+     * Artifact inside a work directory that is deleted once the artifact is closed
+     */
+    public static ExportArtifact temporary(Path file, Path workDir) {
+        return new ExportArtifact(file, workDir);
+    }
+    
+    /**
+     * Artifact whose file outlives the response
+     */
+    public static ExportArtifact persistent(Path file) {
+        return new ExportArtifact(file, null);
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    public long size() throws IOException {
+        return Files.size(file);
+    }
+    
+    /**
+     * Relocate the artifact file to target and release the work directory.
+     * Persistent files are copied so the original stays valid.
+     */
+    public void moveTo(Path target) throws IOException {
+        try {
+            if (workDir != null) {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            close();
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (workDir != null) {
+            deleteDirectory(workDir);
+        }
+    }
+    
+    /**
+     * Recursively delete a directory, logging instead of failing
+     */
+    public static void deleteDirectory(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                .forEach(path -> {
+                    try {
+                        Files.delete(path);
+                    } catch (IOException e) {
+                        logger.warn("Failed to delete temp file: {}", path, e);
+                    }
+                });
+        } catch (IOException e) {
+            logger.warn("Failed to cleanup directory: {}", dir, e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.editype.export.artifact;
+
+import com.editype.export.metrics.ExportMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams export artifacts to the HTTP response straight from disk.
+ * Supports single byte ranges (RFC 7233); the artifact is closed once the response is written.
+ */
+@Component
+public class ExportArtifactWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportArtifactWriter.class);
+    
+    private final ExportMetrics exportMetrics;
+    
+    public ExportArtifactWriter(ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    /**
+     * Write artifact as an attachment, honouring a Range header if present
+     */
+    public void write(ExportArtifact artifact, String contentType, String fileName,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            long size = artifact.size();
+            long start = 0;
+            long length = size;
+
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+
+            String range = request.getHeader(HttpHeaders.RANGE);
+            if (range != null) {
+                long[] bounds = parseRange(range, size);
+                if (bounds == null) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    start = bounds[0];
+                    length = bounds[1] - bounds[0] + 1;
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+                }
+            }
+
+            response.setContentLengthLong(length);
+            transfer(artifact, start, length, response);
+
+        } finally {
+            artifact.close();
+        }
+    }
+
+    private void transfer(ExportArtifact artifact, long start, long length, HttpServletResponse response)
+            throws IOException {
+        Timer.Sample sample = exportMetrics.start();
+        boolean success = false;
+        try (FileChannel source = FileChannel.open(artifact.getFile(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = source.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+            if (remaining > 0) {
+                logger.warn("Artifact {} truncated while streaming ({} bytes missing)", artifact.getFile(), remaining);
+            }
+            success = remaining == 0;
+        } finally {
+            exportMetrics.stop(sample, "stream", success);
+        }
+    }
+
+    /**
+     * Parse a Range header against the resource size.
+     * Returns {start, end} for a single satisfiable range, an empty array when the header
+     * should be ignored (other units, multiple ranges), or null when it is not satisfiable.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) {
+                // Suffix range: last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return null;
+                }
+                return new long[] {Math.max(0, size - suffix), size - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size || end < start) {
+                return null;
+            }
+            return new long[] {start, end};
+
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
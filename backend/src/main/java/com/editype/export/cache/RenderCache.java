@@ -0,0 +1,428 @@
+package com.editype.export.cache;
+
+import com.editype.article.entity.Article;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed on-disk cache for rendered PDFs.
+ * Entries are keyed by a SHA-256 of the generated intermediate (Markdown/BibTeX or HTML/CSS),
+ * the engine version and the article's updatedAt, and evicted in LRU order once the
+ * configured size budget is exceeded.
+ * Each entry has a sidecar with its article ID and updatedAt, so that renderings found on disk
+ * at startup can still be invalidated per article.
+ */
+@Component
+public class RenderCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderCache.class);
+
+    private static final String ENTRY_SUFFIX = ".pdf";
+
+    private static final String META_SUFFIX = ".meta";
+
+    @Value("${export.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${export.cache.dir:/app/cache/render}")
+    private String cacheDir;
+
+    @Value("${export.cache.max-size-mb:1024}")
+    private long maxSizeMb;
+
+    // digest -> size in bytes, iterated in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // articleId -> last seen updatedAt and the digests rendered for it
+    private final Map<String, ArticleEntries> articleEntries = new HashMap<>();
+
+    private final Map<String, String> toolVersions = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    
+    private Path root;
+    private long totalBytes;
+
+    /**
+     * Cache key for a single rendering of an article
+     */
+    public record Key(String articleId, LocalDateTime updatedAt, String digest) {}
+    
+    public RenderCache(MeterRegistry meterRegistry) {
+        hits = meterRegistry.counter("editype.export.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("editype.export.cache.requests", "result", "miss");
+        Gauge.builder("editype.export.cache.size", this, RenderCache::sizeBytes)
+                .description("Bytes held by the render cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("editype.export.cache.entries", this, RenderCache::entryCount)
+                .description("Renderings held by the render cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            logger.info("Render cache disabled");
+            return;
+        }
+
+        root = Path.of(cacheDir);
+        try {
+            Files.createDirectories(root);
+            loadExistingEntries();
+            logger.info("Render cache at {}: {} entries, {} bytes", root, entries.size(), totalBytes);
+        } catch (IOException e) {
+            logger.warn("Render cache unavailable at {}, caching disabled", root, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Build a cache key from the article identity and the rendering intermediates.
+     * Null parts are allowed and hashed as absent.
+     */
+    public Key key(Article article, String engine, String... parts) {
+        MessageDigest digest = sha256();
+        update(digest, engine);
+        update(digest, article.getId());
+        update(digest, article.getUpdatedAt() != null ? article.getUpdatedAt().toString() : null);
+        for (String part : parts) {
+            update(digest, part);
+        }
+        return new Key(article.getId(), article.getUpdatedAt(), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Locate a cached rendering, if present
+     */
+    public Optional<Path> lookup(Key key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Path entry;
+        synchronized (this) {
+            forgetStaleRenderings(key);
+            if (entries.get(key.digest()) == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            entry = entryPath(key.digest());
+        }
+
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                removeEntry(key.digest());
+            }
+            misses.increment();
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to touch render cache entry {}", entry, e);
+        }
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    /**
+     * Copy a freshly rendered file into the cache
+     */
+    public void store(Key key, Path rendered) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            if (isOutdated(key)) {
+                return;
+            }
+        }
+
+        try {
+            Path metaTmp = Files.createTempFile(root, key.digest(), ".tmp");
+            Files.writeString(metaTmp, key.articleId() + "\n"
+                    + (key.updatedAt() != null ? key.updatedAt().toString() : ""), StandardCharsets.UTF_8);
+            Path tmp = Files.createTempFile(root, key.digest(), ".tmp");
+            Files.copy(rendered, tmp, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(tmp);
+
+            synchronized (this) {
+                // The article may have been rendered at a newer version during the copy
+                if (isOutdated(key)) {
+                    deleteQuietly(metaTmp);
+                    deleteQuietly(tmp);
+                    return;
+                }
+                // Sidecar first: a rendering without one is dropped at startup
+                Files.move(metaTmp, metaPath(key.digest()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(tmp, entryPath(key.digest()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long previous = entries.put(key.digest(), size);
+                totalBytes += size - (previous != null ? previous : 0L);
+
+                forgetStaleRenderings(key);
+                articleEntries.computeIfAbsent(key.articleId(), id -> new ArticleEntries(key.updatedAt()))
+                        .digests.add(key.digest());
+
+                evictToBudget();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to store render cache entry {}", key.digest(), e);
+        }
+    }
+
+    /**
+     * Drop every cached rendering of an article
+     */
+    public synchronized void invalidate(String articleId) {
+        ArticleEntries known = articleEntries.remove(articleId);
+        if (known != null) {
+            known.digests.forEach(this::removeEntry);
+        }
+    }
+
+    /**
+     * Total size of cached renderings in bytes
+     */
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Number of cached renderings
+     */
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+    
+    /**
+     * First line of "<tool> --version", memoised per tool
+     */
+    public String toolVersion(String tool) {
+        return toolVersions.computeIfAbsent(tool, this::detectToolVersion);
+    }
+
+    /**
+     * Cheap fingerprint of a file that influences rendering (e.g. a LaTeX template)
+     */
+    public String fileFingerprint(String path) {
+        try {
+            Path file = Path.of(path);
+            return path + ":" + Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return path + ":missing";
+        }
+    }
+
+    /**
+     * Drop the renderings of an older version of the article once a newer one is seen.
+     * Keys built from an older snapshot, e.g. by a job that loaded the article before an edit, leave them alone.
+     */
+    private void forgetStaleRenderings(Key key) {
+        ArticleEntries known = articleEntries.get(key.articleId());
+        if (known != null && !Objects.equals(known.updatedAt, key.updatedAt()) && !isOutdated(key)) {
+            known.digests.forEach(this::removeEntry);
+            articleEntries.put(key.articleId(), new ArticleEntries(key.updatedAt()));
+        }
+    }
+
+    /**
+     * Whether the key is for an older version of the article than the renderings held; those are not cached
+     */
+    private boolean isOutdated(Key key) {
+        ArticleEntries known = articleEntries.get(key.articleId());
+        return known != null && known.updatedAt != null
+                && (key.updatedAt() == null || key.updatedAt().isBefore(known.updatedAt));
+    }
+
+    private void evictToBudget() {
+        long budget = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > budget && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteQuietly(entryPath(entry.getKey()));
+            deleteQuietly(metaPath(entry.getKey()));
+            logger.debug("Evicted render cache entry {}", entry.getKey());
+        }
+    }
+
+    private void removeEntry(String digest) {
+        Long size = entries.remove(digest);
+        if (size != null) {
+            totalBytes -= size;
+            deleteQuietly(entryPath(digest));
+            deleteQuietly(metaPath(digest));
+        }
+    }
+
+    /**
+     * Rebuild the index from disk, least recently used first.
+     * Renderings without a readable sidecar cannot be invalidated and are deleted.
+     */
+    private void loadExistingEntries() throws IOException {
+        List<Path> cached;
+        try (Stream<Path> files = Files.list(root)) {
+            cached = files
+                    .filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .sorted((a, b) -> lastModified(a).compareTo(lastModified(b)))
+                    .toList();
+        }
+
+        for (Path path : cached) {
+            String name = path.getFileName().toString();
+            String digest = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+            Key key = readMeta(digest);
+            if (key == null || isOutdated(key)) {
+                logger.debug("Dropping render cache entry {} without metadata or of an older article version", digest);
+                deleteQuietly(path);
+                continue;
+            }
+            long size = Files.size(path);
+            entries.put(digest, size);
+            totalBytes += size;
+
+            // Of several versions of an article, the newest one is kept
+            forgetStaleRenderings(key);
+            articleEntries.computeIfAbsent(key.articleId(), id -> new ArticleEntries(key.updatedAt()))
+                    .digests.add(digest);
+        }
+
+        // Sidecars left behind by an interrupted store or delete
+        try (Stream<Path> files = Files.list(root)) {
+            files.filter(path -> path.getFileName().toString().endsWith(META_SUFFIX))
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return !entries.containsKey(name.substring(0, name.length() - META_SUFFIX.length()));
+                    })
+                    .forEach(this::deleteQuietly);
+        }
+        evictToBudget();
+    }
+
+    /**
+     * Key recorded in an entry's sidecar, or null if it is missing or unreadable
+     */
+    private Key readMeta(String digest) {
+        try {
+            List<String> lines = Files.readAllLines(metaPath(digest), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || lines.get(0).isEmpty()) {
+                return null;
+            }
+            String updatedAt = lines.size() > 1 ? lines.get(1) : "";
+            return new Key(lines.get(0), updatedAt.isEmpty() ? null : LocalDateTime.parse(updatedAt), digest);
+        } catch (IOException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private String detectToolVersion(String tool) {
+        try {
+            Process process = new ProcessBuilder(tool, "--version").redirectErrorStream(true).start();
+            String firstLine;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                firstLine = reader.readLine();
+            }
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            return firstLine != null ? firstLine.trim() : "unknown";
+        } catch (IOException e) {
+            logger.warn("Could not detect version of {}: {}", tool, e.getMessage());
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    private Path entryPath(String digest) {
+        return root.resolve(digest + ENTRY_SUFFIX);
+    }
+
+    private Path metaPath(String digest) {
+        return root.resolve(digest + META_SUFFIX);
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete render cache file: {}", path, e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        if (part == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class ArticleEntries {
+        private final LocalDateTime updatedAt;
+        private final Set<String> digests = new HashSet<>();
+
+        private ArticleEntries(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -2,20 +2,35 @@ package com.editype.export.controller;
 
 import com.editype.article.entity.Article;
 import com.editype.article.service.ArticleService;
+import com.editype.exception.ResourceNotFoundException;
+import com.editype.exception.ServiceOverloadedException;
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.artifact.ExportArtifactWriter;
+import com.editype.export.docx.DocxWriter;
+import com.editype.export.dto.IssueExportRequestDTO;
+import com.editype.export.service.DocxExportService;
 import com.editype.export.service.ExportService;
+import com.editype.export.service.IssueExportService;
 import com.editype.export.service.LatexExportService;
 import com.editype.export.service.VivliostyleExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * REST Controller for exporting publications
- * Supports: HTML, XML JATS, TXT, PDF (LaTeX/Vivliostyle), DOCX (Pandoc), LaTeX source
+ * Supports: HTML, XML JATS, TXT, PDF (LaTeX/Vivliostyle), DOCX, LaTeX source
  */
 @RestController
 @RequestMapping("/api/export")
@@ -29,6 +44,9 @@ public class ExportController {
     private final ArticleService articleService;
     private final LatexExportService latexExportService;
     private final VivliostyleExportService vivliostyleExportService;
+    private final IssueExportService issueExportService;
+    private final DocxExportService docxExportService;
+    private final ExportArtifactWriter artifactWriter;
     
     /**
      * Export publication to HTML
@@ -91,90 +109,110 @@ public class ExportController {
      * Export article to PDF via LaTeX/Pandoc (high quality, academic standard)
      */
     @GetMapping("/articles/{id}/pdf/latex")
-    public ResponseEntity<byte[]> exportArticleToPdfLatex(
+    public void exportArticleToPdfLatex(
             @PathVariable String id,
-            @RequestParam(defaultValue = "en") String lang) {
+            @RequestParam(defaultValue = "en") String lang,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
+        ExportArtifact artifact;
         try {
             logger.info("Exporting article {} to PDF via LaTeX in language {}", id, lang);
             
             Article article = articleService.getById(id);
-            byte[] pdfBytes = latexExportService.exportToPDF(article, lang);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "article_" + id + "_latex.pdf");
-            headers.setContentLength(pdfBytes.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfBytes);
+            artifact = latexExportService.exportToPDF(article, lang);
                     
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to export article {} to PDF via LaTeX", id, e);
-            return ResponseEntity.internalServerError()
-                    .body(("Error exporting to PDF: " + e.getMessage()).getBytes());
+            writeError(response, "Error exporting to PDF: " + e.getMessage());
+            return;
         }
+        
+        artifactWriter.write(artifact, MediaType.APPLICATION_PDF_VALUE, "article_" + id + "_latex.pdf", request, response);
     }
     
     /**
      * Export article to PDF via Vivliostyle (beautiful typography, web-based)
      */
     @GetMapping("/articles/{id}/pdf/vivliostyle")
-    public ResponseEntity<byte[]> exportArticleToPdfVivliostyle(
+    public void exportArticleToPdfVivliostyle(
             @PathVariable String id,
-            @RequestParam(defaultValue = "en") String lang) {
+            @RequestParam(defaultValue = "en") String lang,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
+        ExportArtifact artifact;
         try {
             logger.info("Exporting article {} to PDF via Vivliostyle in language {}", id, lang);
             
             Article article = articleService.getById(id);
-            byte[] pdfBytes = vivliostyleExportService.exportToPDF(article, lang);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "article_" + id + "_vivlio.pdf");
-            headers.setContentLength(pdfBytes.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfBytes);
+            artifact = vivliostyleExportService.exportToPDF(article, lang);
                     
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to export article {} to PDF via Vivliostyle", id, e);
-            return ResponseEntity.internalServerError()
-                    .body(("Error exporting to PDF: " + e.getMessage()).getBytes());
+            writeError(response, "Error exporting to PDF: " + e.getMessage());
+            return;
         }
+        
+        artifactWriter.write(artifact, MediaType.APPLICATION_PDF_VALUE, "article_" + id + "_vivlio.pdf", request, response);
+    }
+    
+    /**
+     * Compile a journal issue into one PDF with continuous page numbering
+     */
+    @PostMapping("/issues/pdf")
+    public void exportIssueToPdf(
+            @Valid @RequestBody IssueExportRequestDTO requestDTO,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        ExportArtifact artifact;
+        try {
+            artifact = issueExportService.exportToPDF(requestDTO.getArticleIds(), requestDTO.getEngine(),
+                    requestDTO.getLang(), requestDTO.getFirstPage(), requestDTO.isUpdatePages());
+                    
+        } catch (ServiceOverloadedException | IllegalArgumentException | ResourceNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to compile issue of {} articles", requestDTO.getArticleIds().size(), e);
+            writeError(response, "Error compiling issue: " + e.getMessage());
+            return;
+        }
+        
+        artifactWriter.write(artifact, MediaType.APPLICATION_PDF_VALUE, "issue_" + requestDTO.getEngine().toLowerCase() + ".pdf",
+                request, response);
     }
     
     /**
      * Export article to LaTeX source code
      */
     @GetMapping("/articles/{id}/latex")
-    public ResponseEntity<byte[]> exportArticleToLatex(
+    public void exportArticleToLatex(
             @PathVariable String id,
-            @RequestParam(defaultValue = "en") String lang) {
+            @RequestParam(defaultValue = "en") String lang,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
+        ExportArtifact artifact;
         try {
             logger.info("Exporting article {} to LaTeX source in language {}", id, lang);
             
             Article article = articleService.getById(id);
-            byte[] latexBytes = latexExportService.exportToLatex(article, lang);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.TEXT_PLAIN);
-            headers.setContentDispositionFormData("attachment", "article_" + id + ".tex");
-            headers.setContentLength(latexBytes.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(latexBytes);
+            artifact = latexExportService.exportToLatex(article, lang);
                     
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to export article {} to LaTeX", id, e);
-            return ResponseEntity.internalServerError()
-                    .body(("Error exporting to LaTeX: " + e.getMessage()).getBytes());
+            writeError(response, "Error exporting to LaTeX: " + e.getMessage());
+            return;
         }
+        
+        artifactWriter.write(artifact, MediaType.TEXT_PLAIN_VALUE, "article_" + id + ".tex", request, response);
     }
     
     /**
@@ -182,32 +220,59 @@ public class ExportController {
      * Legacy endpoint - redirects to Vivliostyle
      */
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> exportToPdf(
+    public void exportToPdf(
             @PathVariable String id,
             @RequestParam(defaultValue = "en") String lang,
-            @RequestParam(defaultValue = "vivliostyle") String engine) {
+            @RequestParam(defaultValue = "vivliostyle") String engine,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
         // Redirect to appropriate export method
         if ("latex".equalsIgnoreCase(engine)) {
-            return exportArticleToPdfLatex(id, lang);
+            exportArticleToPdfLatex(id, lang, request, response);
         } else {
-            return exportArticleToPdfVivliostyle(id, lang);
+            exportArticleToPdfVivliostyle(id, lang, request, response);
         }
     }
     
     /**
-     * Export publication to DOCX (via Pandoc)
-     * Note: Requires Pandoc to be installed in the Docker container
+     * Export article to DOCX, generated in-process and streamed as it is written
+     */
+    @GetMapping("/articles/{id}/docx")
+    public void exportArticleToDocx(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "en") String lang,
+            HttpServletResponse response) throws IOException {
+        
+        // Load before anything is written, so a missing article is still a 404
+        Article article = articleService.getById(id);
+        
+        response.setContentType(DocxWriter.CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("article_" + id + ".docx", StandardCharsets.UTF_8).build().toString());
+        docxExportService.write(article, lang, response.getOutputStream());
+    }
+    
+    /**
+     * Export publication to DOCX
+     * Legacy endpoint - same as /articles/{id}/docx
      */
     @GetMapping("/{id}/docx")
-    public ResponseEntity<String> exportToDocx(
+    public void exportToDocx(
             @PathVariable String id,
-            @RequestParam(defaultValue = "en") String lang) {
+            @RequestParam(defaultValue = "en") String lang,
+            HttpServletResponse response) throws IOException {
         
-        // TODO: Implement DOCX export via Pandoc
-        // This will use similar pipeline as LaTeX but output to DOCX
-        return ResponseEntity.ok()
-                .body("DOCX export via Pandoc - coming soon. Will use: pandoc article.md -o article.docx");
+        exportArticleToDocx(id, lang, response);
+    }
+    
+    /**
+     * Write plain-text error body with 500 status
+     */
+    private void writeError(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        // Messages carry Russian text and exception details, so the charset must not be left to the platform
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
     }
 }
-
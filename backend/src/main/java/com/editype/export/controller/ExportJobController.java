@@ -0,0 +1,96 @@
+package com.editype.export.controller;
+
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.artifact.ExportArtifactWriter;
+import com.editype.export.dto.ExportJobRequestDTO;
+import com.editype.export.dto.ExportJobResponseDTO;
+import com.editype.export.job.ExportFormat;
+import com.editype.export.job.ExportJob;
+import com.editype.export.job.ExportJobService;
+import com.editype.export.job.ExportJobStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * REST Controller for background export jobs
+ * Long renders run off the request thread; clients poll the job and download the result
+ */
+@RestController
+@RequestMapping("/api/export/jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+    private final ExportArtifactWriter artifactWriter;
+
+    /**
+     * Submit export job
+     */
+    @PostMapping
+    public ResponseEntity<ExportJobResponseDTO> submitJob(
+            @Valid @RequestBody ExportJobRequestDTO requestDTO,
+            Authentication authentication) {
+
+        ExportJob job = exportJobService.submit(
+                authentication.getName(),
+                requestDTO.getArticleId(),
+                ExportFormat.fromValue(requestDTO.getFormat()),
+                requestDTO.getLang());
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/export/jobs/" + job.getId()))
+                .body(ExportJobResponseDTO.fromJob(job));
+    }
+
+    /**
+     * Get job status
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponseDTO> getJob(@PathVariable String id, Authentication authentication) {
+        ExportJob job = exportJobService.getJob(id, authentication.getName());
+        return ResponseEntity.ok(ExportJobResponseDTO.fromJob(job));
+    }
+
+    /**
+     * Download job result, streamed from disk
+     */
+    @GetMapping("/{id}/result")
+    public void getJobResult(
+            @PathVariable String id,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        ExportJob job = exportJobService.getJob(id, authentication.getName());
+
+        if (job.getStatus() != ExportJobStatus.SUCCEEDED) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+
+        artifactWriter.write(
+                ExportArtifact.persistent(job.getResult()),
+                job.getFormat().getContentType(),
+                job.getFormat().fileName(job.getArticleId()),
+                request, response);
+    }
+
+    /**
+     * Delete job and its result
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteJob(@PathVariable String id, Authentication authentication) {
+        exportJobService.deleteJob(id, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.editype.export.docx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List numbering of a document.
+ * All bullet lists share one definition; every ordered list gets its own instance
+ * so that its numbering restarts at the list's start value.
+ */
+public final class DocxNumbering {
+
+    private static final int BULLET_ABSTRACT = 0;
+    private static final int DECIMAL_ABSTRACT = 1;
+
+    public static final int BULLET_LIST = 1;
+
+    // Start values of ordered lists; the list with numId n + 2 starts at orderedStarts[n]
+    private final List<Integer> orderedStarts = new ArrayList<>();
+
+    /**
+     * Numbering ID for a new ordered list starting at the given value
+     */
+    public int orderedList(int start) {
+        orderedStarts.add(Math.max(start, 0));
+        return orderedStarts.size() + 1;
+    }
+
+    void write(Appendable out) throws IOException {
+        out.append(DocxWriter.XML_DECLARATION).append("<w:numbering xmlns:w=\"").append(DocxWriter.W_NS).append("\">");
+        abstractNum(out, BULLET_ABSTRACT, "bullet", "•");
+        abstractNum(out, DECIMAL_ABSTRACT, "decimal", "%1.");
+
+        out.append("<w:num w:numId=\"").append(Integer.toString(BULLET_LIST)).append("\"><w:abstractNumId w:val=\"")
+                .append(Integer.toString(BULLET_ABSTRACT)).append("\"/></w:num>");
+        for (int i = 0; i < orderedStarts.size(); i++) {
+            out.append("<w:num w:numId=\"").append(Integer.toString(i + 2)).append("\"><w:abstractNumId w:val=\"")
+                    .append(Integer.toString(DECIMAL_ABSTRACT)).append("\"/>")
+                    .append("<w:lvlOverride w:ilvl=\"0\"><w:startOverride w:val=\"")
+                    .append(Integer.toString(orderedStarts.get(i))).append("\"/></w:lvlOverride></w:num>");
+        }
+        out.append("</w:numbering>");
+    }
+
+    private static void abstractNum(Appendable out, int id, String format, String text) throws IOException {
+        out.append("<w:abstractNum w:abstractNumId=\"").append(Integer.toString(id)).append("\">")
+                .append("<w:multiLevelType w:val=\"singleLevel\"/>")
+                .append("<w:lvl w:ilvl=\"0\"><w:start w:val=\"1\"/><w:numFmt w:val=\"").append(format).append("\"/>")
+                .append("<w:lvlText w:val=\"").append(text).append("\"/><w:lvlJc w:val=\"left\"/>")
+                .append("<w:pPr><w:ind w:left=\"720\" w:hanging=\"360\"/></w:pPr></w:lvl>")
+                .append("</w:abstractNum>");
+    }
+}
@@ -0,0 +1,390 @@
+package com.editype.export.docx;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paragraph styles of a DOCX export.
+ * Starts from built-in defaults; paragraph style types ("heading1", "paragraph", "quote", ...) and their
+ * CSS properties are then mapped onto the matching Word styles. Supported properties are font-size,
+ * font-weight, font-style, font-family, color, margin-top, margin-bottom, margin-left, text-indent,
+ * text-align and line-height; anything else is ignored.
+ */
+public final class DocxStyles {
+
+    public static final String NORMAL = "Normal";
+    public static final String TITLE = "Title";
+    public static final String QUOTE = "Quote";
+    public static final String CODE = "Code";
+    public static final String LIST_PARAGRAPH = "ListParagraph";
+
+    public static final int MAX_HEADING_LEVEL = 6;
+
+    // CSS lengths relative to the font size resolve against this size when the style has none, in points
+    private static final double BASE_FONT_SIZE = 12;
+
+    private static final class Style {
+        final String id;
+        final String name;
+        Integer size; // half-points
+        Boolean bold;
+        Boolean italic;
+        String font;
+        String color;
+        Integer spaceBefore; // twips
+        Integer spaceAfter;
+        Integer line; // 240ths of a line for "auto", twips otherwise
+        String lineRule;
+        String align;
+        Integer indentLeft;
+        Integer indentFirstLine;
+        Integer outlineLevel;
+
+        Style(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Style> styles = new LinkedHashMap<>();
+
+    private DocxStyles() {
+    }
+
+    public static DocxStyles defaults() {
+        DocxStyles docx = new DocxStyles();
+
+        Style normal = docx.add(NORMAL, "Normal");
+        normal.font = "Times New Roman";
+        normal.size = 24;
+        normal.spaceAfter = 120;
+        normal.line = 276;
+        normal.lineRule = "auto";
+
+        Style title = docx.add(TITLE, "Title");
+        title.size = 36;
+        title.bold = true;
+        title.align = "center";
+        title.spaceAfter = 240;
+
+        int[] headingSizes = {32, 28, 26, 24, 24, 24};
+        for (int level = 1; level <= MAX_HEADING_LEVEL; level++) {
+            Style heading = docx.add(headingStyle(level), "heading " + level);
+            heading.size = headingSizes[level - 1];
+            heading.bold = true;
+            heading.italic = level >= 4 ? true : null;
+            heading.spaceBefore = level == 1 ? 360 : 240;
+            heading.spaceAfter = 120;
+            heading.outlineLevel = level - 1;
+        }
+
+        Style quote = docx.add(QUOTE, "Quote");
+        quote.italic = true;
+        quote.indentLeft = 720;
+
+        Style code = docx.add(CODE, "Code");
+        code.font = "Courier New";
+        code.size = 20;
+        code.line = 240;
+        code.lineRule = "auto";
+
+        Style list = docx.add(LIST_PARAGRAPH, "List Paragraph");
+        list.spaceAfter = 60;
+        return docx;
+    }
+
+    public static String headingStyle(int level) {
+        return "Heading" + Math.max(1, Math.min(level, MAX_HEADING_LEVEL));
+    }
+
+    private Style add(String id, String name) {
+        Style style = new Style(id, name);
+        styles.put(id, style);
+        return style;
+    }
+
+    /**
+     * Apply CSS properties to the Word styles behind a paragraph style type; unknown types are ignored
+     */
+    public DocxStyles apply(String type, Map<String, String> css) {
+        if (type == null || css == null || css.isEmpty()) {
+            return this;
+        }
+        for (String id : styleIds(type)) {
+            Style style = styles.get(id);
+            css.forEach((property, value) -> {
+                if (property != null && value != null) {
+                    applyProperty(style, property.trim().toLowerCase(Locale.ROOT), value.trim());
+                }
+            });
+        }
+        return this;
+    }
+
+    /**
+     * Apply an inline CSS declaration list such as "font-size: 14px; font-weight: bold"
+     */
+    public DocxStyles apply(String type, String inlineCss) {
+        if (inlineCss == null || inlineCss.isBlank()) {
+            return this;
+        }
+        Map<String, String> css = new HashMap<>();
+        for (String declaration : inlineCss.split(";")) {
+            int colon = declaration.indexOf(':');
+            if (colon > 0) {
+                css.put(declaration.substring(0, colon), declaration.substring(colon + 1).replace("!important", ""));
+            }
+        }
+        return apply(type, css);
+    }
+
+    private static List<String> styleIds(String type) {
+        String normalized = type.trim().toLowerCase(Locale.ROOT).replace("-", "_");
+        if (normalized.matches("heading_?[1-6]")) {
+            return List.of(headingStyle(normalized.charAt(normalized.length() - 1) - '0'));
+        }
+        return switch (normalized) {
+            case "paragraph", "normal", "text", "body" -> List.of(NORMAL);
+            case "title" -> List.of(TITLE);
+            case "heading" -> List.of("Heading1", "Heading2", "Heading3", "Heading4", "Heading5", "Heading6");
+            case "quote", "blockquote" -> List.of(QUOTE);
+            case "code", "codeblock", "code_block" -> List.of(CODE);
+            case "list", "list_item", "listitem" -> List.of(LIST_PARAGRAPH);
+            default -> List.of();
+        };
+    }
+
+    private static void applyProperty(Style style, String property, String value) {
+        String keyword = value.toLowerCase(Locale.ROOT);
+        switch (property) {
+            case "font-size" -> {
+                Integer twips = twips(value, style);
+                if (twips != null && twips > 0) {
+                    style.size = Math.max(2, Math.round(twips / 10f));
+                }
+            }
+            case "font-weight" -> {
+                if (keyword.equals("italic")) {
+                    // Accepted for styles that put the emphasis into the weight
+                    style.italic = true;
+                } else if (keyword.matches("\\d+")) {
+                    style.bold = Integer.parseInt(keyword) >= 600;
+                } else {
+                    style.bold = keyword.equals("bold") || keyword.equals("bolder");
+                }
+            }
+            case "font-style" -> style.italic = keyword.equals("italic") || keyword.equals("oblique");
+            case "font-family" -> {
+                String family = value.split(",")[0].replace("\"", "").replace("'", "").trim();
+                if (!family.isEmpty()) {
+                    style.font = family;
+                }
+            }
+            case "color" -> {
+                String color = color(keyword);
+                if (color != null) {
+                    style.color = color;
+                }
+            }
+            case "margin-top" -> style.spaceBefore = nonNegative(twips(value, style));
+            case "margin-bottom" -> style.spaceAfter = nonNegative(twips(value, style));
+            case "margin-left", "padding-left" -> style.indentLeft = twips(value, style);
+            case "text-indent" -> style.indentFirstLine = twips(value, style);
+            case "text-align" -> style.align = switch (keyword) {
+                case "left", "start" -> "left";
+                case "center" -> "center";
+                case "right", "end" -> "right";
+                case "justify" -> "both";
+                default -> style.align;
+            };
+            case "line-height" -> {
+                if (keyword.equals("normal")) {
+                    style.line = null;
+                    style.lineRule = null;
+                } else if (keyword.matches("[0-9.]+%?")) {
+                    double factor = keyword.endsWith("%")
+                            ? parseNumber(keyword.substring(0, keyword.length() - 1)) / 100
+                            : parseNumber(keyword);
+                    if (factor > 0) {
+                        style.line = (int) Math.round(factor * 240);
+                        style.lineRule = "auto";
+                    }
+                } else {
+                    Integer twips = twips(value, style);
+                    if (twips != null && twips > 0) {
+                        style.line = twips;
+                        style.lineRule = "atLeast";
+                    }
+                }
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * CSS length in twips; unitless values are taken as pixels
+     */
+    private static Integer twips(String value, Style style) {
+        String length = value.toLowerCase(Locale.ROOT).trim();
+        int end = 0;
+        while (end < length.length() && (Character.isDigit(length.charAt(end))
+                || length.charAt(end) == '.' || length.charAt(end) == '-')) {
+            end++;
+        }
+        double number = parseNumber(length.substring(0, end));
+        if (Double.isNaN(number)) {
+            return null;
+        }
+        double fontSize = style.size != null ? style.size / 2.0 : BASE_FONT_SIZE;
+        double points = switch (length.substring(end).trim()) {
+            case "", "px" -> number * 0.75;
+            case "pt" -> number;
+            case "em", "rem" -> number * fontSize;
+            case "cm" -> number * 72 / 2.54;
+            case "mm" -> number * 72 / 25.4;
+            case "in" -> number * 72;
+            case "pc" -> number * 12;
+            default -> Double.NaN;
+        };
+        return Double.isNaN(points) ? null : (int) Math.round(points * 20);
+    }
+
+    private static double parseNumber(String number) {
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static Integer nonNegative(Integer twips) {
+        return twips == null ? null : Math.max(0, twips);
+    }
+
+    private static String color(String value) {
+        if (value.matches("#[0-9a-f]{6}")) {
+            return value.substring(1).toUpperCase(Locale.ROOT);
+        }
+        if (value.matches("#[0-9a-f]{3}")) {
+            StringBuilder hex = new StringBuilder(6);
+            for (int i = 1; i < 4; i++) {
+                hex.append(value.charAt(i)).append(value.charAt(i));
+            }
+            return hex.toString().toUpperCase(Locale.ROOT);
+        }
+        if (value.startsWith("rgb")) {
+            String[] channels = value.replaceAll("rgba?\\(|\\)", "").split(",");
+            if (channels.length >= 3) {
+                StringBuilder hex = new StringBuilder(6);
+                for (int i = 0; i < 3; i++) {
+                    double channel = parseNumber(channels[i].trim());
+                    if (Double.isNaN(channel)) {
+                        return null;
+                    }
+                    hex.append(String.format("%02X", (int) Math.max(0, Math.min(255, channel))));
+                }
+                return hex.toString();
+            }
+        }
+        return switch (value) {
+            case "black" -> "000000";
+            case "white" -> "FFFFFF";
+            case "gray", "grey" -> "808080";
+            default -> null;
+        };
+    }
+
+    void write(Appendable out) throws IOException {
+        out.append(DocxWriter.XML_DECLARATION).append("<w:styles xmlns:w=\"").append(DocxWriter.W_NS).append("\">");
+        for (Style style : styles.values()) {
+            boolean normal = NORMAL.equals(style.id);
+            out.append("<w:style w:type=\"paragraph\"");
+            if (normal) {
+                out.append(" w:default=\"1\"");
+            }
+            out.append(" w:styleId=\"").append(style.id).append("\"><w:name w:val=\"").append(style.name).append("\"/>");
+            if (!normal) {
+                out.append("<w:basedOn w:val=\"").append(NORMAL).append("\"/>");
+            }
+            if (style.outlineLevel != null || TITLE.equals(style.id)) {
+                out.append("<w:next w:val=\"").append(NORMAL).append("\"/>");
+            }
+            out.append("<w:qFormat/>");
+            writeParagraphProperties(style, out);
+            writeRunProperties(style, out);
+            out.append("</w:style>");
+        }
+        out.append("</w:styles>");
+    }
+
+    private static void writeParagraphProperties(Style style, Appendable out) throws IOException {
+        out.append("<w:pPr>");
+        if (style.outlineLevel != null || TITLE.equals(style.id)) {
+            out.append("<w:keepNext/>");
+        }
+        if (style.spaceBefore != null || style.spaceAfter != null || style.line != null) {
+            out.append("<w:spacing");
+            attribute(out, "w:before", style.spaceBefore);
+            attribute(out, "w:after", style.spaceAfter);
+            if (style.line != null) {
+                attribute(out, "w:line", style.line);
+                out.append(" w:lineRule=\"").append(style.lineRule).append('"');
+            }
+            out.append("/>");
+        }
+        if (style.indentLeft != null || style.indentFirstLine != null) {
+            out.append("<w:ind");
+            attribute(out, "w:left", style.indentLeft);
+            if (style.indentFirstLine != null) {
+                if (style.indentFirstLine < 0) {
+                    attribute(out, "w:hanging", -style.indentFirstLine);
+                } else {
+                    attribute(out, "w:firstLine", style.indentFirstLine);
+                }
+            }
+            out.append("/>");
+        }
+        if (style.align != null) {
+            out.append("<w:jc w:val=\"").append(style.align).append("\"/>");
+        }
+        if (style.outlineLevel != null) {
+            attribute(out.append("<w:outlineLvl"), "w:val", style.outlineLevel);
+            out.append("/>");
+        }
+        out.append("</w:pPr>");
+    }
+
+    private static void writeRunProperties(Style style, Appendable out) throws IOException {
+        out.append("<w:rPr>");
+        if (style.font != null) {
+            String font = DocxWriter.escape(style.font);
+            out.append("<w:rFonts w:ascii=\"").append(font).append("\" w:hAnsi=\"").append(font)
+                    .append("\" w:eastAsia=\"").append(font).append("\" w:cs=\"").append(font).append("\"/>");
+        }
+        if (style.bold != null) {
+            out.append(style.bold ? "<w:b/><w:bCs/>" : "<w:b w:val=\"0\"/><w:bCs w:val=\"0\"/>");
+        }
+        if (style.italic != null) {
+            out.append(style.italic ? "<w:i/><w:iCs/>" : "<w:i w:val=\"0\"/><w:iCs w:val=\"0\"/>");
+        }
+        if (style.color != null) {
+            out.append("<w:color w:val=\"").append(style.color).append("\"/>");
+        }
+        if (style.size != null) {
+            attribute(out.append("<w:sz"), "w:val", style.size);
+            attribute(out.append("/><w:szCs"), "w:val", style.size);
+            out.append("/>");
+        }
+        out.append("</w:rPr>");
+    }
+
+    private static void attribute(Appendable out, String name, Integer value) throws IOException {
+        if (value != null) {
+            out.append(' ').append(name).append("=\"").append(Integer.toString(value)).append('"');
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.editype.export.docx;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a WordprocessingML package straight into an output stream.
+ * Each part is streamed into its zip entry as it is generated, so no temp files or
+ * intermediate documents are created; the document body is supplied by the caller.
+ * Numbering is written after the body, which allocates the lists it uses.
+ */
+public final class DocxWriter {
+
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String M_NS = "http://schemas.openxmlformats.org/officeDocument/2006/math";
+
+    private static final String R_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String CONTENT_TYPES = XML_DECLARATION
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+            + "<Override PartName=\"/word/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>"
+            + "<Override PartName=\"/word/numbering.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.numbering+xml\"/>"
+            + "<Override PartName=\"/docProps/core.xml\" ContentType=\"application/vnd.openxmlformats-package.core-properties+xml\"/>"
+            + "</Types>";
+
+    private static final String PACKAGE_RELS = XML_DECLARATION
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"word/document.xml\"/>"
+            + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/package/2006/relationships/metadata/core-properties\" Target=\"docProps/core.xml\"/>"
+            + "</Relationships>";
+
+    private static final String DOCUMENT_RELS = XML_DECLARATION
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+            + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/numbering\" Target=\"numbering.xml\"/>"
+            + "</Relationships>";
+
+    // A4 portrait with 2 cm margins
+    private static final String SECTION = "<w:sectPr><w:pgSz w:w=\"11906\" w:h=\"16838\"/>"
+            + "<w:pgMar w:top=\"1134\" w:right=\"1134\" w:bottom=\"1134\" w:left=\"1134\" w:header=\"709\" w:footer=\"709\" w:gutter=\"0\"/>"
+            + "</w:sectPr>";
+
+    /**
+     * Writes the content of w:body into the document part, allocating lists from the numbering
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+        void write(Appendable out, DocxNumbering numbering) throws IOException;
+    }
+
+    private DocxWriter() {
+    }
+
+    /**
+     * Write a complete package; the target stream is flushed but left open
+     */
+    public static void write(OutputStream target, String title, String language,
+                             DocxStyles styles, BodyWriter body) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(target, StandardCharsets.UTF_8);
+        // The parts are small and highly repetitive XML; the fastest level still compresses them well
+        zip.setLevel(Deflater.BEST_SPEED);
+        // Not closed: that would close the target
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+
+        part(zip, writer, "[Content_Types].xml").append(CONTENT_TYPES);
+        part(zip, writer, "_rels/.rels").append(PACKAGE_RELS);
+        part(zip, writer, "word/_rels/document.xml.rels").append(DOCUMENT_RELS);
+        writeCoreProperties(part(zip, writer, "docProps/core.xml"), title, language);
+        styles.write(part(zip, writer, "word/styles.xml"));
+
+        DocxNumbering numbering = new DocxNumbering();
+        part(zip, writer, "word/document.xml").append(XML_DECLARATION)
+                .append("<w:document xmlns:w=\"").append(W_NS)
+                .append("\" xmlns:m=\"").append(M_NS)
+                .append("\" xmlns:r=\"").append(R_NS).append("\"><w:body>");
+        body.write(writer, numbering);
+        writer.append(SECTION).append("</w:body></w:document>");
+
+        numbering.write(part(zip, writer, "word/numbering.xml"));
+        writer.flush();
+        zip.closeEntry();
+        zip.finish();
+        target.flush();
+    }
+
+    /**
+     * Finish the current entry and start the next one
+     */
+    private static Writer part(ZipOutputStream zip, Writer writer, String name) throws IOException {
+        writer.flush();
+        zip.putNextEntry(new ZipEntry(name));
+        return writer;
+    }
+
+    private static void writeCoreProperties(Writer out, String title, String language) throws IOException {
+        out.append(XML_DECLARATION)
+                .append("<cp:coreProperties xmlns:cp=\"http://schemas.openxmlformats.org/package/2006/metadata/core-properties\"")
+                .append(" xmlns:dc=\"http://purl.org/dc/elements/1.1/\">");
+        if (title != null && !title.isBlank()) {
+            out.append("<dc:title>");
+            escape(title, out);
+            out.append("</dc:title>");
+        }
+        if (language != null && !language.isBlank()) {
+            out.append("<dc:language>");
+            escape(language, out);
+            out.append("</dc:language>");
+        }
+        out.append("</cp:coreProperties>");
+    }
+
+    /**
+     * A paragraph of plain text in the given style, optionally a list item of the given numbering
+     */
+    public static void paragraph(Appendable out, String styleId, int numId, String text) throws IOException {
+        out.append("<w:p>");
+        paragraphProperties(out, styleId, numId);
+        if (text != null && !text.isEmpty()) {
+            out.append("<w:r><w:t xml:space=\"preserve\">");
+            escape(text, out);
+            out.append("</w:t></w:r>");
+        }
+        out.append("</w:p>");
+    }
+
+    /**
+     * Paragraph properties selecting a style and, when numId is positive, a list
+     */
+    public static void paragraphProperties(Appendable out, String styleId, int numId) throws IOException {
+        out.append("<w:pPr><w:pStyle w:val=\"").append(styleId).append("\"/>");
+        if (numId > 0) {
+            out.append("<w:numPr><w:ilvl w:val=\"0\"/><w:numId w:val=\"").append(Integer.toString(numId)).append("\"/></w:numPr>");
+        }
+        out.append("</w:pPr>");
+    }
+
+    public static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        try {
+            escape(text, escaped);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Append text with XML special characters escaped and characters XML cannot carry dropped
+     */
+    public static void escape(String text, Appendable out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' || c == 0xFFFE || c == 0xFFFF ? "" : null;
+            };
+            if (entity != null) {
+                out.append(text, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, text.length());
+    }
+}
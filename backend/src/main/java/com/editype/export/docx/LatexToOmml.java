@@ -0,0 +1,607 @@
+package com.editype.export.docx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts the LaTeX math used in articles to Office Math (OMML), so equations stay editable in Word.
+ * Covers fractions, roots, scripts, large operators, delimiters, accents, matrices and alignments,
+ * font commands and the usual Greek letters and symbols. Unknown commands are kept as upright text;
+ * input that cannot be parsed becomes a single literal run.
+ * The result is the content of an {@code m:oMath} element.
+ */
+public final class LatexToOmml {
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final Map<String, String> SYMBOLS = Map.ofEntries(
+            Map.entry("alpha", "α"), Map.entry("beta", "β"), Map.entry("gamma", "γ"), Map.entry("delta", "δ"),
+            Map.entry("epsilon", "ϵ"), Map.entry("varepsilon", "ε"), Map.entry("zeta", "ζ"), Map.entry("eta", "η"),
+            Map.entry("theta", "θ"), Map.entry("vartheta", "ϑ"), Map.entry("iota", "ι"), Map.entry("kappa", "κ"),
+            Map.entry("lambda", "λ"), Map.entry("mu", "μ"), Map.entry("nu", "ν"), Map.entry("xi", "ξ"),
+            Map.entry("pi", "π"), Map.entry("varpi", "ϖ"), Map.entry("rho", "ρ"), Map.entry("varrho", "ϱ"),
+            Map.entry("sigma", "σ"), Map.entry("varsigma", "ς"), Map.entry("tau", "τ"), Map.entry("upsilon", "υ"),
+            Map.entry("phi", "ϕ"), Map.entry("varphi", "φ"), Map.entry("chi", "χ"), Map.entry("psi", "ψ"),
+            Map.entry("omega", "ω"), Map.entry("Gamma", "Γ"), Map.entry("Delta", "Δ"), Map.entry("Theta", "Θ"),
+            Map.entry("Lambda", "Λ"), Map.entry("Xi", "Ξ"), Map.entry("Pi", "Π"), Map.entry("Sigma", "Σ"),
+            Map.entry("Upsilon", "Υ"), Map.entry("Phi", "Φ"), Map.entry("Psi", "Ψ"), Map.entry("Omega", "Ω"),
+            Map.entry("infty", "∞"), Map.entry("partial", "∂"), Map.entry("nabla", "∇"), Map.entry("pm", "±"),
+            Map.entry("mp", "∓"), Map.entry("times", "×"), Map.entry("div", "÷"), Map.entry("cdot", "⋅"),
+            Map.entry("ast", "∗"), Map.entry("star", "⋆"), Map.entry("circ", "∘"), Map.entry("bullet", "∙"),
+            Map.entry("leq", "≤"), Map.entry("le", "≤"), Map.entry("geq", "≥"), Map.entry("ge", "≥"),
+            Map.entry("neq", "≠"), Map.entry("ne", "≠"), Map.entry("approx", "≈"), Map.entry("equiv", "≡"),
+            Map.entry("sim", "∼"), Map.entry("simeq", "≃"), Map.entry("cong", "≅"), Map.entry("propto", "∝"),
+            Map.entry("ll", "≪"), Map.entry("gg", "≫"), Map.entry("in", "∈"), Map.entry("notin", "∉"),
+            Map.entry("ni", "∋"), Map.entry("subset", "⊂"), Map.entry("supset", "⊃"), Map.entry("subseteq", "⊆"),
+            Map.entry("supseteq", "⊇"), Map.entry("cup", "∪"), Map.entry("cap", "∩"), Map.entry("setminus", "∖"),
+            Map.entry("emptyset", "∅"), Map.entry("varnothing", "∅"), Map.entry("forall", "∀"), Map.entry("exists", "∃"),
+            Map.entry("neg", "¬"), Map.entry("lnot", "¬"), Map.entry("land", "∧"), Map.entry("wedge", "∧"),
+            Map.entry("lor", "∨"), Map.entry("vee", "∨"), Map.entry("oplus", "⊕"), Map.entry("otimes", "⊗"),
+            Map.entry("perp", "⊥"), Map.entry("parallel", "∥"), Map.entry("mid", "∣"), Map.entry("angle", "∠"),
+            Map.entry("to", "→"), Map.entry("rightarrow", "→"), Map.entry("leftarrow", "←"), Map.entry("gets", "←"),
+            Map.entry("leftrightarrow", "↔"), Map.entry("Rightarrow", "⇒"), Map.entry("Leftarrow", "⇐"),
+            Map.entry("Leftrightarrow", "⇔"), Map.entry("iff", "⇔"), Map.entry("implies", "⇒"), Map.entry("mapsto", "↦"),
+            Map.entry("uparrow", "↑"), Map.entry("downarrow", "↓"), Map.entry("ldots", "…"), Map.entry("dots", "…"),
+            Map.entry("cdots", "⋯"), Map.entry("vdots", "⋮"), Map.entry("ddots", "⋱"), Map.entry("prime", "′"),
+            Map.entry("degree", "°"), Map.entry("ell", "ℓ"), Map.entry("hbar", "ℏ"), Map.entry("Re", "ℜ"),
+            Map.entry("Im", "ℑ"), Map.entry("aleph", "ℵ"), Map.entry("langle", "⟨"), Map.entry("rangle", "⟩"),
+            Map.entry("lfloor", "⌊"), Map.entry("rfloor", "⌋"), Map.entry("lceil", "⌈"), Map.entry("rceil", "⌉"),
+            Map.entry("vert", "|"), Map.entry("Vert", "‖"), Map.entry("backslash", "∖"), Map.entry("therefore", "∴"),
+            Map.entry("because", "∵"), Map.entry("triangle", "△"), Map.entry("square", "□"));
+
+    private static final Map<String, String> LARGE_OPERATORS = Map.ofEntries(
+            Map.entry("sum", "∑"), Map.entry("prod", "∏"), Map.entry("coprod", "∐"), Map.entry("int", "∫"),
+            Map.entry("iint", "∬"), Map.entry("iiint", "∭"), Map.entry("oint", "∮"), Map.entry("bigcup", "⋃"),
+            Map.entry("bigcap", "⋂"), Map.entry("bigoplus", "⨁"), Map.entry("bigotimes", "⨂"),
+            Map.entry("bigvee", "⋁"), Map.entry("bigwedge", "⋀"));
+
+    private static final Set<String> INTEGRALS = Set.of("int", "iint", "iiint", "oint");
+
+    private static final Set<String> FUNCTIONS = Set.of(
+            "sin", "cos", "tan", "cot", "sec", "csc", "arcsin", "arccos", "arctan", "sinh", "cosh", "tanh",
+            "coth", "log", "ln", "lg", "exp", "det", "dim", "ker", "deg", "arg", "hom", "gcd", "Pr",
+            "lim", "liminf", "limsup", "min", "max", "sup", "inf");
+
+    // Functions whose subscript is set below them in display style
+    private static final Set<String> LIMIT_FUNCTIONS = Set.of("lim", "liminf", "limsup", "min", "max", "sup", "inf", "det", "gcd", "Pr");
+
+    private static final Map<String, String> ACCENTS = Map.ofEntries(
+            Map.entry("hat", "̂"), Map.entry("widehat", "̂"), Map.entry("tilde", "̃"),
+            Map.entry("widetilde", "̃"), Map.entry("bar", "̅"), Map.entry("vec", "⃗"),
+            Map.entry("dot", "̇"), Map.entry("ddot", "̈"), Map.entry("check", "̌"),
+            Map.entry("breve", "̆"), Map.entry("acute", "́"), Map.entry("grave", "̀"));
+
+    private static final Map<String, String> DELIMITERS = Map.ofEntries(
+            Map.entry("(", "("), Map.entry(")", ")"), Map.entry("[", "["), Map.entry("]", "]"),
+            Map.entry("\\{", "{"), Map.entry("\\}", "}"), Map.entry("|", "|"), Map.entry("\\|", "‖"),
+            Map.entry("\\vert", "|"), Map.entry("\\Vert", "‖"), Map.entry("\\langle", "⟨"), Map.entry("\\rangle", "⟩"),
+            Map.entry("\\lfloor", "⌊"), Map.entry("\\rfloor", "⌋"), Map.entry("\\lceil", "⌈"), Map.entry("\\rceil", "⌉"),
+            Map.entry("\\lbrace", "{"), Map.entry("\\rbrace", "}"), Map.entry("<", "⟨"), Map.entry(">", "⟩"),
+            Map.entry("/", "/"), Map.entry(".", ""));
+
+    private static final Map<String, String> SPACES = Map.of(
+            ",", " ", ":", " ", ">", " ", ";", " ", " ", " ", "quad", " ", "qquad", "  ");
+
+    // Font commands and the OMML script/style they select
+    private static final Map<String, String[]> FONTS = Map.ofEntries(
+            Map.entry("mathrm", new String[] {null, "p"}), Map.entry("mathup", new String[] {null, "p"}),
+            Map.entry("operatorname", new String[] {null, "p"}), Map.entry("mathbf", new String[] {null, "b"}),
+            Map.entry("boldsymbol", new String[] {null, "bi"}), Map.entry("bm", new String[] {null, "bi"}),
+            Map.entry("mathit", new String[] {null, "i"}), Map.entry("mathbb", new String[] {"double-struck", "p"}),
+            Map.entry("mathcal", new String[] {"script", "p"}), Map.entry("mathscr", new String[] {"script", "p"}),
+            Map.entry("mathfrak", new String[] {"fraktur", "p"}), Map.entry("mathsf", new String[] {"sans-serif", "p"}),
+            Map.entry("mathtt", new String[] {"monospace", "p"}));
+
+    // Matrix environments and the delimiters around them
+    private static final Map<String, String[]> MATRICES = Map.of(
+            "matrix", new String[] {"", ""}, "smallmatrix", new String[] {"", ""}, "array", new String[] {"", ""},
+            "pmatrix", new String[] {"(", ")"}, "bmatrix", new String[] {"[", "]"}, "Bmatrix", new String[] {"{", "}"},
+            "vmatrix", new String[] {"|", "|"}, "Vmatrix", new String[] {"‖", "‖"}, "cases", new String[] {"{", ""});
+
+    private final String source;
+    private int pos;
+    private int depth;
+
+    // Font selected by the enclosing \mathbf, \mathbb, ... command
+    private String script;
+    private String style;
+
+    private LatexToOmml(String source) {
+        this.source = source;
+    }
+
+    /**
+     * OMML for a LaTeX formula, without the enclosing m:oMath
+     */
+    public static String convert(String latex) {
+        if (latex == null || latex.isBlank()) {
+            return "";
+        }
+        try {
+            return new LatexToOmml(latex.trim()).parseDocument();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return run(latex.trim(), null, "p", false);
+        }
+    }
+
+    private String parseDocument() {
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            out.append(parseSequence());
+            if (pos >= source.length()) {
+                return out.toString();
+            }
+            // Stray alignment marks, line breaks and closing braces outside of an environment
+            if (startsWith("\\\\")) {
+                pos += 2;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Parse atoms with their scripts up to the end of input, '}', '&', a line break, \right or \end
+     */
+    private String parseSequence() {
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Formula nested too deeply");
+        }
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            skipWhitespace();
+            if (atStop()) {
+                break;
+            }
+            out.append(parseScripts(parseAtom()));
+        }
+        depth--;
+        return out.toString();
+    }
+
+    private boolean atStop() {
+        if (pos >= source.length()) {
+            return true;
+        }
+        char c = source.charAt(pos);
+        return c == '}' || c == '&' || startsWith("\\\\") || startsWithCommand("right") || startsWithCommand("end");
+    }
+
+    private String parseAtom() {
+        char c = source.charAt(pos);
+        if (c == '{') {
+            pos++;
+            String group = parseSequence();
+            expect('}');
+            return group;
+        }
+        if (c == '\\') {
+            return parseCommand();
+        }
+        if (c == '^' || c == '_' || c == '\'') {
+            // Script without a base, e.g. {}^{14}C; the scripts are read by the caller
+            return "";
+        }
+        pos++;
+        if (Character.isDigit(c)) {
+            int start = pos - 1;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos))
+                    || source.charAt(pos) == '.' && pos + 1 < source.length() && Character.isDigit(source.charAt(pos + 1)))) {
+                pos++;
+            }
+            return run(source.substring(start, pos));
+        }
+        return switch (c) {
+            case '-' -> run("−");
+            case '*' -> run("∗");
+            case '~' -> run(" ");
+            default -> run(String.valueOf(c));
+        };
+    }
+
+    private String parseScripts(String base) {
+        String sub = null;
+        String sup = null;
+        while (true) {
+            skipWhitespace();
+            if (pos >= source.length()) {
+                break;
+            }
+            char c = source.charAt(pos);
+            if (c == '_' && sub == null) {
+                pos++;
+                sub = parseArgument();
+            } else if (c == '^' && sup == null) {
+                pos++;
+                sup = parseArgument();
+            } else if (c == '\'') {
+                pos++;
+                sup = (sup != null ? sup : "") + run("′");
+            } else {
+                break;
+            }
+        }
+        if (sub != null && sup != null) {
+            return "<m:sSubSup><m:e>" + base + "</m:e><m:sub>" + sub + "</m:sub><m:sup>" + sup + "</m:sup></m:sSubSup>";
+        }
+        if (sub != null) {
+            return "<m:sSub><m:e>" + base + "</m:e><m:sub>" + sub + "</m:sub></m:sSub>";
+        }
+        if (sup != null) {
+            return "<m:sSup><m:e>" + base + "</m:e><m:sup>" + sup + "</m:sup></m:sSup>";
+        }
+        return base;
+    }
+
+    /**
+     * A command or group argument: {...}, a single command, or a single character
+     */
+    private String parseArgument() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw new IllegalArgumentException("Missing argument");
+        }
+        char c = source.charAt(pos);
+        if (c == '{' || c == '\\') {
+            return parseAtom();
+        }
+        if (c == '}' || c == '&' || c == '^' || c == '_') {
+            throw new IllegalArgumentException("Missing argument");
+        }
+        pos++;
+        return run(String.valueOf(c == '-' ? '−' : c));
+    }
+
+    private String parseCommand() {
+        pos++;
+        String name = readCommandName();
+
+        String symbol = SYMBOLS.get(name);
+        if (symbol != null) {
+            return run(symbol);
+        }
+        String space = SPACES.get(name);
+        if (space != null) {
+            return run(space, null, "p", false);
+        }
+        String operator = LARGE_OPERATORS.get(name);
+        if (operator != null) {
+            return parseLargeOperator(operator, INTEGRALS.contains(name));
+        }
+        if (FUNCTIONS.contains(name)) {
+            return parseFunction(name);
+        }
+        String accent = ACCENTS.get(name);
+        if (accent != null) {
+            return "<m:acc><m:accPr><m:chr m:val=\"" + accent + "\"/></m:accPr><m:e>" + parseArgument() + "</m:e></m:acc>";
+        }
+        String[] font = FONTS.get(name);
+        if (font != null) {
+            return parseWithFont(font[0], font[1]);
+        }
+
+        switch (name) {
+            case "frac", "dfrac", "tfrac", "cfrac" -> {
+                String numerator = parseArgument();
+                String denominator = parseArgument();
+                return "<m:f><m:num>" + numerator + "</m:num><m:den>" + denominator + "</m:den></m:f>";
+            }
+            case "binom", "dbinom", "tbinom" -> {
+                String top = parseArgument();
+                String bottom = parseArgument();
+                return delimited("(", ")", "<m:f><m:fPr><m:type m:val=\"noBar\"/></m:fPr><m:num>" + top
+                        + "</m:num><m:den>" + bottom + "</m:den></m:f>");
+            }
+            case "sqrt" -> {
+                skipWhitespace();
+                if (pos < source.length() && source.charAt(pos) == '[') {
+                    pos++;
+                    int end = source.indexOf(']', pos);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated root degree");
+                    }
+                    String degree = new LatexToOmml(source.substring(pos, end)).parseDocument();
+                    pos = end + 1;
+                    return "<m:rad><m:deg>" + degree + "</m:deg><m:e>" + parseArgument() + "</m:e></m:rad>";
+                }
+                return "<m:rad><m:radPr><m:degHide m:val=\"1\"/></m:radPr><m:deg/><m:e>" + parseArgument() + "</m:e></m:rad>";
+            }
+            case "overline", "underline" -> {
+                String side = "overline".equals(name) ? "top" : "bot";
+                return "<m:bar><m:barPr><m:pos m:val=\"" + side + "\"/></m:barPr><m:e>" + parseArgument() + "</m:e></m:bar>";
+            }
+            case "overbrace", "underbrace" -> {
+                boolean over = "overbrace".equals(name);
+                return "<m:groupChr><m:groupChrPr><m:chr m:val=\"" + (over ? "⏞" : "⏟") + "\"/><m:pos m:val=\""
+                        + (over ? "top" : "bot") + "\"/></m:groupChrPr><m:e>" + parseArgument() + "</m:e></m:groupChr>";
+            }
+            case "left" -> {
+                return parseLeftRight();
+            }
+            case "begin" -> {
+                return parseEnvironment();
+            }
+            case "text", "textrm", "textit", "textbf", "mbox", "textnormal" -> {
+                return run(readRawArgument(), null, null, true);
+            }
+            case "not" -> {
+                skipWhitespace();
+                if (startsWith("=")) {
+                    pos++;
+                    return run("≠");
+                }
+                if (startsWithCommand("in")) {
+                    pos += 3;
+                    return run("∉");
+                }
+                return run("̸");
+            }
+            case "color" -> {
+                readRawArgument();
+                return "";
+            }
+            case "textcolor" -> {
+                readRawArgument();
+                return parseArgument();
+            }
+            case "mathop", "mathord", "mathbin", "mathrel", "displaystyle", "textstyle", "scriptstyle",
+                 "limits", "nolimits", "big", "Big", "bigg", "Bigg", "bigl", "bigr", "Bigl", "Bigr", "!", "middle" -> {
+                return "";
+            }
+            case "{", "}", "_", "%", "$", "#", "&", "|" -> {
+                return run("|".equals(name) ? "‖" : name);
+            }
+            default -> {
+                // Unknown command: keep its name readable rather than dropping it
+                return run(name, null, "p", false);
+            }
+        }
+    }
+
+    private String parseLargeOperator(String operator, boolean integral) {
+        String sub = null;
+        String sup = null;
+        while (true) {
+            skipWhitespace();
+            if (startsWithCommand("limits") || startsWithCommand("nolimits")) {
+                pos += startsWithCommand("limits") ? 7 : 9;
+            } else if (pos < source.length() && source.charAt(pos) == '_' && sub == null) {
+                pos++;
+                sub = parseArgument();
+            } else if (pos < source.length() && source.charAt(pos) == '^' && sup == null) {
+                pos++;
+                sup = parseArgument();
+            } else {
+                break;
+            }
+        }
+        skipWhitespace();
+        String operand = atStop() ? "" : parseScripts(parseAtom());
+
+        StringBuilder nary = new StringBuilder("<m:nary><m:naryPr><m:chr m:val=\"").append(operator).append("\"/>")
+                .append("<m:limLoc m:val=\"").append(integral ? "subSup" : "undOvr").append("\"/>");
+        if (sub == null) {
+            nary.append("<m:subHide m:val=\"1\"/>");
+        }
+        if (sup == null) {
+            nary.append("<m:supHide m:val=\"1\"/>");
+        }
+        return nary.append("</m:naryPr><m:sub>").append(sub != null ? sub : "")
+                .append("</m:sub><m:sup>").append(sup != null ? sup : "")
+                .append("</m:sup><m:e>").append(operand).append("</m:e></m:nary>").toString();
+    }
+
+    private String parseFunction(String name) {
+        String fname = run(name, null, "p", false);
+        skipWhitespace();
+        if (LIMIT_FUNCTIONS.contains(name) && pos < source.length() && source.charAt(pos) == '_') {
+            pos++;
+            fname = "<m:limLow><m:e>" + fname + "</m:e><m:lim>" + parseArgument() + "</m:lim></m:limLow>";
+        }
+        return fname;
+    }
+
+    private String parseWithFont(String fontScript, String fontStyle) {
+        String outerScript = script;
+        String outerStyle = style;
+        script = fontScript;
+        style = fontStyle;
+        try {
+            return parseArgument();
+        } finally {
+            script = outerScript;
+            style = outerStyle;
+        }
+    }
+
+    private String parseLeftRight() {
+        String open = readDelimiter();
+        StringBuilder inner = new StringBuilder();
+        while (true) {
+            inner.append(parseSequence());
+            if (startsWithCommand("right")) {
+                pos += 6;
+                break;
+            }
+            if (pos >= source.length() || source.charAt(pos) == '}' || startsWithCommand("end")) {
+                throw new IllegalArgumentException("\\left without \\right");
+            }
+            // Alignment marks or line breaks inside delimiters carry no meaning here
+            pos += startsWith("\\\\") ? 2 : 1;
+        }
+        String close = readDelimiter();
+        return delimited(open, close, inner.toString());
+    }
+
+    private String readDelimiter() {
+        skipWhitespace();
+        for (Map.Entry<String, String> delimiter : DELIMITERS.entrySet()) {
+            String token = delimiter.getKey();
+            if (startsWith(token) && (!token.startsWith("\\") || token.length() == 2
+                    || !isLetterAt(pos + token.length()))) {
+                pos += token.length();
+                return delimiter.getValue();
+            }
+        }
+        throw new IllegalArgumentException("Unknown delimiter");
+    }
+
+    private String parseEnvironment() {
+        String name = readRawArgument().trim();
+        if ("array".equals(name)) {
+            // Column specification
+            readRawArgument();
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        while (true) {
+            row.add(parseSequence());
+            if (pos >= source.length() || source.charAt(pos) == '}' || startsWithCommand("right")) {
+                throw new IllegalArgumentException("Unterminated environment " + name);
+            }
+            if (source.charAt(pos) == '&') {
+                pos++;
+            } else if (startsWith("\\\\")) {
+                pos += 2;
+                rows.add(row);
+                row = new ArrayList<>();
+            } else {
+                pos += 4;
+                String end = readRawArgument().trim();
+                if (!end.equals(name)) {
+                    throw new IllegalArgumentException("\\begin{" + name + "} ended by \\end{" + end + "}");
+                }
+                break;
+            }
+        }
+        if (!(row.size() == 1 && row.get(0).isEmpty())) {
+            rows.add(row);
+        }
+
+        String[] delimiters = MATRICES.get(name);
+        if (delimiters == null) {
+            // align, aligned, gathered, split, equation...: one equation per row, alignment marks dropped
+            if (rows.size() == 1) {
+                return String.join("", rows.get(0));
+            }
+            StringBuilder array = new StringBuilder("<m:eqArr>");
+            for (List<String> cells : rows) {
+                array.append("<m:e>").append(String.join("", cells)).append("</m:e>");
+            }
+            return array.append("</m:eqArr>").toString();
+        }
+
+        int columns = rows.stream().mapToInt(List::size).max().orElse(1);
+        StringBuilder matrix = new StringBuilder("<m:m><m:mPr><m:mcs><m:mc><m:mcPr><m:count m:val=\"")
+                .append(columns).append("\"/><m:mcJc m:val=\"").append("cases".equals(name) ? "left" : "center")
+                .append("\"/></m:mcPr></m:mc></m:mcs></m:mPr>");
+        for (List<String> cells : rows) {
+            matrix.append("<m:mr>");
+            for (int i = 0; i < columns; i++) {
+                matrix.append("<m:e>").append(i < cells.size() ? cells.get(i) : "").append("</m:e>");
+            }
+            matrix.append("</m:mr>");
+        }
+        matrix.append("</m:m>");
+        return delimiters[0].isEmpty() && delimiters[1].isEmpty()
+                ? matrix.toString()
+                : delimited(delimiters[0], delimiters[1], matrix.toString());
+    }
+
+    private static String delimited(String open, String close, String content) {
+        return "<m:d><m:dPr><m:begChr m:val=\"" + escape(open) + "\"/><m:endChr m:val=\"" + escape(close)
+                + "\"/></m:dPr><m:e>" + content + "</m:e></m:d>";
+    }
+
+    /**
+     * Text of a braced argument taken literally, with nested braces kept
+     */
+    private String readRawArgument() {
+        skipWhitespace();
+        expect('{');
+        int start = pos;
+        int level = 1;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '{') {
+                level++;
+            } else if (c == '}' && --level == 0) {
+                return source.substring(start, pos++);
+            }
+            pos++;
+        }
+        throw new IllegalArgumentException("Unterminated argument");
+    }
+
+    private String readCommandName() {
+        if (pos >= source.length()) {
+            throw new IllegalArgumentException("Trailing backslash");
+        }
+        int start = pos;
+        while (isLetterAt(pos)) {
+            pos++;
+        }
+        if (pos == start) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private String run(String text) {
+        return run(text, script, style, false);
+    }
+
+    private static String run(String text, String script, String style, boolean normalText) {
+        StringBuilder run = new StringBuilder("<m:r>");
+        if (normalText) {
+            run.append("<m:rPr><m:nor/></m:rPr>");
+        } else if (script != null || style != null) {
+            run.append("<m:rPr>");
+            if (script != null) {
+                run.append("<m:scr m:val=\"").append(script).append("\"/>");
+            }
+            if (style != null) {
+                run.append("<m:sty m:val=\"").append(style).append("\"/>");
+            }
+            run.append("</m:rPr>");
+        }
+        return run.append("<m:t xml:space=\"preserve\">").append(escape(text)).append("</m:t></m:r>").toString();
+    }
+
+    private static String escape(String text) {
+        return DocxWriter.escape(text);
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= source.length() || source.charAt(pos) != c) {
+            throw new IllegalArgumentException("Expected " + c);
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean startsWith(String token) {
+        return source.startsWith(token, pos);
+    }
+
+    private boolean startsWithCommand(String name) {
+        return source.startsWith(name, pos + 1) && source.charAt(pos) == '\\' && !isLetterAt(pos + 1 + name.length());
+    }
+
+    private boolean isLetterAt(int index) {
+        return index < source.length() && Character.isLetter(source.charAt(index));
+    }
+}
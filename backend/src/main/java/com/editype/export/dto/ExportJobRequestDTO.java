@@ -0,0 +1,27 @@
+package com.editype.export.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for submitting a background export job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobRequestDTO {
+    
+    @NotBlank(message = "Article ID is required")
+    private String articleId;
+    
+    // pdf-latex, pdf-vivliostyle or latex
+    @NotBlank(message = "Format is required")
+    private String format;
+    
+    @Builder.Default
+    private String lang = "en";
+}
@@ -0,0 +1,52 @@
+package com.editype.export.dto;
+
+import com.editype.export.job.ExportJob;
+import com.editype.export.job.ExportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for returning export job status
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponseDTO {
+    
+    private String id;
+    private String articleId;
+    private String format;
+    private String lang;
+    private ExportJobStatus status;
+    private String error;
+    private Long size;
+    private String resultUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    
+    /**
+     * Convert ExportJob to ResponseDTO
+     */
+    public static ExportJobResponseDTO fromJob(ExportJob job) {
+        boolean succeeded = job.getStatus() == ExportJobStatus.SUCCEEDED;
+        return ExportJobResponseDTO.builder()
+                .id(job.getId())
+                .articleId(job.getArticleId())
+                .format(job.getFormat().getValue())
+                .lang(job.getLanguage())
+                .status(job.getStatus())
+                .error(job.getError())
+                .size(succeeded ? job.getResultSize() : null)
+                .resultUrl(succeeded ? "/api/export/jobs/" + job.getId() + "/result" : null)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
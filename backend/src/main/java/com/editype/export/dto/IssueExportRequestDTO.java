@@ -0,0 +1,37 @@
+package com.editype.export.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for compiling a journal issue into one PDF
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssueExportRequestDTO {
+    
+    // Articles in issue order
+    @NotEmpty(message = "Article IDs are required")
+    private List<String> articleIds;
+    
+    // latex or vivliostyle
+    @Builder.Default
+    private String engine = "vivliostyle";
+    
+    @Builder.Default
+    private String lang = "en";
+    
+    @Builder.Default
+    private int firstPage = 1;
+    
+    // Store the resulting page ranges as the articles' firstPage/lastPage
+    @Builder.Default
+    private boolean updatePages = true;
+}
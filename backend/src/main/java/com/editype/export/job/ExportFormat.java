@@ -0,0 +1,46 @@
+package com.editype.export.job;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats that can be rendered as background export jobs
+ */
+public enum ExportFormat {
+    PDF_LATEX("pdf-latex", MediaType.APPLICATION_PDF_VALUE, "_latex.pdf"),
+    PDF_VIVLIOSTYLE("pdf-vivliostyle", MediaType.APPLICATION_PDF_VALUE, "_vivlio.pdf"),
+    LATEX("latex", MediaType.TEXT_PLAIN_VALUE, ".tex");
+
+    private final String value;
+    private final String contentType;
+    private final String fileSuffix;
+
+    ExportFormat(String value, String contentType, String fileSuffix) {
+        this.value = value;
+        this.contentType = contentType;
+        this.fileSuffix = fileSuffix;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Download file name for an article rendered in this format
+     */
+    public String fileName(String articleId) {
+        return "article_" + articleId + fileSuffix;
+    }
+
+    public static ExportFormat fromValue(String value) {
+        for (ExportFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
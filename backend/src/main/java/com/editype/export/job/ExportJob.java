@@ -0,0 +1,129 @@
+package com.editype.export.job;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+
+/**
+ * In-process export job.
+ * Identity fields are fixed at submission; progress fields are updated by the worker thread.
+ */
+public class ExportJob {
+    
+    private final String id;
+    private final String owner;
+    private final String articleId;
+    private final ExportFormat format;
+    private final String language;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile Path result;
+    private volatile long resultSize;
+    private volatile Future<?> future;
+    private boolean cancelled;
+    
+    public ExportJob(String id, String owner, String articleId, ExportFormat format, String language) {
+        this.id = id;
+        this.owner = owner;
+        this.articleId = articleId;
+        this.format = format;
+        this.language = language;
+    }
+    
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ExportJobStatus.RUNNING;
+    }
+    
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+    
+    /**
+     * Record the result, unless the job was cancelled meanwhile and the caller must discard it
+     */
+    synchronized boolean markSucceeded(Path result, long resultSize) {
+        if (cancelled) {
+            return false;
+        }
+        this.result = result;
+        this.resultSize = resultSize;
+        finishedAt = LocalDateTime.now();
+        status = ExportJobStatus.SUCCEEDED;
+        return true;
+    }
+    
+    /**
+     * Stop a queued or running job; returns the result already recorded, if any
+     */
+    synchronized Path cancel() {
+        cancelled = true;
+        Future<?> running = future;
+        if (running != null) {
+            running.cancel(true);
+        }
+        return result;
+    }
+    
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = ExportJobStatus.FAILED;
+    }
+    
+    public boolean isFinished() {
+        return status == ExportJobStatus.SUCCEEDED || status == ExportJobStatus.FAILED;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public String getArticleId() {
+        return articleId;
+    }
+    
+    public ExportFormat getFormat() {
+        return format;
+    }
+    
+    public String getLanguage() {
+        return language;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public Path getResult() {
+        return result;
+    }
+    
+    public long getResultSize() {
+        return resultSize;
+    }
+}
@@ -0,0 +1,203 @@
+package com.editype.export.job;
+
+import com.editype.article.entity.Article;
+import com.editype.article.service.ArticleService;
+import com.editype.exception.ResourceNotFoundException;
+import com.editype.exception.ServiceOverloadedException;
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.service.LatexExportService;
+import com.editype.export.service.VivliostyleExportService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process store and runner for background export jobs.
+ * Results are written to disk and kept until they expire.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    private final ArticleService articleService;
+    private final LatexExportService latexExportService;
+    private final VivliostyleExportService vivliostyleExportService;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${export.jobs.dir:/app/temp/jobs}")
+    private String jobsDir;
+
+    @Value("${export.jobs.workers:4}")
+    private int workers;
+
+    @Value("${export.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${export.render.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    public ExportJobService(ArticleService articleService,
+                            LatexExportService latexExportService,
+                            VivliostyleExportService vivliostyleExportService,
+                            MeterRegistry meterRegistry) {
+        this.articleService = articleService;
+        this.latexExportService = latexExportService;
+        this.vivliostyleExportService = vivliostyleExportService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(Path.of(jobsDir));
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workers, workers,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        
+        new ExecutorServiceMetrics(executor, "export-jobs", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("editype.export.jobs", jobs, Map::size)
+                .description("Export jobs held in memory, including finished ones awaiting download")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue an export job for an article
+     */
+    public ExportJob submit(String owner, String articleId, ExportFormat format, String language) {
+        // Fail fast with 404 instead of a failed job
+        articleService.getById(articleId);
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), owner, articleId, format, language);
+        jobs.put(job.getId(), job);
+
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ServiceOverloadedException("Too many pending export jobs, please retry later", retryAfterSeconds);
+        }
+
+        logger.info("Queued export job {} ({} of article {} in {})", job.getId(), format.getValue(), articleId, language);
+        return job;
+    }
+
+    /**
+     * Get job visible to the given user
+     */
+    public ExportJob getJob(String id, String owner) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !job.getOwner().equals(owner)) {
+            throw new ResourceNotFoundException("Export job not found with id: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Remove a job and its result; a job still queued or running is cancelled and discards its output
+     */
+    public void deleteJob(String id, String owner) {
+        ExportJob job = getJob(id, owner);
+        jobs.remove(job.getId());
+        deleteQuietly(job.cancel());
+    }
+
+    /**
+     * Drop finished jobs older than the configured TTL
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:60000}")
+    public void expireJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                deleteResult(job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void run(ExportJob job) {
+        job.markRunning();
+        try {
+            Article article = articleService.getById(job.getArticleId());
+            ExportArtifact artifact = switch (job.getFormat()) {
+                case PDF_LATEX -> latexExportService.exportToPDF(article, job.getLanguage());
+                case PDF_VIVLIOSTYLE -> vivliostyleExportService.exportToPDF(article, job.getLanguage());
+                case LATEX -> latexExportService.exportToLatex(article, job.getLanguage());
+            };
+
+            Path result = Path.of(jobsDir, job.getId());
+            artifact.moveTo(result);
+            long size = Files.size(result);
+            if (!job.markSucceeded(result, size)) {
+                deleteQuietly(result);
+                logger.info("Export job {} was deleted while running, result discarded", job.getId());
+                return;
+            }
+            logger.info("Export job {} finished ({} bytes)", job.getId(), size);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markFailed("Export interrupted");
+        } catch (Exception e) {
+            logger.error("Export job {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    private void deleteResult(ExportJob job) {
+        deleteQuietly(job.getResult());
+    }
+
+    private void deleteQuietly(Path result) {
+        if (result == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(result);
+        } catch (IOException e) {
+            logger.warn("Failed to delete export job result: {}", result, e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.editype.export.job;
+
+/**
+ * Lifecycle of a background export job
+ */
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,276 @@
+package com.editype.export.latex;
+
+import com.editype.export.cache.RenderCache;
+import com.editype.export.render.RenderEngine;
+import com.editype.export.render.RenderExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles LaTeX to PDF the way latexmk does: another pass runs only while the log asks for one
+ * or the auxiliary files the previous pass read (.aux, .toc, .bbl, ...) still change, and biber
+ * runs when biblatex requests it.
+ * A compile runs as one job of the LaTeX render pool, so it is not queued or rejected between passes.
+ * The static part of the article template, up to {@code \csname endofdump\endcsname}, is dumped
+ * into a format with mylatexformat at startup, so passes load the packages from memory.
+ */
+@Component
+public class LatexCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatexCompiler.class);
+
+    private static final String DUMP_MARKER = "\\csname endofdump\\endcsname";
+    private static final List<String> AUX_EXTENSIONS = List.of("aux", "toc", "lof", "lot", "out", "bbl");
+    private static final Pattern RERUN = Pattern.compile(
+            "Rerun to get|Please rerun LaTeX|Label\\(s\\) may have changed|Table widths have changed");
+    private static final Pattern BIBER = Pattern.compile("Please \\(re\\)run Biber|Please rerun Biber");
+    private static final Pattern AUX_REFERENCES = Pattern.compile("\\\\(newlabel|bibcite|@writefile|abx@aux@cite)");
+    private static final Pattern MISSING = Pattern.compile("No file ([^\\s]+)\\.(" + String.join("|", AUX_EXTENSIONS) + ")\\.");
+
+    private final RenderExecutor renderExecutor;
+    private final RenderCache renderCache;
+
+    @Value("${latex.engine:xelatex}")
+    private String latexEngine;
+
+    @Value("${latex.biber:biber}")
+    private String biber;
+
+    @Value("${latex.template.path:/app/templates/article-template.tex}")
+    private String templatePath;
+
+    @Value("${export.render.latex.format.enabled:true}")
+    private boolean formatEnabled;
+
+    @Value("${export.render.latex.format.dir:/app/cache/latex}")
+    private String formatDir;
+
+    @Value("${export.render.latex.max-passes:5}")
+    private int maxPasses;
+
+    private volatile Format format;
+
+    /**
+     * A dumped format and the template preamble it was built from
+     */
+    private record Format(Path path, String preamble) {
+    }
+
+    public LatexCompiler(RenderExecutor renderExecutor, RenderCache renderCache) {
+        this.renderExecutor = renderExecutor;
+        this.renderCache = renderCache;
+    }
+
+    /**
+     * Build the template format in the background; until it is ready documents compile without it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!formatEnabled) {
+            return;
+        }
+        Thread thread = new Thread(this::buildFormat, "latex-format");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Compile a .tex file into a PDF next to it in the work directory
+     */
+    public void compile(Path texFile, Path workDir) throws IOException, InterruptedException {
+        // Up to maxPasses LaTeX runs and biber, twice if the format has to be dropped
+        long runSeconds = 2L * (maxPasses + 1) * renderExecutor.timeoutSeconds(RenderEngine.LATEX);
+        renderExecutor.executeTimed(RenderEngine.LATEX, () -> {
+            compileInJob(texFile, workDir);
+            return null;
+        }, runSeconds);
+    }
+
+    private void compileInJob(Path texFile, Path workDir) throws IOException, InterruptedException {
+        Format current = format;
+        if (current == null || !Files.readString(texFile).startsWith(current.preamble())) {
+            runPasses(texFile, workDir, null);
+            return;
+        }
+        try {
+            runPasses(texFile, workDir, current);
+        } catch (IOException e) {
+            logger.warn("LaTeX compile with preloaded format failed, retrying without it: {}", e.getMessage());
+            runPasses(texFile, workDir, null);
+            // The document is fine without the format, so the format is broken
+            logger.warn("Disabling LaTeX format {}", current.path());
+            format = null;
+        }
+    }
+
+    private void runPasses(Path texFile, Path workDir, Format format) throws IOException, InterruptedException {
+        String job = texFile.getFileName().toString().replaceFirst("\\.tex$", "");
+        boolean biberRun = false;
+        for (int pass = 1; ; pass++) {
+            Map<String, String> before = digests(workDir, job);
+            runLatex(texFile, workDir, format);
+            String log = readTexOutput(workDir.resolve(job + ".log"));
+            Map<String, String> after = digests(workDir, job);
+
+            boolean rerun;
+            if (!biberRun && BIBER.matcher(log).find()) {
+                biberRun = true;
+                rerun = runBiber(job, workDir);
+            } else {
+                rerun = needsRerun(log, workDir, job, before, after);
+            }
+            if (!rerun) {
+                logger.debug("LaTeX {} finished after {} passes", job, pass);
+                return;
+            }
+            if (pass >= maxPasses) {
+                logger.warn("LaTeX {} still changing after {} passes, keeping the last output", job, pass);
+                return;
+            }
+        }
+    }
+
+    private void runLatex(Path texFile, Path workDir, Format format) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(latexEngine);
+        if (format != null) {
+            command.add("-fmt=" + format.path());
+        }
+        command.add("-interaction=nonstopmode");
+        command.add("-output-directory=" + workDir);
+        command.add(texFile.toString());
+        renderExecutor.runCommandInJob(RenderEngine.LATEX, command, workDir);
+    }
+
+    /**
+     * Run biber; returns whether LaTeX has to pick up a new .bbl
+     */
+    private boolean runBiber(String job, Path workDir) throws InterruptedException {
+        try {
+            renderExecutor.runCommandInJob(RenderEngine.LATEX, List.of(biber,
+                    "--input-directory=" + workDir, "--output-directory=" + workDir, job), workDir);
+            return true;
+        } catch (IOException e) {
+            // The PDF is still usable, only the citations stay unresolved
+            logger.warn("biber failed for {}, references left unresolved: {}", workDir, e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean needsRerun(String log, Path workDir, String job,
+                                      Map<String, String> before, Map<String, String> after) throws IOException {
+        if (RERUN.matcher(log).find()) {
+            return true;
+        }
+        // A file that was missing in this pass and has now been written
+        Matcher missing = MISSING.matcher(log);
+        while (missing.find()) {
+            String extension = missing.group(2);
+            if (!before.containsKey(extension) && after.containsKey(extension)
+                    && (!"aux".equals(extension) || hasReferences(workDir.resolve(job + ".aux")))) {
+                return true;
+            }
+        }
+        // A file that this pass read and rewrote differently
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!entry.getValue().equals(after.get(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a new .aux carries anything a second pass would resolve; a document without labels,
+     * citations or lists writes an almost empty one on every first pass
+     */
+    private static boolean hasReferences(Path aux) throws IOException {
+        return AUX_REFERENCES.matcher(readTexOutput(aux)).find();
+    }
+
+    private static Map<String, String> digests(Path workDir, String job) throws IOException {
+        Map<String, String> digests = new HashMap<>();
+        for (String extension : AUX_EXTENSIONS) {
+            Path file = workDir.resolve(job + "." + extension);
+            if (Files.exists(file)) {
+                digests.put(extension, HexFormat.of().formatHex(sha256().digest(Files.readAllBytes(file))));
+            }
+        }
+        return digests;
+    }
+
+    private static String readTexOutput(Path file) throws IOException {
+        // TeX writes its files byte by byte; a lenient charset keeps cut multi-byte sequences from failing the read
+        return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1) : "";
+    }
+
+    private void buildFormat() {
+        try {
+            Path template = Path.of(templatePath);
+            if (!Files.exists(template)) {
+                logger.debug("LaTeX template {} not found, compiling without a format", templatePath);
+                return;
+            }
+            String source = Files.readString(template);
+            int marker = source.indexOf(DUMP_MARKER);
+            if (marker < 0) {
+                logger.info("LaTeX template has no endofdump marker, compiling without a format");
+                return;
+            }
+            String preamble = source.substring(0, marker);
+            if (preamble.contains("$")) {
+                // Pandoc fills the variables per article, so this part differs between documents
+                logger.warn("LaTeX template has pandoc variables before the endofdump marker, compiling without a format");
+                return;
+            }
+
+            // Formats only load in the engine build that dumped them
+            String name = "editype-" + HexFormat.of().formatHex(sha256().digest(
+                    (renderCache.toolVersion(latexEngine) + "\n" + preamble).getBytes(StandardCharsets.UTF_8)), 0, 8);
+            Path dir = Path.of(formatDir);
+            Files.createDirectories(dir);
+            if (!Files.exists(dir.resolve(name + ".fmt"))) {
+                Path dumpFile = dir.resolve(name + ".tex");
+                Files.writeString(dumpFile, preamble + DUMP_MARKER + "\n\\begin{document}\n\\end{document}\n");
+                renderExecutor.runCommand(RenderEngine.LATEX, List.of(latexEngine, "-ini",
+                        "-interaction=nonstopmode", "-jobname=" + name, "&" + latexEngine,
+                        "mylatexformat.ltx", dumpFile.getFileName().toString()), dir);
+                if (!Files.exists(dir.resolve(name + ".fmt"))) {
+                    throw new IOException("format file not created");
+                }
+            }
+            format = new Format(dir.resolve(name).toAbsolutePath(), preamble);
+            logger.info("LaTeX template preamble preloaded from format {}", format.path());
+        } catch (IOException e) {
+            logger.warn("Could not build LaTeX format, compiling without it: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
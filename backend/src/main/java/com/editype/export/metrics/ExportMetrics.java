@@ -0,0 +1,54 @@
+package com.editype.export.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers for the stages of the export pipeline (document conversion, external renderers, streaming).
+ * All stages share one timer name tagged by stage and outcome, published with percentile histograms.
+ */
+@Component
+public class ExportMetrics {
+    
+    public static final String STAGE_TIMER = "editype.export.stage";
+    
+    private final MeterRegistry meterRegistry;
+    
+    public ExportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Time an in-JVM stage
+     */
+    public <T> T time(String stage, Supplier<T> step) {
+        Timer.Sample sample = start();
+        boolean success = false;
+        try {
+            T result = step.get();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, stage, success);
+        }
+    }
+    
+    /**
+     * Start timing a stage that is stopped explicitly with {@link #stop}
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+    
+    public void stop(Timer.Sample sample, String stage, boolean success) {
+        sample.stop(Timer.builder(STAGE_TIMER)
+                .description("Duration of export pipeline stages")
+                .tag("stage", stage)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
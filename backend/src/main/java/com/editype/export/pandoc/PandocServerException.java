@@ -0,0 +1,14 @@
+package com.editype.export.pandoc;
+
+import java.io.IOException;
+
+/**
+ * No pandoc-server could take a conversion, for reasons unrelated to the document.
+ * Callers fall back to the pandoc CLI.
+ */
+public class PandocServerException extends IOException {
+
+    public PandocServerException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,313 @@
+package com.editype.export.pandoc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local pandoc-server processes that the export services call over loopback HTTP,
+ * so a conversion does not pay for starting the Haskell runtime. Each instance listens on
+ * its own port from the base port; requests are spread round-robin over healthy instances,
+ * and instances that stop answering are restarted by the health check.
+ * pandoc-server has no file system access: templates and bibliographies are sent with the request.
+ */
+@Slf4j
+@Component
+public class PandocServerPool {
+
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private final List<Instance> instances = new ArrayList<>();
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    @Value("${export.render.pandoc.server.enabled:false}")
+    private boolean enabled;
+
+    @Value("${export.render.pandoc.server.instances:2}")
+    private int instanceCount;
+
+    @Value("${export.render.pandoc.server.command:pandoc server}")
+    private String command;
+
+    @Value("${export.render.pandoc.server.base-port:3030}")
+    private int basePort;
+
+    @Value("${export.render.pandoc.server.startup-timeout-seconds:10}")
+    private long startupTimeoutSeconds;
+
+    @Value("${export.render.pandoc.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    private volatile boolean started;
+
+    // Restarts poll for up to the startup timeout, so they stay off the shared scheduler thread
+    private ExecutorService restarter;
+
+    /**
+     * One pandoc-server process and the port it listens on
+     */
+    private static final class Instance {
+        private final int port;
+        private volatile Process process;
+        private volatile boolean healthy;
+        private volatile boolean restarting;
+
+        private Instance(int port) {
+            this.port = port;
+        }
+    }
+
+    public PandocServerPool(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start the servers once the application is up; if none comes up, exports keep using the CLI
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < instanceCount; i++) {
+            Instance instance = new Instance(basePort + i);
+            instances.add(instance);
+            launch(instance);
+        }
+        Gauge.builder("editype.render.pandoc.servers", instances,
+                        list -> list.stream().filter(instance -> instance.healthy).count())
+                .description("Healthy pandoc-server instances")
+                .register(meterRegistry);
+
+        // If no instance comes up (e.g. pandoc built without server support) the pool stays off
+        started = instances.stream().anyMatch(instance -> instance.healthy);
+        if (!started) {
+            log.warn("pandoc-server unavailable, conversions use the pandoc CLI");
+            instances.forEach(this::stop);
+        } else {
+            restarter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pandoc-server-restarter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            log.info("pandoc-server pool: instances={}, ports {}-{}", instanceCount, basePort,
+                    basePort + instanceCount - 1);
+        }
+    }
+
+    /**
+     * Whether at least one server can take requests
+     */
+    public boolean isAvailable() {
+        return started && instances.stream().anyMatch(instance -> instance.healthy);
+    }
+
+    /**
+     * Convert with pandoc-server. The request uses the pandoc-server JSON fields
+     * (text, from, to, standalone, template, citeproc, bibliography, files).
+     * Binary outputs such as DOCX are returned decoded.
+     * Throws {@link PandocServerException} if no server could take the request, so the caller can use the CLI.
+     */
+    public byte[] convert(Map<String, Object> request) throws IOException, InterruptedException {
+        Instance instance = pickInstance();
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + instance.port + "/"))
+                .timeout(Duration.ofSeconds(timeoutSeconds + 5))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                .build();
+
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (HttpTimeoutException e) {
+            throw new IOException("pandoc-server timed out after " + timeoutSeconds + "s");
+        } catch (ConnectException e) {
+            markUnhealthy(instance);
+            throw new PandocServerException("pandoc-server on port " + instance.port + " is not answering");
+        } catch (IOException e) {
+            markUnhealthy(instance);
+            throw new PandocServerException("pandoc-server on port " + instance.port + " failed: " + e.getMessage());
+        }
+
+        if (response.statusCode() != 200) {
+            throw new IOException("pandoc-server conversion failed (" + response.statusCode() + "): "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        JsonNode result = objectMapper.readTree(response.body());
+        if (result.hasNonNull("error")) {
+            throw new IOException("pandoc-server conversion failed: " + result.get("error").asText());
+        }
+        for (JsonNode message : result.path("messages")) {
+            log.debug("pandoc-server: {}", message);
+        }
+        String output = result.path("output").asText();
+        return result.path("base64").asBoolean()
+                ? Base64.getDecoder().decode(output)
+                : output.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restart servers that stopped answering
+     */
+    @Scheduled(fixedDelayString = "${export.render.pandoc.server.health-interval-ms:30000}")
+    public void checkHealth() {
+        if (!started) {
+            return;
+        }
+        for (Instance instance : instances) {
+            if (!instance.restarting && !ping(instance)) {
+                log.warn("pandoc-server on port {} not answering, restarting", instance.port);
+                markUnhealthy(instance);
+                restartLater(instance);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        started = false;
+        if (restarter != null) {
+            restarter.shutdownNow();
+        }
+        instances.forEach(this::stop);
+    }
+
+    /**
+     * Restart an instance off the scheduler thread; a failed restart is retried by the next health check
+     */
+    private void restartLater(Instance instance) {
+        instance.restarting = true;
+        try {
+            restarter.execute(() -> {
+                try {
+                    if (started) {
+                        launch(instance);
+                    }
+                } finally {
+                    instance.restarting = false;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            instance.restarting = false;
+        }
+    }
+
+    private Instance pickInstance() throws PandocServerException {
+        int size = instances.size();
+        int first = Math.floorMod(nextInstance.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Instance instance = instances.get((first + i) % size);
+            if (instance.healthy) {
+                return instance;
+            }
+        }
+        throw new PandocServerException("No pandoc-server running");
+    }
+
+    private synchronized void launch(Instance instance) {
+        stop(instance);
+        List<String> args = new ArrayList<>(List.of(command.trim().split("\\s+")));
+        args.addAll(List.of("--port", Integer.toString(instance.port),
+                "--timeout", Long.toString(timeoutSeconds)));
+        try {
+            ProcessBuilder pb = new ProcessBuilder(args);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            instance.process = pb.start();
+        } catch (IOException e) {
+            log.warn("Could not start pandoc-server on port {}: {}", instance.port, e.getMessage());
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(startupTimeoutSeconds);
+        while (System.nanoTime() < deadline && instance.process.isAlive()) {
+            if (ping(instance)) {
+                instance.healthy = true;
+                return;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.warn("pandoc-server on port {} did not start", instance.port);
+        stop(instance);
+    }
+
+    private boolean ping(Instance instance) {
+        Process process = instance.process;
+        if (process == null || !process.isAlive()) {
+            return false;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + instance.port + "/version"))
+                .timeout(HEALTH_TIMEOUT)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void markUnhealthy(Instance instance) {
+        if (instance.healthy) {
+            instance.healthy = false;
+            Counter.builder("editype.render.pandoc.server.failures")
+                    .description("pandoc-server instances found not answering")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private void stop(Instance instance) {
+        instance.healthy = false;
+        Process process = instance.process;
+        if (process != null) {
+            process.destroyForcibly();
+            instance.process = null;
+        }
+    }
+}
@@ -1,72 +1,43 @@
 package com.editype.export.pandoc;
 
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.render.RenderEngine;
+import com.editype.export.render.RenderExecutor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Service for exporting documents using Pandoc
  * Requires Pandoc to be installed on the system
+ * DOCX is written in-process by DocxExportService
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PandocService {
     
-    /**
-     * Export HTML to DOCX using Pandoc
-     */
-    public byte[] exportToDocx(String html, String title) throws IOException, InterruptedException {
-        // Create temporary files
-        Path tempHtml = Files.createTempFile("article", ".html");
-        Path tempDocx = Files.createTempFile("article", ".docx");
-        
-        try {
-            // Write HTML to temp file
-            Files.writeString(tempHtml, wrapHtml(html, title));
-            
-            // Execute Pandoc
-            ProcessBuilder pb = new ProcessBuilder(
-                "pandoc",
-                tempHtml.toString(),
-                "-o", tempDocx.toString(),
-                "--from", "html",
-                "--to", "docx",
-                "--standalone"
-            );
-            
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode != 0) {
-                String error = new String(process.getErrorStream().readAllBytes());
-                log.error("Pandoc failed: {}", error);
-                throw new RuntimeException("Pandoc export failed: " + error);
-            }
-            
-            // Read result
-            return Files.readAllBytes(tempDocx);
-            
-        } finally {
-            // Cleanup
-            Files.deleteIfExists(tempHtml);
-            Files.deleteIfExists(tempDocx);
-        }
-    }
+    private final RenderExecutor renderExecutor;
     
     /**
      * Export HTML to PDF using Pandoc + wkhtmltopdf
+     * Stays on the CLI: pandoc-server cannot run external PDF engines
+     * The returned artifact owns its work directory and must be closed by the caller
      */
-    public byte[] exportToPdf(String html, String title) throws IOException, InterruptedException {
-        Path tempHtml = Files.createTempFile("article", ".html");
-        Path tempPdf = Files.createTempFile("article", ".pdf");
+    public ExportArtifact exportToPdf(String html, String title) throws IOException, InterruptedException {
+        Path workDir = Files.createTempDirectory("pandoc-export-");
+        Path tempHtml = workDir.resolve("article.html");
+        Path tempPdf = workDir.resolve("article.pdf");
         
         try {
             Files.writeString(tempHtml, wrapHtml(html, title));
             
-            ProcessBuilder pb = new ProcessBuilder(
+            List<String> command = List.of(
                 "pandoc",
                 tempHtml.toString(),
                 "-o", tempPdf.toString(),
@@ -75,20 +46,13 @@ public class PandocService {
                 "--pdf-engine=wkhtmltopdf"
             );
             
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode != 0) {
-                String error = new String(process.getErrorStream().readAllBytes());
-                log.error("Pandoc PDF failed: {}", error);
-                throw new RuntimeException("PDF export failed: " + error);
-            }
+            renderExecutor.runCommand(RenderEngine.PANDOC, command, workDir);
             
-            return Files.readAllBytes(tempPdf);
+            return ExportArtifact.temporary(tempPdf, workDir);
             
-        } finally {
-            Files.deleteIfExists(tempHtml);
-            Files.deleteIfExists(tempPdf);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            ExportArtifact.deleteDirectory(workDir);
+            throw e;
         }
     }
     
@@ -108,7 +72,7 @@ public class PandocService {
     /**
      * Wrap HTML content in complete document
      */
-    private String wrapHtml(String content, String title) {
+    String wrapHtml(String content, String title) {
         return String.format("""
             <!DOCTYPE html>
             <html>
@@ -0,0 +1,173 @@
+package com.editype.export.prosemirror;
+
+import com.editype.export.docx.DocxNumbering;
+import com.editype.export.docx.DocxStyles;
+import com.editype.export.docx.DocxWriter;
+import com.editype.export.docx.LatexToOmml;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders ProseMirror documents as the body of a WordprocessingML document.
+ * Blocks map to the paragraph styles of {@link DocxStyles}, lists to {@link DocxNumbering},
+ * and math to Office Math, so formulas stay editable in Word.
+ */
+public class PmDocxRenderer extends PmRenderer {
+
+    private final DocxNumbering numbering;
+
+    // Marks of the text being rendered, innermost last
+    private final List<String> marks = new ArrayList<>();
+
+    private int listNumId;
+
+    public PmDocxRenderer(DocxNumbering numbering) {
+        this.numbering = numbering;
+    }
+
+    @Override
+    public PmRenderer begin(Appendable target) {
+        marks.clear();
+        listNumId = 0;
+        return super.begin(target);
+    }
+
+    @Override
+    protected boolean openBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> openParagraph(DocxStyles.headingStyle(PmNode.intAttr(attrs, "level", 1)));
+            case "paragraph" -> openParagraph(DocxStyles.NORMAL);
+            case "bulletList" -> listNumId = DocxNumbering.BULLET_LIST;
+            case "orderedList" -> listNumId = numbering.orderedList(PmNode.intAttr(attrs, "start", PmNode.intAttr(attrs, "order", 1)));
+            case "codeBlock" -> openParagraph(DocxStyles.CODE);
+            case "blockquote" -> openParagraph(DocxStyles.QUOTE);
+            case "math_inline" -> {
+                if (!attrs.isEmpty()) {
+                    openParagraph(DocxStyles.NORMAL);
+                    inlineMath(PmNode.stringAttr(attrs, "latex"));
+                    out.append("</w:p>");
+                }
+            }
+            case "math_display" -> {
+                if (!attrs.isEmpty()) {
+                    openParagraph(DocxStyles.NORMAL);
+                    out.append("<m:oMathPara><m:oMath>")
+                            .append(LatexToOmml.convert(PmNode.stringAttr(attrs, "latex")))
+                            .append("</m:oMath></m:oMathPara></w:p>");
+                }
+            }
+            case "horizontalRule" -> out.append("<w:p><w:pPr><w:pBdr>")
+                    .append("<w:bottom w:val=\"single\" w:sz=\"6\" w:space=\"1\" w:color=\"auto\"/>")
+                    .append("</w:pBdr></w:pPr></w:p>");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void closeBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading", "paragraph", "codeBlock", "blockquote" -> out.append("</w:p>");
+            case "bulletList", "orderedList" -> listNumId = 0;
+            default -> { }
+        }
+    }
+
+    @Override
+    protected void openListItem(String listType) throws IOException {
+        out.append("<w:p>");
+        DocxWriter.paragraphProperties(out, DocxStyles.LIST_PARAGRAPH, listNumId);
+    }
+
+    @Override
+    protected void closeListItem(String listType) throws IOException {
+        out.append("</w:p>");
+    }
+
+    @Override
+    protected void openMark(String markType) {
+        marks.add(markType);
+    }
+
+    @Override
+    protected void closeMark(String markType) {
+        marks.remove(markType);
+    }
+
+    @Override
+    protected void inlineText(String text) throws IOException {
+        out.append("<w:r>");
+        runProperties();
+        out.append("<w:t xml:space=\"preserve\">");
+        DocxWriter.escape(text, out);
+        out.append("</w:t></w:r>");
+    }
+
+    @Override
+    protected void verbatimText(String text) throws IOException {
+        // Code blocks keep their lines within one paragraph
+        out.append("<w:r>");
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; end = text.indexOf('\n', start)) {
+            verbatimLine(text.substring(start, end));
+            out.append("<w:br/>");
+            start = end + 1;
+        }
+        verbatimLine(text.substring(start));
+        out.append("</w:r>");
+    }
+
+    private void verbatimLine(String line) throws IOException {
+        if (!line.isEmpty()) {
+            out.append("<w:t xml:space=\"preserve\">");
+            DocxWriter.escape(line, out);
+            out.append("</w:t>");
+        }
+    }
+
+    @Override
+    protected void inlineMath(String latex) throws IOException {
+        out.append("<m:oMath>").append(LatexToOmml.convert(latex)).append("</m:oMath>");
+    }
+
+    private void openParagraph(String styleId) throws IOException {
+        out.append("<w:p>");
+        DocxWriter.paragraphProperties(out, styleId, 0);
+    }
+
+    /**
+     * Run properties for the active marks, in schema order
+     */
+    private void runProperties() throws IOException {
+        if (marks.isEmpty()) {
+            return;
+        }
+        out.append("<w:rPr>");
+        if (marks.contains("code")) {
+            out.append("<w:rFonts w:ascii=\"Courier New\" w:hAnsi=\"Courier New\" w:cs=\"Courier New\"/>");
+        }
+        if (marks.contains("bold")) {
+            out.append("<w:b/>");
+        }
+        if (marks.contains("italic")) {
+            out.append("<w:i/>");
+        }
+        if (marks.contains("strike")) {
+            out.append("<w:strike/>");
+        }
+        if (marks.contains("underline") || marks.contains("link")) {
+            out.append("<w:u w:val=\"single\"/>");
+        }
+        if (marks.contains("superscript")) {
+            out.append("<w:vertAlign w:val=\"superscript\"/>");
+        } else if (marks.contains("subscript")) {
+            out.append("<w:vertAlign w:val=\"subscript\"/>");
+        }
+        out.append("</w:rPr>");
+    }
+}
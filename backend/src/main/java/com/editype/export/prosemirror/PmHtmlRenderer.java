@@ -0,0 +1,116 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Renders ProseMirror documents as HTML for the Vivliostyle pipeline
+ */
+public class PmHtmlRenderer extends PmRenderer {
+    
+    @Override
+    protected boolean openBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> out.append("<h").append(Integer.toString(PmNode.intAttr(attrs, "level", 1))).append('>');
+            case "paragraph" -> out.append("<p>");
+            case "bulletList" -> out.append("<ul>\n");
+            case "orderedList" -> out.append("<ol>\n");
+            case "codeBlock" -> out.append("<pre><code>");
+            case "blockquote" -> out.append("<blockquote>");
+            case "math_inline" -> {
+                if (!attrs.isEmpty()) {
+                    inlineMath(PmNode.stringAttr(attrs, "latex"));
+                }
+            }
+            case "math_display" -> {
+                if (!attrs.isEmpty()) {
+                    out.append("<div class=\"math-display\">$$");
+                    escape(PmNode.stringAttr(attrs, "latex"));
+                    out.append("$$</div>\n");
+                }
+            }
+            case "horizontalRule" -> out.append("<hr />\n");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    protected void closeBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> out.append("</h").append(Integer.toString(PmNode.intAttr(attrs, "level", 1))).append(">\n");
+            case "paragraph" -> out.append("</p>\n");
+            case "bulletList" -> out.append("</ul>\n");
+            case "orderedList" -> out.append("</ol>\n");
+            case "codeBlock" -> out.append("</code></pre>\n");
+            case "blockquote" -> out.append("</blockquote>\n");
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void openListItem(String listType) throws IOException {
+        out.append("  <li>");
+    }
+    
+    @Override
+    protected void closeListItem(String listType) throws IOException {
+        out.append("</li>\n");
+    }
+    
+    @Override
+    protected void openMark(String markType) throws IOException {
+        switch (markType) {
+            case "bold" -> out.append("<strong>");
+            case "italic" -> out.append("<em>");
+            case "code" -> out.append("<code>");
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void closeMark(String markType) throws IOException {
+        switch (markType) {
+            case "bold" -> out.append("</strong>");
+            case "italic" -> out.append("</em>");
+            case "code" -> out.append("</code>");
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void inlineText(String text) throws IOException {
+        escape(text);
+    }
+    
+    @Override
+    protected void inlineMath(String latex) throws IOException {
+        out.append('$');
+        escape(latex);
+        out.append('$');
+    }
+    
+    /**
+     * Append text with HTML special characters escaped, without intermediate strings
+     */
+    private void escape(String text) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(text, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, text.length());
+    }
+}
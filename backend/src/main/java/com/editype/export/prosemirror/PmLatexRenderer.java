@@ -0,0 +1,111 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Renders ProseMirror documents directly as a LaTeX body fragment
+ */
+public class PmLatexRenderer extends PmRenderer {
+    
+    @Override
+    protected boolean openBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> out.append(sectionCommand(PmNode.intAttr(attrs, "level", 1))).append('{');
+            case "paragraph" -> { }
+            case "bulletList" -> out.append("\\begin{itemize}\n");
+            case "orderedList" -> out.append("\\begin{enumerate}\n");
+            case "codeBlock" -> out.append("\\begin{verbatim}\n");
+            case "blockquote" -> out.append("\\begin{quote}\n");
+            case "math_inline" -> {
+                if (!attrs.isEmpty()) {
+                    inlineMath(PmNode.stringAttr(attrs, "latex"));
+                }
+            }
+            case "math_display" -> {
+                if (!attrs.isEmpty()) {
+                    out.append("\\[\n").append(PmNode.stringAttr(attrs, "latex")).append("\n\\]\n\n");
+                }
+            }
+            case "horizontalRule" -> out.append("\\noindent\\rule{\\linewidth}{0.4pt}\n\n");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    protected void closeBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> out.append("}\n\n");
+            case "paragraph" -> out.append("\n\n");
+            case "bulletList" -> out.append("\\end{itemize}\n\n");
+            case "orderedList" -> out.append("\\end{enumerate}\n\n");
+            case "codeBlock" -> out.append("\n\\end{verbatim}\n\n");
+            case "blockquote" -> out.append("\n\\end{quote}\n\n");
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void openListItem(String listType) throws IOException {
+        out.append("  \\item ");
+    }
+    
+    @Override
+    protected void closeListItem(String listType) throws IOException {
+        out.append('\n');
+    }
+    
+    @Override
+    protected void openMark(String markType) throws IOException {
+        switch (markType) {
+            case "bold" -> out.append("\\textbf{");
+            case "italic" -> out.append("\\emph{");
+            case "code" -> out.append("\\texttt{");
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void closeMark(String markType) throws IOException {
+        switch (markType) {
+            case "bold", "italic", "code" -> out.append('}');
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void inlineText(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\textbackslash{}");
+                case '~' -> out.append("\\textasciitilde{}");
+                case '^' -> out.append("\\textasciicircum{}");
+                case '&', '%', '$', '#', '_', '{', '}' -> out.append('\\').append(c);
+                default -> out.append(c);
+            }
+        }
+    }
+    
+    @Override
+    protected void verbatimText(String text) throws IOException {
+        out.append(text);
+    }
+    
+    @Override
+    protected void inlineMath(String latex) throws IOException {
+        out.append('$').append(latex).append('$');
+    }
+    
+    private static String sectionCommand(int level) {
+        return switch (level) {
+            case 1 -> "\\section";
+            case 2 -> "\\subsection";
+            case 3 -> "\\subsubsection";
+            default -> "\\paragraph";
+        };
+    }
+}
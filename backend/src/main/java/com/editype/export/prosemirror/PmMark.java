@@ -0,0 +1,13 @@
+package com.editype.export.prosemirror;
+
+import java.util.Map;
+
+/**
+ * ProseMirror mark (bold, italic, code, link, ...) attached to a text node
+ */
+public record PmMark(String type, Map<String, Object> attrs) {
+    
+    public PmMark {
+        attrs = PmNode.immutableAttrs(attrs);
+    }
+}
@@ -0,0 +1,153 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Renders ProseMirror documents as Pandoc Markdown for the LaTeX pipeline
+ */
+public class PmMarkdownRenderer extends PmRenderer {
+    
+    private static final String TABLE_PLACEHOLDER =
+            "\n| Column 1 | Column 2 |\n|----------|----------|\n| Cell 1   | Cell 2   |\n\n";
+    
+    private Appendable blockOut;
+    private int listIndex;
+    
+    @Override
+    protected boolean openBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading" -> out.append("#".repeat(Math.max(1, PmNode.intAttr(attrs, "level", 1)))).append(' ');
+            case "paragraph" -> { }
+            case "bulletList", "orderedList" -> listIndex = 0;
+            case "codeBlock" -> out.append("```\n");
+            case "blockquote" -> {
+                out.append("> ");
+                blockOut = out;
+                out = new LinePrefixAppendable(blockOut, "> ");
+            }
+            case "math_inline" -> {
+                if (!attrs.isEmpty()) {
+                    inlineMath(PmNode.stringAttr(attrs, "latex"));
+                }
+            }
+            case "math_display" -> {
+                if (!attrs.isEmpty()) {
+                    out.append("\n$$\n").append(PmNode.stringAttr(attrs, "latex")).append("\n$$\n\n");
+                }
+            }
+            case "table" -> {
+                // Simplified table conversion
+                out.append(TABLE_PLACEHOLDER);
+                return false;
+            }
+            case "horizontalRule" -> out.append("\n---\n\n");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    protected void closeBlock(String type, Map<String, Object> attrs) throws IOException {
+        switch (type) {
+            case "heading", "paragraph" -> out.append("\n\n");
+            case "bulletList", "orderedList" -> out.append('\n');
+            case "codeBlock" -> out.append("\n```\n\n");
+            case "blockquote" -> {
+                out = blockOut;
+                blockOut = null;
+                out.append("\n\n");
+            }
+            default -> { }
+        }
+    }
+    
+    @Override
+    protected void openListItem(String listType) throws IOException {
+        if ("orderedList".equals(listType)) {
+            out.append(Integer.toString(++listIndex)).append(". ");
+        } else {
+            out.append("- ");
+        }
+    }
+    
+    @Override
+    protected void closeListItem(String listType) throws IOException {
+        out.append('\n');
+    }
+    
+    @Override
+    protected void openMark(String markType) throws IOException {
+        String delimiter = delimiter(markType);
+        if (delimiter != null) {
+            out.append(delimiter);
+        }
+    }
+    
+    @Override
+    protected void closeMark(String markType) throws IOException {
+        openMark(markType);
+    }
+    
+    @Override
+    protected void inlineText(String text) throws IOException {
+        out.append(text);
+    }
+    
+    @Override
+    protected void inlineMath(String latex) throws IOException {
+        out.append('$').append(latex).append('$');
+    }
+    
+    private static String delimiter(String markType) {
+        return switch (markType) {
+            case "bold" -> "**";
+            case "italic" -> "*";
+            case "code" -> "`";
+            default -> null;
+        };
+    }
+    
+    /**
+     * Prefixes every new line written through it, used for blockquotes
+     */
+    private static final class LinePrefixAppendable implements Appendable {
+        
+        private final Appendable delegate;
+        private final String prefix;
+        
+        private LinePrefixAppendable(Appendable delegate, String prefix) {
+            this.delegate = delegate;
+            this.prefix = prefix;
+        }
+        
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+        
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            int from = start;
+            for (int i = start; i < end; i++) {
+                if (csq.charAt(i) == '\n') {
+                    delegate.append(csq, from, i + 1).append(prefix);
+                    from = i + 1;
+                }
+            }
+            delegate.append(csq, from, end);
+            return this;
+        }
+        
+        @Override
+        public Appendable append(char c) throws IOException {
+            delegate.append(c);
+            if (c == '\n') {
+                delegate.append(prefix);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable ProseMirror node, as stored in Article.pmJson
+ */
+public record PmNode(String type, Map<String, Object> attrs, List<PmNode> content, List<PmMark> marks, String text) {
+    
+    public PmNode {
+        attrs = immutableAttrs(attrs);
+        content = content != null ? List.copyOf(content) : List.of();
+        marks = marks != null ? List.copyOf(marks) : List.of();
+    }
+    
+    public boolean isText() {
+        return "text".equals(type);
+    }
+    
+    /**
+     * Walk this node and its descendants in document order
+     */
+    public void accept(PmVisitor visitor) throws IOException {
+        if (isText()) {
+            visitor.text(text != null ? text : "", marks);
+            return;
+        }
+        visitor.enterNode(type, attrs);
+        for (PmNode child : content) {
+            child.accept(visitor);
+        }
+        visitor.exitNode(type, attrs);
+    }
+    
+    /**
+     * Read an integer attribute, tolerating numbers stored as strings
+     */
+    public static int intAttr(Map<String, Object> attrs, String name, int defaultValue) {
+        Object value = attrs.get(name);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String string) {
+            try {
+                return Integer.parseInt(string.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+    
+    /**
+     * Read a string attribute, empty when absent
+     */
+    public static String stringAttr(Map<String, Object> attrs, String name) {
+        Object value = attrs.get(name);
+        return value != null ? value.toString() : "";
+    }
+    
+    // Map.copyOf rejects null values, which ProseMirror attrs use freely
+    static Map<String, Object> immutableAttrs(Map<String, Object> attrs) {
+        if (attrs == null || attrs.isEmpty()) {
+            return Map.of();
+        }
+        return Collections.unmodifiableMap(new LinkedHashMap<>(attrs));
+    }
+}
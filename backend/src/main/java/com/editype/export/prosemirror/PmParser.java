@@ -0,0 +1,168 @@
+package com.editype.export.prosemirror;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads ProseMirror JSON either into the typed {@link PmNode} tree or as a token stream
+ * replayed straight into a {@link PmVisitor}
+ */
+@Component
+public class PmParser {
+    
+    private static final TypeReference<Map<String, Object>> ATTRS_TYPE = new TypeReference<>() {};
+    
+    private final ObjectMapper objectMapper;
+    
+    public PmParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Parse a ProseMirror document
+     */
+    public PmNode parse(String pmJson) throws IOException {
+        return toNode(objectMapper.readTree(pmJson));
+    }
+    
+    /**
+     * Feed a ProseMirror document to the visitor while reading it.
+     * Memory stays proportional to nesting depth as long as nodes use ProseMirror's canonical
+     * key order (type and attrs before content); a node whose content precedes its type is
+     * buffered as a subtree and replayed.
+     */
+    public void stream(String pmJson, PmVisitor visitor) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(pmJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "ProseMirror document must be a JSON object");
+            }
+            streamNode(parser, visitor);
+        }
+    }
+    
+    private void streamNode(JsonParser parser, PmVisitor visitor) throws IOException {
+        String type = null;
+        Map<String, Object> attrs = Map.of();
+        List<PmMark> marks = List.of();
+        String text = null;
+        boolean entered = false;
+        List<PmNode> buffered = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            switch (field) {
+                case "type" -> type = parser.getValueAsString();
+                case "attrs" -> attrs = readAttrs(parser, value);
+                case "text" -> text = parser.getValueAsString();
+                case "marks" -> marks = readMarks(parser, value);
+                case "content" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    } else if (type != null && !entered && !"text".equals(type)) {
+                        entered = true;
+                        visitor.enterNode(type, PmNode.immutableAttrs(attrs));
+                        streamContent(parser, visitor);
+                    } else {
+                        buffered = readContent(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        
+        if ("text".equals(type)) {
+            visitor.text(text != null ? text : "", marks);
+            return;
+        }
+        
+        Map<String, Object> nodeAttrs = PmNode.immutableAttrs(attrs);
+        if (!entered) {
+            visitor.enterNode(type, nodeAttrs);
+        }
+        if (buffered != null) {
+            for (PmNode child : buffered) {
+                child.accept(visitor);
+            }
+        }
+        visitor.exitNode(type, nodeAttrs);
+    }
+    
+    private void streamContent(JsonParser parser, PmVisitor visitor) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                streamNode(parser, visitor);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private List<PmNode> readContent(JsonParser parser) throws IOException {
+        List<PmNode> content = new ArrayList<>();
+        for (JsonNode child : (JsonNode) objectMapper.readTree(parser)) {
+            if (child.isObject()) {
+                content.add(toNode(child));
+            }
+        }
+        return content;
+    }
+    
+    private Map<String, Object> readAttrs(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Map.of();
+        }
+        return objectMapper.readValue(parser, ATTRS_TYPE);
+    }
+    
+    private List<PmMark> readMarks(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        return toMarks(objectMapper.readTree(parser));
+    }
+    
+    private PmNode toNode(JsonNode json) {
+        String type = json.path("type").asText(null);
+        
+        List<PmNode> content = new ArrayList<>();
+        for (JsonNode child : json.path("content")) {
+            if (child.isObject()) {
+                content.add(toNode(child));
+            }
+        }
+        
+        JsonNode text = json.get("text");
+        return new PmNode(type, toAttrs(json.get("attrs")), content, toMarks(json.path("marks")),
+                text != null ? text.asText() : null);
+    }
+    
+    private List<PmMark> toMarks(JsonNode json) {
+        List<PmMark> marks = new ArrayList<>();
+        for (JsonNode mark : json) {
+            marks.add(new PmMark(mark.path("type").asText(null), toAttrs(mark.get("attrs"))));
+        }
+        return marks;
+    }
+    
+    private Map<String, Object> toAttrs(JsonNode attrs) {
+        if (attrs == null || !attrs.isObject() || attrs.isEmpty()) {
+            return null;
+        }
+        return objectMapper.convertValue(attrs, ATTRS_TYPE);
+    }
+}
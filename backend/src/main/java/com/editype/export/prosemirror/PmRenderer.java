@@ -0,0 +1,146 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base for output backends driven by {@link PmVisitor} events.
+ * Top-level blocks of the document are rendered by type; everything nested inside a block is
+ * flattened to its inline text (with marks and inline math), except list items directly under a list.
+ * Output goes straight into a single {@link Appendable}, so rendering is linear in document size.
+ * Instances keep per-document state and are not thread-safe.
+ */
+public abstract class PmRenderer implements PmVisitor {
+    
+    protected Appendable out;
+    
+    private int depth;
+    private int skipDepth;
+    private String block;
+    
+    /**
+     * Render a parsed document into the given output
+     */
+    public void render(PmNode doc, Appendable target) throws IOException {
+        begin(target);
+        doc.accept(this);
+    }
+    
+    /**
+     * Reset state before a new document is fed through the visitor methods,
+     * e.g. by {@link PmParser#stream}
+     */
+    public PmRenderer begin(Appendable target) {
+        this.out = target;
+        this.depth = 0;
+        this.skipDepth = 0;
+        this.block = null;
+        return this;
+    }
+    
+    @Override
+    public final void enterNode(String type, Map<String, Object> attrs) throws IOException {
+        depth++;
+        if (skipDepth > 0 || depth == 1) {
+            return;
+        }
+        if (type == null) {
+            skipDepth = depth;
+            return;
+        }
+        
+        if (depth == 2) {
+            block = type;
+            if (!openBlock(type, attrs)) {
+                skipDepth = depth;
+            }
+        } else if (depth == 3 && isList(block)) {
+            openListItem(block);
+        } else if ("math_inline".equals(type)) {
+            inlineMath(PmNode.stringAttr(attrs, "latex"));
+        }
+    }
+    
+    @Override
+    public final void exitNode(String type, Map<String, Object> attrs) throws IOException {
+        try {
+            if (skipDepth > 0) {
+                if (skipDepth == depth) {
+                    skipDepth = 0;
+                    if (depth == 2) {
+                        block = null;
+                    }
+                }
+                return;
+            }
+            if (depth == 2) {
+                closeBlock(type, attrs);
+                block = null;
+            } else if (depth == 3 && isList(block)) {
+                closeListItem(block);
+            }
+        } finally {
+            depth--;
+        }
+    }
+    
+    @Override
+    public final void text(String text, List<PmMark> marks) throws IOException {
+        if (skipDepth > 0 || depth < 2) {
+            return;
+        }
+        if (isVerbatim(block)) {
+            verbatimText(text);
+            return;
+        }
+        for (int i = marks.size() - 1; i >= 0; i--) {
+            openMark(marks.get(i).type());
+        }
+        inlineText(text);
+        for (PmMark mark : marks) {
+            closeMark(mark.type());
+        }
+    }
+    
+    /**
+     * Type of the top-level block currently being rendered, or null between blocks
+     */
+    protected String currentBlock() {
+        return block;
+    }
+    
+    /**
+     * Open a top-level block; return false to skip the block and its content
+     */
+    protected abstract boolean openBlock(String type, Map<String, Object> attrs) throws IOException;
+    
+    protected abstract void closeBlock(String type, Map<String, Object> attrs) throws IOException;
+    
+    protected abstract void openListItem(String listType) throws IOException;
+    
+    protected abstract void closeListItem(String listType) throws IOException;
+    
+    protected abstract void openMark(String markType) throws IOException;
+    
+    protected abstract void closeMark(String markType) throws IOException;
+    
+    protected abstract void inlineText(String text) throws IOException;
+    
+    protected abstract void inlineMath(String latex) throws IOException;
+    
+    /**
+     * Text inside code blocks: marks are ignored
+     */
+    protected void verbatimText(String text) throws IOException {
+        inlineText(text);
+    }
+    
+    protected static boolean isList(String type) {
+        return "bulletList".equals(type) || "orderedList".equals(type);
+    }
+    
+    private static boolean isVerbatim(String type) {
+        return "codeBlock".equals(type);
+    }
+}
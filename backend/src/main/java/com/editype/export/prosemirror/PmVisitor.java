@@ -0,0 +1,18 @@
+package com.editype.export.prosemirror;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event-style visitor over a ProseMirror document.
+ * Element nodes produce an enter/exit pair around their children; text nodes produce a single text event.
+ */
+public interface PmVisitor {
+    
+    void enterNode(String type, Map<String, Object> attrs) throws IOException;
+    
+    void exitNode(String type, Map<String, Object> attrs) throws IOException;
+    
+    void text(String text, List<PmMark> marks) throws IOException;
+}
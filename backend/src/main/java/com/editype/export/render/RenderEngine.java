@@ -0,0 +1,42 @@
+package com.editype.export.render;
+
+/**
+ * External rendering engines that run as OS processes.
+ * Each engine gets its own bounded worker pool in {@link RenderExecutor}.
+ */
+public enum RenderEngine {
+    PANDOC("pandoc", 4, 16, 60),
+    LATEX("latex", 2, 8, 180),
+    VIVLIOSTYLE("vivliostyle", 2, 8, 180);
+
+    private final String key;
+    private final int defaultConcurrency;
+    private final int defaultQueueCapacity;
+    private final long defaultTimeoutSeconds;
+
+    RenderEngine(String key, int defaultConcurrency, int defaultQueueCapacity, long defaultTimeoutSeconds) {
+        this.key = key;
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+        this.defaultTimeoutSeconds = defaultTimeoutSeconds;
+    }
+
+    /**
+     * Property key under export.render.*
+     */
+    public String key() {
+        return key;
+    }
+
+    public int defaultConcurrency() {
+        return defaultConcurrency;
+    }
+
+    public int defaultQueueCapacity() {
+        return defaultQueueCapacity;
+    }
+
+    public long defaultTimeoutSeconds() {
+        return defaultTimeoutSeconds;
+    }
+}
@@ -0,0 +1,255 @@
+package com.editype.export.render;
+
+import com.editype.exception.ServiceOverloadedException;
+import com.editype.export.metrics.ExportMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated worker pools for external rendering processes (pandoc, xelatex, Vivliostyle).
+ * Every engine has a fixed concurrency cap and a bounded queue; when the queue is full the
+ * job is rejected with {@link ServiceOverloadedException} instead of forking another process.
+ * Callers wait at most the engine's queue wait limit plus the job's run time.
+ * Pool sizes, queue depth and queue wait time are published as metrics per engine.
+ */
+@Component
+public class RenderExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderExecutor.class);
+
+    private final Map<RenderEngine, ThreadPoolExecutor> pools = new EnumMap<>(RenderEngine.class);
+    private final Map<RenderEngine, Long> timeouts = new EnumMap<>(RenderEngine.class);
+    private final Map<RenderEngine, Long> queueWaitLimits = new EnumMap<>(RenderEngine.class);
+    private final Map<RenderEngine, Timer> queueWaits = new EnumMap<>(RenderEngine.class);
+    
+    private final ExportMetrics exportMetrics;
+
+    @Value("${export.render.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    public RenderExecutor(Environment environment, MeterRegistry meterRegistry, ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+        
+        for (RenderEngine engine : RenderEngine.values()) {
+            String prefix = "export.render." + engine.key() + ".";
+            int concurrency = environment.getProperty(prefix + "concurrency", Integer.class, engine.defaultConcurrency());
+            int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, engine.defaultQueueCapacity());
+            long timeout = environment.getProperty(prefix + "timeout-seconds", Long.class, engine.defaultTimeoutSeconds());
+            long queueWait = environment.getProperty(prefix + "queue-wait-seconds", Long.class, timeout);
+
+            ThreadPoolExecutor pool = newPool(engine, concurrency, queueCapacity);
+            pools.put(engine, pool);
+            timeouts.put(engine, timeout);
+            queueWaitLimits.put(engine, queueWait);
+            
+            new ExecutorServiceMetrics(pool, "render-" + engine.key(), Tags.of("engine", engine.key()))
+                    .bindTo(meterRegistry);
+            queueWaits.put(engine, Timer.builder("editype.render.queue.wait")
+                    .description("Time render jobs spend waiting for a worker")
+                    .tag("engine", engine.key())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            logger.info("Render pool {}: concurrency={}, queue={}, timeout={}s", engine, concurrency, queueCapacity, timeout);
+        }
+    }
+
+    /**
+     * Run a task of one engine timeout on the engine's pool and wait for its result
+     */
+    public <T> T execute(RenderEngine engine, Callable<T> task) throws IOException, InterruptedException {
+        return execute(engine, task, timeouts.get(engine));
+    }
+
+    /**
+     * Run a task on the engine's pool and wait for its result.
+     * The task is cancelled if it has not finished within the queue wait limit plus runSeconds.
+     */
+    public <T> T execute(RenderEngine engine, Callable<T> task, long runSeconds) throws IOException, InterruptedException {
+        Future<T> future;
+        long submittedAt = System.nanoTime();
+        try {
+            future = pools.get(engine).submit(() -> {
+                queueWaits.get(engine).record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Render queue for {} is full, rejecting job", engine);
+            throw new ServiceOverloadedException(
+                    "Too many concurrent " + engine.key() + " exports, please retry later", retryAfterSeconds);
+        }
+
+        long waitSeconds = queueWaitLimits.get(engine) + runSeconds;
+        try {
+            return future.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Render job for " + engine.key() + " did not finish within " + waitSeconds + "s");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Render job failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Run an external command on the engine's pool, killing the whole process tree on timeout.
+     * Returns the combined stdout/stderr of the command.
+     */
+    public String runCommand(RenderEngine engine, List<String> command, Path workingDir)
+            throws IOException, InterruptedException {
+        return executeTimed(engine, () -> runProcess(command, workingDir, timeouts.get(engine)));
+    }
+
+    /**
+     * Run an external command on the calling thread, which must be running a job of the engine's pool.
+     * Lets one job run several commands without queueing for a worker again between them.
+     */
+    public String runCommandInJob(RenderEngine engine, List<String> command, Path workingDir)
+            throws IOException, InterruptedException {
+        return runProcess(command, workingDir, timeouts.get(engine));
+    }
+
+    /**
+     * Run a task of one engine timeout on the engine's pool, timed as the engine's export stage
+     */
+    public <T> T executeTimed(RenderEngine engine, Callable<T> task) throws IOException, InterruptedException {
+        return executeTimed(engine, task, timeouts.get(engine));
+    }
+
+    /**
+     * Run a task on the engine's pool, timed as the engine's export stage
+     */
+    public <T> T executeTimed(RenderEngine engine, Callable<T> task, long runSeconds)
+            throws IOException, InterruptedException {
+        return execute(engine, () -> {
+            Timer.Sample sample = exportMetrics.start();
+            boolean success = false;
+            try {
+                T result = task.call();
+                success = true;
+                return result;
+            } finally {
+                exportMetrics.stop(sample, engine.key(), success);
+            }
+        }, runSeconds);
+    }
+
+    /**
+     * Configured time limit for one job of the engine
+     */
+    public long timeoutSeconds(RenderEngine engine) {
+        return timeouts.get(engine);
+    }
+
+    /**
+     * Jobs waiting for a worker of the given engine
+     */
+    public int queuedJobs(RenderEngine engine) {
+        return pools.get(engine).getQueue().size();
+    }
+
+    /**
+     * Jobs currently running for the given engine
+     */
+    public int activeJobs(RenderEngine engine) {
+        return pools.get(engine).getActiveCount();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pools.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    private String runProcess(List<String> command, Path workingDir, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        logger.debug("Executing command: {}", String.join(" ", command));
+
+        Path log = Files.createTempFile(workingDir, "render-", ".log");
+        Process process = null;
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(workingDir.toFile());
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(log.toFile());
+
+            process = pb.start();
+
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                killProcessTree(process);
+                throw new IOException("Command timed out after " + timeoutSeconds + "s: " + command.get(0));
+            }
+
+            // Tools may print bytes that are not valid UTF-8; decode leniently instead of failing the render
+            String output = new String(Files.readAllBytes(log), StandardCharsets.UTF_8);
+            logger.debug(output);
+
+            int exitCode = process.exitValue();
+            if (exitCode != 0) {
+                logger.error("Command failed with exit code {}: {}", exitCode, output);
+                throw new IOException("Command execution failed: " + String.join(" ", command));
+            }
+            return output;
+
+        } finally {
+            if (process != null && process.isAlive()) {
+                killProcessTree(process);
+            }
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private void killProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static ThreadPoolExecutor newPool(RenderEngine engine, int concurrency, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                concurrency, concurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "render-" + engine.key() + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
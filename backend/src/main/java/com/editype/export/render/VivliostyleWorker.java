@@ -0,0 +1,231 @@
+package com.editype.export.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One long-lived Node process running render-worker.mjs with its own headless Chromium.
+ * Requests and replies are single JSON lines over stdin/stdout; one job at a time.
+ * Not thread-safe: the pool hands a worker to one render thread at a time.
+ */
+final class VivliostyleWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(VivliostyleWorker.class);
+
+    // Put on the reply queue when stdout closes, so waiting requests fail fast; never valid JSON output
+    private static final String EOF = "\0";
+
+    private final int number;
+    private final Process process;
+    private final BufferedWriter requests;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private final ObjectMapper objectMapper;
+
+    private long nextId;
+    private int jobs;
+    private boolean broken;
+
+    private VivliostyleWorker(int number, Process process, ObjectMapper objectMapper) {
+        this.number = number;
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+        Thread reader = new Thread(this::readReplies, "vivliostyle-worker-" + number + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Start a worker and wait until its browser is up
+     */
+    static VivliostyleWorker start(int number, List<String> command, Map<String, String> environment,
+                                   ObjectMapper objectMapper, long startupTimeoutSeconds)
+            throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.environment().putAll(environment);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        VivliostyleWorker worker = new VivliostyleWorker(number, pb.start(), objectMapper);
+        try {
+            JsonNode ready = worker.awaitReply(null, TimeUnit.SECONDS.toMillis(startupTimeoutSeconds));
+            if (!ready.path("ready").asBoolean()) {
+                throw new VivliostyleWorkerException("Unexpected Vivliostyle worker greeting: " + ready);
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            worker.stop();
+            throw e;
+        }
+        logger.info("Vivliostyle worker {} started (pid {})", number, worker.process.pid());
+        return worker;
+    }
+
+    /**
+     * Render an HTML file to PDF.
+     * A failure reported by Vivliostyle leaves the worker usable; a timeout or a broken worker does not.
+     */
+    void render(Path html, Path css, Path pdf, String size, long timeoutMillis)
+            throws IOException, InterruptedException {
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("op", "render");
+        job.put("html", html.toAbsolutePath().toString());
+        job.put("css", css != null ? css.toAbsolutePath().toString() : null);
+        job.put("pdf", pdf.toAbsolutePath().toString());
+        job.put("size", size);
+        job.put("timeoutMs", timeoutMillis);
+
+        jobs++;
+        // The worker enforces the timeout itself; the margin covers writing the reply
+        JsonNode reply = request(job, timeoutMillis + 5000);
+        if (!reply.path("ok").asBoolean()) {
+            throw new IOException("Vivliostyle render failed: " + reply.path("error").asText());
+        }
+        if (!Files.exists(pdf)) {
+            throw new IOException("Vivliostyle worker produced no PDF");
+        }
+    }
+
+    /**
+     * Check that the worker answers
+     */
+    boolean ping(long timeoutMillis) {
+        try {
+            return request(Map.of("op", "ping"), timeoutMillis).path("ok").asBoolean();
+        } catch (IOException e) {
+            logger.warn("Vivliostyle worker {} failed health check: {}", number, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    boolean isUsable() {
+        return !broken && process.isAlive();
+    }
+
+    int number() {
+        return number;
+    }
+
+    int jobs() {
+        return jobs;
+    }
+
+    /**
+     * Resident memory of the Node process and its Chromium processes; -1 where /proc is unavailable
+     */
+    long residentBytes() {
+        long total = residentBytes(process.toHandle());
+        if (total < 0) {
+            return -1;
+        }
+        for (ProcessHandle child : process.descendants().toList()) {
+            total += Math.max(0, residentBytes(child));
+        }
+        return total;
+    }
+
+    /**
+     * Kill the Node process and the browser it started
+     */
+    void stop() {
+        broken = true;
+        try {
+            requests.close();
+        } catch (IOException e) {
+            // Process is being killed anyway
+        }
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private JsonNode request(Map<String, Object> message, long timeoutMillis)
+            throws IOException, InterruptedException {
+        if (!isUsable()) {
+            throw new VivliostyleWorkerException("Vivliostyle worker " + number + " is not running");
+        }
+        long id = ++nextId;
+        Map<String, Object> request = new LinkedHashMap<>(message);
+        request.put("id", id);
+        try {
+            requests.write(objectMapper.writeValueAsString(request));
+            requests.newLine();
+            requests.flush();
+        } catch (IOException e) {
+            broken = true;
+            throw new VivliostyleWorkerException("Vivliostyle worker " + number + " stopped accepting jobs");
+        }
+        return awaitReply(id, timeoutMillis);
+    }
+
+    private JsonNode awaitReply(Long id, long timeoutMillis) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            String line = replies.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (line == null) {
+                // A late reply would be read as the answer to the next job
+                broken = true;
+                throw new IOException("Vivliostyle worker " + number + " timed out after " + timeoutMillis + " ms");
+            }
+            if (line.equals(EOF)) {
+                broken = true;
+                throw new VivliostyleWorkerException("Vivliostyle worker " + number + " exited");
+            }
+            JsonNode reply;
+            try {
+                reply = objectMapper.readTree(line);
+            } catch (IOException e) {
+                logger.debug("Vivliostyle worker {}: {}", number, line);
+                continue;
+            }
+            if (id == null || reply.path("id").asLong() == id) {
+                return reply;
+            }
+        }
+    }
+
+    private void readReplies() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                replies.add(line);
+            }
+        } catch (IOException e) {
+            logger.debug("Vivliostyle worker {} output closed: {}", number, e.getMessage());
+        } finally {
+            replies.add(EOF);
+        }
+    }
+
+    private static long residentBytes(ProcessHandle handle) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(handle.pid()), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process is gone
+        }
+        return -1;
+    }
+}
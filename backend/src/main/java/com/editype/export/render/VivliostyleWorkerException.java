@@ -0,0 +1,14 @@
+package com.editype.export.render;
+
+import java.io.IOException;
+
+/**
+ * A Vivliostyle worker could not take or finish a job for reasons unrelated to the document
+ * (no worker running, process exited, broken protocol). Callers may fall back to the CLI.
+ */
+public class VivliostyleWorkerException extends IOException {
+
+    public VivliostyleWorkerException(String message) {
+        super(message);
+    }
+}
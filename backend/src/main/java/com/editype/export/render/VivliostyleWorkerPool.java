@@ -0,0 +1,260 @@
+package com.editype.export.render;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of persistent Vivliostyle render workers (Node + headless Chromium), so a PDF export
+ * pays for layout only instead of a browser start. Workers are health-checked while idle and
+ * replaced after a number of jobs, when their memory grows past a limit, or when they fail.
+ * When the server mode is disabled or no worker can run, callers fall back to the CLI.
+ */
+@Component
+public class VivliostyleWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(VivliostyleWorkerPool.class);
+
+    private static final String WORKER_SCRIPT = "vivliostyle/render-worker.mjs";
+    private static final long PING_TIMEOUT_MS = 5000;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<VivliostyleWorker> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger workerNumbers = new AtomicInteger();
+
+    @Value("${export.render.vivliostyle.server.enabled:false}")
+    private boolean enabled;
+
+    @Value("${export.render.vivliostyle.server.workers:${export.render.vivliostyle.concurrency:2}}")
+    private int workers;
+
+    @Value("${export.render.vivliostyle.server.node:node}")
+    private String node;
+
+    @Value("${export.render.vivliostyle.server.node-path:/usr/local/lib/node_modules}")
+    private String nodePath;
+
+    @Value("${export.render.vivliostyle.server.browser:}")
+    private String browser;
+
+    @Value("${export.render.vivliostyle.server.max-jobs-per-worker:100}")
+    private int maxJobsPerWorker;
+
+    @Value("${export.render.vivliostyle.server.max-memory-mb:1024}")
+    private long maxMemoryMb;
+
+    @Value("${export.render.vivliostyle.server.startup-timeout-seconds:60}")
+    private long startupTimeoutSeconds;
+
+    @Value("${vivliostyle.temp.dir:/app/temp}")
+    private String tempDir;
+
+    private volatile boolean started;
+    private volatile Path script;
+    private ExecutorService starter;
+
+    public VivliostyleWorkerPool(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("editype.render.vivliostyle.workers", live, AtomicInteger::get)
+                .description("Running Vivliostyle render workers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the workers once the application is up; a failing first worker disables the server mode
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            script = extractScript();
+            addWorker();
+        } catch (IOException e) {
+            logger.warn("Vivliostyle render server unavailable, exports use the CLI: {}", e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        starter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vivliostyle-worker-starter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started = true;
+        for (int i = 1; i < workers; i++) {
+            replaceLater();
+        }
+        logger.info("Vivliostyle render server: workers={}, maxJobsPerWorker={}, maxMemory={}MB",
+                workers, maxJobsPerWorker, maxMemoryMb);
+    }
+
+    /**
+     * Whether jobs can be sent to the workers
+     */
+    public boolean isAvailable() {
+        return started && live.get() > 0;
+    }
+
+    /**
+     * Render an HTML file to PDF on an idle worker.
+     * Throws {@link VivliostyleWorkerException} if no worker could do the job, so the caller can use the CLI.
+     */
+    public void render(Path html, Path css, Path pdf, String size, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        if (!isAvailable()) {
+            throw new VivliostyleWorkerException("No Vivliostyle worker running");
+        }
+        // Render concurrency is capped at the worker count, so a busy worker frees up within one job
+        VivliostyleWorker worker = idle.poll(timeoutSeconds, TimeUnit.SECONDS);
+        if (worker == null) {
+            throw new VivliostyleWorkerException("No Vivliostyle worker available");
+        }
+        try {
+            worker.render(html, css, pdf, size, TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        } finally {
+            release(worker);
+        }
+    }
+
+    /**
+     * Ping idle workers and restart missing ones
+     */
+    @Scheduled(fixedDelayString = "${export.render.vivliostyle.server.health-interval-ms:30000}")
+    public void checkHealth() {
+        if (!started) {
+            return;
+        }
+        List<VivliostyleWorker> checked = new ArrayList<>();
+        idle.drainTo(checked);
+        for (VivliostyleWorker worker : checked) {
+            if (worker.ping(PING_TIMEOUT_MS)) {
+                release(worker);
+            } else {
+                retire(worker, "unhealthy");
+            }
+        }
+        for (int missing = workers - live.get(); missing > 0; missing--) {
+            replaceLater();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        started = false;
+        if (starter != null) {
+            starter.shutdownNow();
+        }
+        List<VivliostyleWorker> remaining = new ArrayList<>();
+        idle.drainTo(remaining);
+        remaining.forEach(VivliostyleWorker::stop);
+    }
+
+    private void release(VivliostyleWorker worker) {
+        String reason = null;
+        if (!worker.isUsable()) {
+            reason = "failed";
+        } else if (worker.jobs() >= maxJobsPerWorker) {
+            reason = "jobs";
+        } else if (worker.residentBytes() > maxMemoryMb * 1024 * 1024) {
+            reason = "memory";
+        }
+        if (reason == null && started) {
+            idle.add(worker);
+        } else {
+            retire(worker, reason != null ? reason : "shutdown");
+        }
+    }
+
+    private void retire(VivliostyleWorker worker, String reason) {
+        logger.info("Recycling Vivliostyle worker {} after {} jobs ({})", worker.number(), worker.jobs(), reason);
+        worker.stop();
+        live.decrementAndGet();
+        Counter.builder("editype.render.vivliostyle.recycled")
+                .description("Vivliostyle workers stopped and replaced")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        if (started) {
+            replaceLater();
+        }
+    }
+
+    /**
+     * Start a worker off the render thread; failures are retried by the health check
+     */
+    private void replaceLater() {
+        try {
+            starter.execute(() -> {
+                if (live.get() >= workers) {
+                    return;
+                }
+                try {
+                    addWorker();
+                } catch (IOException e) {
+                    logger.warn("Could not start Vivliostyle worker: {}", e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void addWorker() throws IOException, InterruptedException {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("NODE_PATH", nodePath);
+        if (!browser.isBlank()) {
+            environment.put("VIVLIOSTYLE_BROWSER", browser);
+        }
+        VivliostyleWorker worker = VivliostyleWorker.start(workerNumbers.incrementAndGet(),
+                List.of(node, script.toString()), environment, objectMapper, startupTimeoutSeconds);
+        live.incrementAndGet();
+        idle.add(worker);
+    }
+
+    private Path extractScript() throws IOException {
+        Path target = Path.of(tempDir, "render-worker.mjs");
+        Files.createDirectories(target.getParent());
+        try (InputStream in = new ClassPathResource(WORKER_SCRIPT).getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,172 @@
+package com.editype.export.service;
+
+import com.editype.article.entity.Article;
+import com.editype.article.entity.ArticleMetadata;
+import com.editype.article.entity.ArticleReference;
+import com.editype.export.docx.DocxNumbering;
+import com.editype.export.docx.DocxStyles;
+import com.editype.export.docx.DocxWriter;
+import com.editype.export.metrics.ExportMetrics;
+import com.editype.export.prosemirror.PmDocxRenderer;
+import com.editype.export.prosemirror.PmNode;
+import com.editype.export.prosemirror.PmParser;
+import com.editype.style.entity.ParagraphStyle;
+import com.editype.style.repository.ParagraphStyleRepository;
+import com.editype.template.entity.DocumentTemplate;
+import com.editype.template.repository.TemplateRepository;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for exporting articles to DOCX.
+ * The package is generated in the JVM and streamed straight to the client: no temp files and no
+ * external converter, so exports take milliseconds and run in parallel on the request threads.
+ * Paragraph styles come from the system paragraph styles and the article's template.
+ */
+@Service
+public class DocxExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocxExportService.class);
+
+    private final PmParser pmParser;
+    private final ParagraphStyleRepository paragraphStyleRepository;
+    private final TemplateRepository templateRepository;
+    private final ExportMetrics exportMetrics;
+
+    public DocxExportService(PmParser pmParser,
+                             ParagraphStyleRepository paragraphStyleRepository,
+                             TemplateRepository templateRepository,
+                             ExportMetrics exportMetrics) {
+        this.pmParser = pmParser;
+        this.paragraphStyleRepository = paragraphStyleRepository;
+        this.templateRepository = templateRepository;
+        this.exportMetrics = exportMetrics;
+    }
+
+    /**
+     * Write the article as a DOCX package; the stream is left open
+     */
+    public void write(Article article, String language, OutputStream target) throws IOException {
+        logger.info("Exporting article {} to DOCX in language {}", article.getId(), language);
+
+        // Parse up front so that invalid content does not leave a truncated package behind
+        PmNode doc = parse(article);
+        DocxStyles styles = loadStyles(article);
+        ArticleMetadata metadata = article.getMetadata() != null ? article.getMetadata().get(language) : null;
+        String title = metadata != null ? metadata.getTitle() : null;
+
+        Timer.Sample sample = exportMetrics.start();
+        boolean success = false;
+        try {
+            DocxWriter.write(target, title, language, styles, (body, numbering) -> {
+                writeHeader(article, metadata, body);
+                if (doc != null) {
+                    new PmDocxRenderer(numbering).render(doc, body);
+                } else {
+                    String message = article.getPmJson() == null || article.getPmJson().isEmpty()
+                            ? "No content" : "Error rendering content";
+                    DocxWriter.paragraph(body, DocxStyles.NORMAL, 0, message);
+                }
+                writeReferences(article, language, body, numbering);
+            });
+            success = true;
+        } finally {
+            exportMetrics.stop(sample, "docx", success);
+        }
+    }
+
+    private PmNode parse(Article article) {
+        String pmJson = article.getPmJson();
+        if (pmJson == null || pmJson.isEmpty()) {
+            return null;
+        }
+        try {
+            return pmParser.parse(pmJson);
+        } catch (IOException e) {
+            logger.error("Failed to parse ProseMirror JSON", e);
+            return null;
+        }
+    }
+
+    /**
+     * Defaults, overridden by the system paragraph styles and then by the article's template
+     */
+    private DocxStyles loadStyles(Article article) {
+        DocxStyles styles = DocxStyles.defaults();
+        for (ParagraphStyle style : paragraphStyleRepository.findAll()) {
+            styles.apply(style.getType(), style.getCssProperties());
+        }
+
+        if (article.getTemplateId() != null) {
+            List<DocumentTemplate.ParagraphStyle> templateStyles = templateRepository.findById(article.getTemplateId())
+                    .map(DocumentTemplate::getParagraphStyles)
+                    .orElse(List.of());
+            if (templateStyles != null) {
+                // Default styles of a type go last so they win over the alternatives
+                templateStyles.stream()
+                        .sorted(Comparator.comparing(DocumentTemplate.ParagraphStyle::isDefault)
+                                .thenComparingInt(DocumentTemplate.ParagraphStyle::getOrder))
+                        .forEach(style -> styles.apply(style.getType(), style.getCssStyles()));
+            }
+        }
+        return styles;
+    }
+
+    private void writeHeader(Article article, ArticleMetadata metadata, Appendable body) throws IOException {
+        if (metadata == null) {
+            return;
+        }
+        if (metadata.getTitle() != null && !metadata.getTitle().isEmpty()) {
+            DocxWriter.paragraph(body, DocxStyles.TITLE, 0, metadata.getTitle());
+        }
+        if (article.getDoi() != null && !article.getDoi().isEmpty()) {
+            DocxWriter.paragraph(body, DocxStyles.NORMAL, 0, "DOI: " + article.getDoi());
+        }
+        if (metadata.getAnnotation() != null && !metadata.getAnnotation().isEmpty()) {
+            DocxWriter.paragraph(body, DocxStyles.headingStyle(2), 0, "Abstract");
+            DocxWriter.paragraph(body, DocxStyles.NORMAL, 0, metadata.getAnnotation());
+        }
+        if (metadata.getKeywords() != null && !metadata.getKeywords().isEmpty()) {
+            DocxWriter.paragraph(body, DocxStyles.NORMAL, 0, "Keywords: " + metadata.getKeywords());
+        }
+    }
+
+    private void writeReferences(Article article, String language, Appendable body,
+                                 DocxNumbering numbering) throws IOException {
+        List<ArticleReference> references = article.getReferences();
+        if (references == null || references.isEmpty()) {
+            return;
+        }
+        DocxWriter.paragraph(body, DocxStyles.headingStyle(2), 0, "References");
+        int numId = numbering.orderedList(1);
+        for (ArticleReference ref : references) {
+            DocxWriter.paragraph(body, DocxStyles.LIST_PARAGRAPH, numId, formatReference(ref, language));
+        }
+    }
+
+    /**
+     * Reference text in the given language or the first available, followed by DOI and URL
+     */
+    private static String formatReference(ArticleReference ref, String language) {
+        StringBuilder formatted = new StringBuilder();
+        Map<String, String> text = ref.getText();
+        if (text != null && !text.isEmpty()) {
+            formatted.append(text.getOrDefault(language, text.values().iterator().next()));
+        }
+        if (ref.getDoi() != null && !ref.getDoi().isEmpty()) {
+            formatted.append(" DOI: ").append(ref.getDoi());
+        }
+        if (ref.getUrl() != null && !ref.getUrl().isEmpty()) {
+            formatted.append(' ').append(ref.getUrl());
+        }
+        return formatted.toString();
+    }
+}
@@ -0,0 +1,267 @@
+package com.editype.export.service;
+
+import com.editype.article.entity.Article;
+import com.editype.article.service.ArticleService;
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.metrics.ExportMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles a journal issue into one PDF.
+ * Articles are rendered in parallel by the per-article exporters, so unchanged articles come from
+ * the render cache, and the PDFs are merged in issue order.
+ * Page numbers run continuously through the issue. An article whose page range does not match its
+ * position gets the new range and is rendered again. This repeats until no page count changes.
+ */
+@Service
+public class IssueExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssueExportService.class);
+
+    // A new page range only changes the printed numbers, so the layout settles after one or two reruns
+    private static final int MAX_LAYOUT_ROUNDS = 4;
+
+    private final ArticleService articleService;
+    private final LatexExportService latexExportService;
+    private final VivliostyleExportService vivliostyleExportService;
+    private final ExportMetrics exportMetrics;
+
+    @Value("${export.issue.parallelism:4}")
+    private int parallelism;
+
+    @Value("${export.issue.max-articles:100}")
+    private int maxArticles;
+
+    @Value("${export.issue.temp-dir:/app/temp}")
+    private String tempDir;
+
+    private ExecutorService executor;
+
+    public IssueExportService(ArticleService articleService,
+                              LatexExportService latexExportService,
+                              VivliostyleExportService vivliostyleExportService,
+                              ExportMetrics exportMetrics) {
+        this.articleService = articleService;
+        this.latexExportService = latexExportService;
+        this.vivliostyleExportService = vivliostyleExportService;
+        this.exportMetrics = exportMetrics;
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "issue-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Render the articles in the given order into one PDF whose pages are numbered from firstPage.
+     * With updatePages the resulting page ranges are stored on the articles.
+     * The returned artifact owns its work directory and must be closed by the caller.
+     */
+    public ExportArtifact exportToPDF(List<String> articleIds, String engine, String language,
+                                      int firstPage, boolean updatePages) throws IOException, InterruptedException {
+        if (articleIds.size() > maxArticles) {
+            throw new IllegalArgumentException("An issue can have at most " + maxArticles + " articles");
+        }
+        if (new HashSet<>(articleIds).size() != articleIds.size()) {
+            throw new IllegalArgumentException("Article IDs must be unique");
+        }
+        if (firstPage < 1) {
+            throw new IllegalArgumentException("First page must be positive");
+        }
+        boolean latex = "latex".equalsIgnoreCase(engine);
+        if (!latex && !"vivliostyle".equalsIgnoreCase(engine)) {
+            throw new IllegalArgumentException("Unsupported engine: " + engine);
+        }
+
+        // Fail with 404 before anything is rendered
+        List<Article> articles = articleIds.stream().map(articleService::getById).toList();
+        logger.info("Compiling issue of {} articles via {} in language {}", articles.size(), engine, language);
+
+        // Renderings are copied here so that render cache eviction cannot remove them before the merge
+        Path workDir = Files.createTempDirectory(Path.of(tempDir), "issue-export-");
+        try {
+            layOut(articles, workDir, latex, language, firstPage, updatePages);
+
+            Path issueFile = workDir.resolve("issue.pdf");
+            merge(articles.size(), workDir, issueFile);
+            logger.info("Compiled issue of {} articles ({} bytes)", articles.size(), Files.size(issueFile));
+            return ExportArtifact.temporary(issueFile, workDir);
+
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            ExportArtifact.deleteDirectory(workDir);
+            throw e;
+        }
+    }
+
+    /**
+     * Render until every article carries the page range that follows from the page counts before it
+     */
+    private void layOut(List<Article> articles, Path workDir, boolean latex, String language,
+                        int firstPage, boolean updatePages) throws IOException, InterruptedException {
+        // Stored ranges predict page counts, so a reordered issue usually renders right the first time
+        int[] pages = new int[articles.size()];
+        for (int i = 0; i < pages.length; i++) {
+            Integer first = articles.get(i).getFirstPage();
+            Integer last = articles.get(i).getLastPage();
+            pages[i] = first != null && last != null && last >= first ? last - first + 1 : 0;
+        }
+        boolean[] rendered = new boolean[articles.size()];
+
+        for (int round = 1; ; round++) {
+            List<Integer> pending = new ArrayList<>();
+            int page = firstPage;
+            boolean known = true;
+            for (int i = 0; i < pages.length; i++) {
+                // Ranges after an article of unknown length have to wait for its rendering
+                known = known && pages[i] > 0;
+                if (known) {
+                    int last = page + pages[i] - 1;
+                    if (assignPages(articles.get(i), page, last, updatePages)) {
+                        rendered[i] = false;
+                    }
+                    page = last + 1;
+                }
+                if (!rendered[i]) {
+                    pending.add(i);
+                }
+            }
+            if (pending.isEmpty()) {
+                logger.debug("Issue layout settled after {} rounds", round - 1);
+                return;
+            }
+            if (round > MAX_LAYOUT_ROUNDS) {
+                throw new IOException("Issue page numbering did not settle after " + MAX_LAYOUT_ROUNDS + " rounds");
+            }
+
+            int[] counts = render(articles, pending, workDir, latex, language);
+            for (int k = 0; k < pending.size(); k++) {
+                pages[pending.get(k)] = counts[k];
+                rendered[pending.get(k)] = true;
+            }
+        }
+    }
+
+    /**
+     * Give an article its page range; returns whether it changed and the article has to be rendered again
+     */
+    private boolean assignPages(Article article, int firstPage, int lastPage, boolean updatePages) {
+        if (Objects.equals(article.getFirstPage(), firstPage) && Objects.equals(article.getLastPage(), lastPage)) {
+            return false;
+        }
+        if (updatePages) {
+            articleService.updatePages(article, firstPage, lastPage);
+        } else {
+            article.setFirstPage(firstPage);
+            article.setLastPage(lastPage);
+        }
+        return true;
+    }
+
+    /**
+     * Render the articles at the given indexes in parallel; returns their page counts
+     */
+    private int[] render(List<Article> articles, List<Integer> indexes, Path workDir,
+                         boolean latex, String language) throws IOException, InterruptedException {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i : indexes) {
+            Article article = articles.get(i);
+            Path target = articleFile(workDir, i);
+            futures.add(executor.submit(() -> {
+                ExportArtifact artifact = latex
+                        ? latexExportService.exportToPDF(article, language)
+                        : vivliostyleExportService.exportToPDF(article, language);
+                artifact.moveTo(target);
+                return countPages(target);
+            }));
+        }
+
+        // Wait for every task, so none is still writing into the work directory when it is deleted
+        int[] counts = new int[futures.size()];
+        Throwable failure = null;
+        try {
+            for (int k = 0; k < futures.size(); k++) {
+                try {
+                    counts[k] = futures.get(k).get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure != null) {
+            throw new IOException("Rendering issue article failed: " + failure.getMessage(), failure);
+        }
+        return counts;
+    }
+
+    private static Path articleFile(Path workDir, int index) {
+        return workDir.resolve("article-" + index + ".pdf");
+    }
+
+    private static int countPages(Path pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    private void merge(int articleCount, Path workDir, Path target) throws IOException {
+        Timer.Sample sample = exportMetrics.start();
+        boolean success = false;
+        try {
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (int i = 0; i < articleCount; i++) {
+                merger.addSource(articleFile(workDir, i).toFile());
+            }
+            merger.setDestinationFileName(target.toString());
+            // Spool to temp files instead of holding every article in memory
+            merger.mergeDocuments(IOUtils.createTempFileOnlyStreamCache());
+            success = true;
+        } finally {
+            exportMetrics.stop(sample, "merge", success);
+        }
+    }
+}
@@ -3,21 +3,31 @@ package com.editype.export.service;
 import com.editype.article.entity.Article;
 import com.editype.article.entity.ArticleMetadata;
 import com.editype.article.entity.ArticleReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.cache.RenderCache;
+import com.editype.export.latex.LatexCompiler;
+import com.editype.export.metrics.ExportMetrics;
+import com.editype.export.pandoc.PandocServerException;
+import com.editype.export.pandoc.PandocServerPool;
+import com.editype.export.prosemirror.PmMarkdownRenderer;
+import com.editype.export.prosemirror.PmParser;
+import com.editype.export.render.RenderEngine;
+import com.editype.export.render.RenderExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -28,7 +38,12 @@ public class LatexExportService {
     
     private static final Logger logger = LoggerFactory.getLogger(LatexExportService.class);
     
-    private final ObjectMapper objectMapper;
+    private final PmParser pmParser;
+    private final RenderCache renderCache;
+    private final RenderExecutor renderExecutor;
+    private final LatexCompiler latexCompiler;
+    private final PandocServerPool pandocServer;
+    private final ExportMetrics exportMetrics;
     
     @Value("${latex.engine:xelatex}")
     private String latexEngine;
@@ -39,71 +54,100 @@ public class LatexExportService {
     @Value("${latex.temp.dir:/app/temp}")
     private String tempDir;
     
-    public LatexExportService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public LatexExportService(PmParser pmParser, RenderCache renderCache, RenderExecutor renderExecutor,
+                              LatexCompiler latexCompiler, PandocServerPool pandocServer,
+                              ExportMetrics exportMetrics) {
+        this.pmParser = pmParser;
+        this.renderCache = renderCache;
+        this.renderExecutor = renderExecutor;
+        this.latexCompiler = latexCompiler;
+        this.pandocServer = pandocServer;
+        this.exportMetrics = exportMetrics;
     }
     
     /**
      * Export article to PDF using Pandoc + LaTeX
+     * The returned artifact owns its work directory and must be closed by the caller
      */
-    public byte[] exportToPDF(Article article, String language) throws IOException, InterruptedException {
+    public ExportArtifact exportToPDF(Article article, String language) throws IOException, InterruptedException {
         logger.info("Exporting article {} to PDF in language {}", article.getId(), language);
         
+        // 1. Convert ProseMirror JSON to Markdown
+        String markdown = exportMetrics.time("markdown", () -> convertPmJsonToMarkdown(article.getPmJson()));
+        
+        // 2. Build YAML front matter
+        String yaml = buildYamlFrontMatter(article, language);
+        
+        // 3. Combine YAML + Markdown
+        String fullMarkdown = yaml + "\n\n" + markdown;
+        
+        // 4. Build bibliography if references exist
+        String bibtex = null;
+        if (article.getReferences() != null && !article.getReferences().isEmpty()) {
+            bibtex = convertReferencesToBibTeX(article.getReferences());
+        }
+        
+        // 5. Serve from render cache when the intermediate hasn't changed
+        RenderCache.Key cacheKey = renderCache.key(article, "latex",
+                renderCache.toolVersion("pandoc"),
+                renderCache.toolVersion(latexEngine),
+                renderCache.fileFingerprint(templatePath),
+                fullMarkdown,
+                bibtex);
+        
+        Optional<Path> cached = renderCache.lookup(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Serving article {} PDF from render cache", article.getId());
+            return ExportArtifact.persistent(cached.get());
+        }
+        
         // Create temp directory for this export
         Path workDir = Files.createTempDirectory(Path.of(tempDir), "latex-export-");
         
         try {
-            // 1. Convert ProseMirror JSON to Markdown
-            String markdown = convertPmJsonToMarkdown(article.getPmJson());
-            
-            // 2. Build YAML front matter
-            String yaml = buildYamlFrontMatter(article, language);
-            
-            // 3. Combine YAML + Markdown
-            String fullMarkdown = yaml + "\n\n" + markdown;
-            
-            // 4. Write markdown to file
+            // 6. Write markdown to file
             Path mdFile = workDir.resolve("article.md");
             Files.writeString(mdFile, fullMarkdown);
             
-            // 5. Write bibliography to file if references exist
+            // 7. Write bibliography to file
             Path bibFile = null;
-            if (article.getReferences() != null && !article.getReferences().isEmpty()) {
+            if (bibtex != null) {
                 bibFile = workDir.resolve("references.bib");
-                String bibtex = convertReferencesToBibTeX(article.getReferences());
                 Files.writeString(bibFile, bibtex);
             }
             
-            // 6. Convert Markdown to LaTeX using Pandoc
+            // 8. Convert Markdown to LaTeX using Pandoc
             Path texFile = workDir.resolve("article.tex");
             convertMarkdownToLatex(mdFile, texFile, bibFile);
             
-            // 7. Compile LaTeX to PDF
+            // 9. Compile LaTeX to PDF
             Path pdfFile = workDir.resolve("article.pdf");
             compileLatexToPdf(texFile, pdfFile, workDir);
             
-            // 8. Read PDF bytes
-            byte[] pdfBytes = Files.readAllBytes(pdfFile);
+            // 10. Cache the PDF and hand it out from the work directory
+            renderCache.store(cacheKey, pdfFile);
             
-            logger.info("Successfully exported article {} to PDF ({} bytes)", article.getId(), pdfBytes.length);
-            return pdfBytes;
+            logger.info("Successfully exported article {} to PDF ({} bytes)", article.getId(), Files.size(pdfFile));
+            return ExportArtifact.temporary(pdfFile, workDir);
             
-        } finally {
+        } catch (IOException | InterruptedException | RuntimeException e) {
             // Cleanup temp directory
-            cleanupDirectory(workDir);
+            ExportArtifact.deleteDirectory(workDir);
+            throw e;
         }
     }
     
     /**
      * Export article to LaTeX source
+     * The returned artifact owns its work directory and must be closed by the caller
      */
-    public byte[] exportToLatex(Article article, String language) throws IOException, InterruptedException {
+    public ExportArtifact exportToLatex(Article article, String language) throws IOException, InterruptedException {
         logger.info("Exporting article {} to LaTeX source in language {}", article.getId(), language);
         
         Path workDir = Files.createTempDirectory(Path.of(tempDir), "latex-source-");
         
         try {
-            String markdown = convertPmJsonToMarkdown(article.getPmJson());
+            String markdown = exportMetrics.time("markdown", () -> convertPmJsonToMarkdown(article.getPmJson()));
             String yaml = buildYamlFrontMatter(article, language);
             String fullMarkdown = yaml + "\n\n" + markdown;
             
@@ -120,176 +164,36 @@ public class LatexExportService {
             Path texFile = workDir.resolve("article.tex");
             convertMarkdownToLatex(mdFile, texFile, bibFile);
             
-            return Files.readAllBytes(texFile);
+            return ExportArtifact.temporary(texFile, workDir);
             
-        } finally {
-            cleanupDirectory(workDir);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            ExportArtifact.deleteDirectory(workDir);
+            throw e;
         }
     }
     
     /**
      * Convert ProseMirror JSON to Markdown
      */
-    private String convertPmJsonToMarkdown(String pmJson) {
+    String convertPmJsonToMarkdown(String pmJson) {
         if (pmJson == null || pmJson.isEmpty()) {
             return "";
         }
         
         try {
-            Map<String, Object> doc = objectMapper.readValue(pmJson, Map.class);
-            return proseMirrorToMarkdown(doc);
+            StringBuilder markdown = new StringBuilder(pmJson.length() / 2);
+            pmParser.stream(pmJson, new PmMarkdownRenderer().begin(markdown));
+            return markdown.toString();
         } catch (IOException e) {
             logger.error("Failed to parse ProseMirror JSON", e);
             return "";
         }
     }
     
-    /**
-     * Recursive conversion of ProseMirror nodes to Markdown
-     */
-    @SuppressWarnings("unchecked")
-    private String proseMirrorToMarkdown(Map<String, Object> node) {
-        StringBuilder markdown = new StringBuilder();
-        String type = (String) node.get("type");
-        
-        if (type == null) return "";
-        
-        switch (type) {
-            case "doc":
-                List<Map<String, Object>> content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    for (Map<String, Object> child : content) {
-                        markdown.append(proseMirrorToMarkdown(child));
-                    }
-                }
-                break;
-                
-            case "heading":
-                Map<String, Object> attrs = (Map<String, Object>) node.get("attrs");
-                int level = attrs != null ? ((Number) attrs.get("level")).intValue() : 1;
-                markdown.append("#".repeat(level)).append(" ");
-                markdown.append(getTextContent(node)).append("\n\n");
-                break;
-                
-            case "paragraph":
-                markdown.append(getTextContent(node)).append("\n\n");
-                break;
-                
-            case "bulletList":
-                content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    for (Map<String, Object> item : content) {
-                        markdown.append("- ").append(getTextContent(item)).append("\n");
-                    }
-                    markdown.append("\n");
-                }
-                break;
-                
-            case "orderedList":
-                content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    int i = 1;
-                    for (Map<String, Object> item : content) {
-                        markdown.append(i++).append(". ").append(getTextContent(item)).append("\n");
-                    }
-                    markdown.append("\n");
-                }
-                break;
-                
-            case "codeBlock":
-                markdown.append("```\n");
-                markdown.append(getTextContent(node));
-                markdown.append("\n```\n\n");
-                break;
-                
-            case "blockquote":
-                String quote = getTextContent(node);
-                markdown.append("> ").append(quote.replace("\n", "\n> ")).append("\n\n");
-                break;
-                
-            case "math_inline":
-                attrs = (Map<String, Object>) node.get("attrs");
-                if (attrs != null) {
-                    String latex = (String) attrs.get("latex");
-                    markdown.append("$").append(latex).append("$");
-                }
-                break;
-                
-            case "math_display":
-                attrs = (Map<String, Object>) node.get("attrs");
-                if (attrs != null) {
-                    String latex = (String) attrs.get("latex");
-                    markdown.append("\n$$\n").append(latex).append("\n$$\n\n");
-                }
-                break;
-                
-            case "table":
-                markdown.append(convertTableToMarkdown((Map<String, Object>) node));
-                break;
-                
-            case "horizontalRule":
-                markdown.append("\n---\n\n");
-                break;
-        }
-        
-        return markdown.toString();
-    }
-    
-    /**
-     * Get text content from ProseMirror node
-     */
-    @SuppressWarnings("unchecked")
-    private String getTextContent(Map<String, Object> node) {
-        StringBuilder text = new StringBuilder();
-        
-        List<Map<String, Object>> content = (List<Map<String, Object>>) node.get("content");
-        if (content != null) {
-            for (Map<String, Object> child : content) {
-                String type = (String) child.get("type");
-                
-                if ("text".equals(type)) {
-                    String textValue = (String) child.get("text");
-                    List<Map<String, Object>> marks = (List<Map<String, Object>>) child.get("marks");
-                    
-                    if (marks != null && !marks.isEmpty()) {
-                        for (Map<String, Object> mark : marks) {
-                            String markType = (String) mark.get("type");
-                            switch (markType) {
-                                case "bold":
-                                    textValue = "**" + textValue + "**";
-                                    break;
-                                case "italic":
-                                    textValue = "*" + textValue + "*";
-                                    break;
-                                case "code":
-                                    textValue = "`" + textValue + "`";
-                                    break;
-                            }
-                        }
-                    }
-                    
-                    text.append(textValue);
-                } else {
-                    text.append(getTextContent(child));
-                }
-            }
-        }
-        
-        return text.toString();
-    }
-    
-    /**
-     * Convert table to Markdown
-     */
-    private String convertTableToMarkdown(Map<String, Object> table) {
-        // Simplified table conversion
-        return "\n| Column 1 | Column 2 |\n|----------|----------|\n| Cell 1   | Cell 2   |\n\n";
-    }
-    
     /**
      * Build YAML front matter for Pandoc
      */
-    private String buildYamlFrontMatter(Article article, String language) {
+    String buildYamlFrontMatter(Article article, String language) {
         StringBuilder yaml = new StringBuilder("---\n");
         
         // Title
@@ -367,7 +271,7 @@ public class LatexExportService {
     /**
      * Convert references to BibTeX format
      */
-    private String convertReferencesToBibTeX(List<ArticleReference> references) {
+    String convertReferencesToBibTeX(List<ArticleReference> references) {
         StringBuilder bibtex = new StringBuilder();
         
         for (int i = 0; i < references.size(); i++) {
@@ -400,6 +304,31 @@ public class LatexExportService {
      * Convert Markdown to LaTeX using Pandoc
      */
     private void convertMarkdownToLatex(Path mdFile, Path texFile, Path bibFile) throws IOException, InterruptedException {
+        boolean hasBibliography = bibFile != null && Files.exists(bibFile);
+        
+        if (pandocServer.isAvailable()) {
+            // pandoc-server cannot read files, so the template and bibliography travel with the request
+            Map<String, Object> request = new HashMap<>();
+            request.put("text", Files.readString(mdFile));
+            request.put("from", "markdown");
+            request.put("to", "latex");
+            request.put("standalone", true);
+            request.put("template", Files.readString(Path.of(templatePath)));
+            if (hasBibliography) {
+                String bibName = bibFile.getFileName().toString();
+                request.put("citeproc", true);
+                request.put("bibliography", List.of(bibName));
+                request.put("files", Map.of(bibName, Base64.getEncoder().encodeToString(Files.readAllBytes(bibFile))));
+            }
+            try {
+                byte[] latex = renderExecutor.executeTimed(RenderEngine.PANDOC, () -> pandocServer.convert(request));
+                Files.write(texFile, latex);
+                return;
+            } catch (PandocServerException e) {
+                logger.warn("pandoc-server unavailable, falling back to pandoc CLI: {}", e.getMessage());
+            }
+        }
+        
         List<String> command = new ArrayList<>();
         command.add("pandoc");
         command.add(mdFile.toString());
@@ -408,83 +337,23 @@ public class LatexExportService {
         command.add("--template=" + templatePath);
         command.add("--pdf-engine=" + latexEngine);
         
-        if (bibFile != null && Files.exists(bibFile)) {
+        if (hasBibliography) {
             command.add("--bibliography=" + bibFile.toString());
             command.add("--citeproc");
         }
         
-        executeCommand(command, mdFile.getParent());
+        renderExecutor.runCommand(RenderEngine.PANDOC, command, mdFile.getParent());
     }
     
     /**
      * Compile LaTeX to PDF
      */
     private void compileLatexToPdf(Path texFile, Path pdfFile, Path workDir) throws IOException, InterruptedException {
-        // Use latexmk for automatic compilation with bibliography
-        List<String> command = List.of(
-            latexEngine,
-            "-interaction=nonstopmode",
-            "-output-directory=" + workDir.toString(),
-            texFile.toString()
-        );
-        
-        executeCommand(command, workDir);
+        latexCompiler.compile(texFile, workDir);
         
         // Check if PDF was created
         if (!Files.exists(pdfFile)) {
             throw new IOException("PDF compilation failed - output file not created");
         }
     }
-    
-    /**
-     * Execute system command
-     */
-    private void executeCommand(List<String> command, Path workingDir) throws IOException, InterruptedException {
-        logger.debug("Executing command: {}", String.join(" ", command));
-        
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(workingDir.toFile());
-        pb.redirectErrorStream(true);
-        
-        Process process = pb.start();
-        
-        // Read output
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                logger.debug(line);
-            }
-        }
-        
-        int exitCode = process.waitFor();
-        
-        if (exitCode != 0) {
-            logger.error("Command failed with exit code {}: {}", exitCode, output);
-            throw new IOException("Command execution failed: " + String.join(" ", command));
-        }
-    }
-    
-    /**
-     * Cleanup temporary directory
-     */
-    private void cleanupDirectory(Path dir) {
-        try {
-            if (Files.exists(dir)) {
-                Files.walk(dir)
-                    .sorted((a, b) -> -a.compareTo(b))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.warn("Failed to delete temp file: {}", path, e);
-                        }
-                    });
-            }
-        } catch (IOException e) {
-            logger.warn("Failed to cleanup directory: {}", dir, e);
-        }
-    }
 }
-
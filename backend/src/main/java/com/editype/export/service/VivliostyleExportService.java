@@ -3,19 +3,26 @@ package com.editype.export.service;
 import com.editype.article.entity.Article;
 import com.editype.article.entity.ArticleMetadata;
 import com.editype.article.entity.ArticleReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.editype.export.artifact.ExportArtifact;
+import com.editype.export.cache.RenderCache;
+import com.editype.export.metrics.ExportMetrics;
+import com.editype.export.prosemirror.PmHtmlRenderer;
+import com.editype.export.prosemirror.PmParser;
+import com.editype.export.render.RenderEngine;
+import com.editype.export.render.RenderExecutor;
+import com.editype.export.render.VivliostyleWorkerException;
+import com.editype.export.render.VivliostyleWorkerPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service for exporting articles to PDF using Vivliostyle CLI
@@ -26,7 +33,13 @@ public class VivliostyleExportService {
     
     private static final Logger logger = LoggerFactory.getLogger(VivliostyleExportService.class);
     
-    private final ObjectMapper objectMapper;
+    private static final String PAGE_SIZE = "A4";
+    
+    private final PmParser pmParser;
+    private final RenderCache renderCache;
+    private final RenderExecutor renderExecutor;
+    private final VivliostyleWorkerPool workerPool;
+    private final ExportMetrics exportMetrics;
     
     @Value("${vivliostyle.css.template:/app/templates/article-style.css}")
     private String cssTemplatePath;
@@ -34,49 +47,67 @@ public class VivliostyleExportService {
     @Value("${vivliostyle.temp.dir:/app/temp}")
     private String tempDir;
     
-    public VivliostyleExportService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public VivliostyleExportService(PmParser pmParser, RenderCache renderCache, RenderExecutor renderExecutor,
+                                    VivliostyleWorkerPool workerPool, ExportMetrics exportMetrics) {
+        this.pmParser = pmParser;
+        this.renderCache = renderCache;
+        this.renderExecutor = renderExecutor;
+        this.workerPool = workerPool;
+        this.exportMetrics = exportMetrics;
     }
     
     /**
      * Export article to PDF using Vivliostyle
+     * The returned artifact owns its work directory and must be closed by the caller
      */
-    public byte[] exportToPDF(Article article, String language) throws IOException, InterruptedException {
+    public ExportArtifact exportToPDF(Article article, String language) throws IOException, InterruptedException {
         logger.info("Exporting article {} to PDF via Vivliostyle in language {}", article.getId(), language);
         
+        // 1. Generate HTML from ProseMirror JSON and CSS for article styling
+        String html = exportMetrics.time("html", () -> generateHTML(article, language));
+        String css = generateCSS(article);
+        
+        // 2. Serve from render cache when the intermediate hasn't changed
+        RenderCache.Key cacheKey = renderCache.key(article, "vivliostyle",
+                renderCache.toolVersion("vivliostyle"), html, css);
+        
+        Optional<Path> cached = renderCache.lookup(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Serving article {} Vivliostyle PDF from render cache", article.getId());
+            return ExportArtifact.persistent(cached.get());
+        }
+        
         Path workDir = Files.createTempDirectory(Path.of(tempDir), "vivlio-export-");
         
         try {
-            // 1. Generate HTML from ProseMirror JSON
-            String html = generateHTML(article, language);
+            // 3. Write HTML and CSS
             Path htmlFile = workDir.resolve("article.html");
             Files.writeString(htmlFile, html);
             
-            // 2. Generate or copy CSS
             Path cssFile = workDir.resolve("style.css");
-            String css = generateCSS(article);
             Files.writeString(cssFile, css);
             
-            // 3. Run Vivliostyle CLI
+            // 4. Run Vivliostyle (render server or CLI)
             Path pdfFile = workDir.resolve("article.pdf");
             runVivliostyle(htmlFile, cssFile, pdfFile);
             
-            // 4. Read PDF bytes
-            byte[] pdfBytes = Files.readAllBytes(pdfFile);
+            // 5. Cache the PDF and hand it out from the work directory
+            renderCache.store(cacheKey, pdfFile);
             
             logger.info("Successfully exported article {} via Vivliostyle ({} bytes)", 
-                article.getId(), pdfBytes.length);
-            return pdfBytes;
+                article.getId(), Files.size(pdfFile));
+            return ExportArtifact.temporary(pdfFile, workDir);
             
-        } finally {
-            cleanupDirectory(workDir);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            ExportArtifact.deleteDirectory(workDir);
+            throw e;
         }
     }
     
     /**
      * Generate HTML from article data
      */
-    private String generateHTML(Article article, String language) {
+    String generateHTML(Article article, String language) {
         StringBuilder html = new StringBuilder();
         
         html.append("<!DOCTYPE html>\n");
@@ -155,8 +186,7 @@ public class VivliostyleExportService {
         
         // Main content
         html.append("    <main class=\"article-content\">\n");
-        String content = convertPmJsonToHTML(article.getPmJson());
-        html.append(content);
+        appendPmJsonAsHTML(article.getPmJson(), html);
         html.append("    </main>\n\n");
         
         // References
@@ -197,7 +227,7 @@ public class VivliostyleExportService {
      * Generate CSS for article styling
      */
     private String generateCSS(Article article) {
-        return """
+        String css = """
             /* Vivliostyle CSS for Scientific Articles */
             
             @page {
@@ -465,158 +495,33 @@ public class VivliostyleExportService {
               page-break-inside: avoid;
             }
             """;
+        
+        // Continue the issue's page numbering
+        if (article.getFirstPage() != null) {
+            css += "\n@page:first {\n  counter-reset: page " + article.getFirstPage() + ";\n}\n";
+        }
+        return css;
     }
     
     /**
-     * Convert ProseMirror JSON to HTML
+     * Convert ProseMirror JSON to HTML, appending to the page being built
      */
-    private String convertPmJsonToHTML(String pmJson) {
+    private void appendPmJsonAsHTML(String pmJson, StringBuilder html) {
         if (pmJson == null || pmJson.isEmpty()) {
-            return "<p>No content</p>";
+            html.append("<p>No content</p>");
+            return;
         }
         
+        int start = html.length();
         try {
-            Map<String, Object> doc = objectMapper.readValue(pmJson, Map.class);
-            return proseMirrorToHTML(doc);
+            pmParser.stream(pmJson, new PmHtmlRenderer().begin(html));
         } catch (IOException e) {
             logger.error("Failed to parse ProseMirror JSON", e);
-            return "<p>Error rendering content</p>";
+            html.setLength(start);
+            html.append("<p>Error rendering content</p>");
         }
     }
     
-    /**
-     * Recursive conversion of ProseMirror nodes to HTML
-     */
-    @SuppressWarnings("unchecked")
-    private String proseMirrorToHTML(Map<String, Object> node) {
-        StringBuilder html = new StringBuilder();
-        String type = (String) node.get("type");
-        
-        if (type == null) return "";
-        
-        switch (type) {
-            case "doc":
-                List<Map<String, Object>> content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    for (Map<String, Object> child : content) {
-                        html.append(proseMirrorToHTML(child));
-                    }
-                }
-                break;
-                
-            case "heading":
-                Map<String, Object> attrs = (Map<String, Object>) node.get("attrs");
-                int level = attrs != null ? ((Number) attrs.get("level")).intValue() : 1;
-                html.append("<h").append(level).append(">");
-                html.append(getTextContent(node));
-                html.append("</h").append(level).append(">\n");
-                break;
-                
-            case "paragraph":
-                html.append("<p>").append(getTextContent(node)).append("</p>\n");
-                break;
-                
-            case "bulletList":
-                html.append("<ul>\n");
-                content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    for (Map<String, Object> item : content) {
-                        html.append("  <li>").append(getTextContent(item)).append("</li>\n");
-                    }
-                }
-                html.append("</ul>\n");
-                break;
-                
-            case "orderedList":
-                html.append("<ol>\n");
-                content = (List<Map<String, Object>>) node.get("content");
-                if (content != null) {
-                    for (Map<String, Object> item : content) {
-                        html.append("  <li>").append(getTextContent(item)).append("</li>\n");
-                    }
-                }
-                html.append("</ol>\n");
-                break;
-                
-            case "codeBlock":
-                html.append("<pre><code>");
-                html.append(escapeHtml(getTextContent(node)));
-                html.append("</code></pre>\n");
-                break;
-                
-            case "blockquote":
-                html.append("<blockquote>");
-                html.append(getTextContent(node));
-                html.append("</blockquote>\n");
-                break;
-                
-            case "math_inline":
-                attrs = (Map<String, Object>) node.get("attrs");
-                if (attrs != null) {
-                    String latex = (String) attrs.get("latex");
-                    html.append("$").append(latex).append("$");
-                }
-                break;
-                
-            case "math_display":
-                attrs = (Map<String, Object>) node.get("attrs");
-                if (attrs != null) {
-                    String latex = (String) attrs.get("latex");
-                    html.append("<div class=\"math-display\">$$").append(latex).append("$$</div>\n");
-                }
-                break;
-                
-            case "horizontalRule":
-                html.append("<hr />\n");
-                break;
-        }
-        
-        return html.toString();
-    }
-    
-    /**
-     * Get text content from node with marks
-     */
-    @SuppressWarnings("unchecked")
-    private String getTextContent(Map<String, Object> node) {
-        StringBuilder text = new StringBuilder();
-        
-        List<Map<String, Object>> content = (List<Map<String, Object>>) node.get("content");
-        if (content != null) {
-            for (Map<String, Object> child : content) {
-                String type = (String) child.get("type");
-                
-                if ("text".equals(type)) {
-                    String textValue = escapeHtml((String) child.get("text"));
-                    List<Map<String, Object>> marks = (List<Map<String, Object>>) child.get("marks");
-                    
-                    if (marks != null && !marks.isEmpty()) {
-                        for (Map<String, Object> mark : marks) {
-                            String markType = (String) mark.get("type");
-                            switch (markType) {
-                                case "bold":
-                                    textValue = "<strong>" + textValue + "</strong>";
-                                    break;
-                                case "italic":
-                                    textValue = "<em>" + textValue + "</em>";
-                                    break;
-                                case "code":
-                                    textValue = "<code>" + textValue + "</code>";
-                                    break;
-                            }
-                        }
-                    }
-                    
-                    text.append(textValue);
-                } else {
-                    text.append(getTextContent(child));
-                }
-            }
-        }
-        
-        return text.toString();
-    }
-    
     /**
      * Format reference
      */
@@ -645,43 +550,42 @@ public class VivliostyleExportService {
     }
     
     /**
-     * Run Vivliostyle CLI
+     * Render with a persistent Vivliostyle worker, or with the CLI when no worker can take the job
      */
     private void runVivliostyle(Path htmlFile, Path cssFile, Path pdfFile) 
             throws IOException, InterruptedException {
+        if (workerPool.isAvailable()) {
+            try {
+                renderExecutor.executeTimed(RenderEngine.VIVLIOSTYLE, () -> {
+                    workerPool.render(htmlFile, cssFile, pdfFile, PAGE_SIZE,
+                            renderExecutor.timeoutSeconds(RenderEngine.VIVLIOSTYLE));
+                    return null;
+                });
+                return;
+            } catch (VivliostyleWorkerException e) {
+                logger.warn("Vivliostyle worker unavailable, falling back to CLI: {}", e.getMessage());
+            }
+        }
+        runVivliostyleCli(htmlFile, cssFile, pdfFile);
+    }
+    
+    /**
+     * Run Vivliostyle CLI
+     */
+    private void runVivliostyleCli(Path htmlFile, Path cssFile, Path pdfFile) 
+            throws IOException, InterruptedException {
         List<String> command = List.of(
             "vivliostyle",
             "build",
             htmlFile.toString(),
             "--style", cssFile.toString(),
             "--output", pdfFile.toString(),
-            "--size", "A4"
+            "--size", PAGE_SIZE
         );
         
         logger.debug("Executing Vivliostyle command: {}", String.join(" ", command));
         
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(htmlFile.getParent().toFile());
-        pb.redirectErrorStream(true);
-        
-        Process process = pb.start();
-        
-        // Read output
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                logger.debug(line);
-            }
-        }
-        
-        int exitCode = process.waitFor();
-        
-        if (exitCode != 0) {
-            logger.error("Vivliostyle failed with exit code {}: {}", exitCode, output);
-            throw new IOException("Vivliostyle export failed");
-        }
+        renderExecutor.runCommand(RenderEngine.VIVLIOSTYLE, command, htmlFile.getParent());
     }
     
     /**
@@ -696,26 +600,4 @@ public class VivliostyleExportService {
             .replace("\"", "&quot;")
             .replace("'", "&#39;");
     }
-    
-    /**
-     * Cleanup temporary directory
-     */
-    private void cleanupDirectory(Path dir) {
-        try {
-            if (Files.exists(dir)) {
-                Files.walk(dir)
-                    .sorted((a, b) -> -a.compareTo(b))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.warn("Failed to delete temp file: {}", path, e);
-                        }
-                    });
-            }
-        } catch (IOException e) {
-            logger.warn("Failed to cleanup directory: {}", dir, e);
-        }
-    }
 }
-
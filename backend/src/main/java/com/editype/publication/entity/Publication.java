@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -38,6 +39,7 @@ public class Publication {
     @Builder.Default
     private Map<String, String> texts = new HashMap<>();
     
+    @Indexed(unique = true, sparse = true)
     private String doi; // Digital Object Identifier
     
     @CreatedDate
@@ -1,12 +1,17 @@
 package com.editype.security;
 
+import com.editype.security.VerifiedTokenCache.VerifiedToken;
 import com.editype.user.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,43 +19,37 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
- * JWT Authentication Filter
+ * JWT Authentication Filter.
+ * Verified tokens are cached until they expire, so repeat requests skip parsing.
+ * Tokens carrying roles are authorised without touching the database.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
+    private static final String COLLAB_PATH = "/api/collab/";
+    
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        final String authorizationHeader = request.getHeader("Authorization");
-        
-        String username = null;
-        String jwt = null;
-        
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
-        }
+        final String jwt = resolveToken(request);
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            var userOptional = userRepository.findByEmail(username);
+        if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            VerifiedToken verified = verify(jwt);
             
-            if (userOptional.isPresent() && jwtUtil.validateToken(jwt, username)) {
-                var user = userOptional.get();
-                var authorities = user.getRoles().stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                        .collect(Collectors.toList());
-                
+            if (verified != null) {
                 UsernamePasswordAuthenticationToken authToken = 
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(verified.username(), null, verified.authorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -58,8 +57,76 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    /**
+     * Bearer token from the Authorization header. Browsers cannot set headers on
+     * WebSocket handshakes, so collaboration endpoints also accept an access_token parameter.
+     */
+    private String resolveToken(HttpServletRequest request) {
+        final String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            return authorizationHeader.substring(7);
+        }
+        if (request.getRequestURI().startsWith(COLLAB_PATH)) {
+            return request.getParameter("access_token");
+        }
+        return null;
+    }
+    
+    /**
+     * Resolve a token from the cache or parse it once.
+     * Tokens carrying roles are authorised from their claims and checked against the
+     * current token version; legacy tokens fall back to looking up the user's roles.
+     * Returns null for invalid, expired or revoked tokens and unknown users.
+     */
+    private VerifiedToken verify(String jwt) {
+        VerifiedToken verified = verifiedTokenCache.get(jwt);
+        if (verified == null) {
+            verified = parse(jwt);
+            if (verified == null) {
+                return null;
+            }
+            verifiedTokenCache.put(jwt, verified);
+        }
+        
+        if (verified.version() != null
+                && !tokenVersionRegistry.isCurrent(verified.username(), verified.version())) {
+            return null;
+        }
+        return verified;
+    }
+    
+    private VerifiedToken parse(String jwt) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+        
+        String username = claims.getSubject();
+        if (username == null || claims.getExpiration() == null) {
+            return null;
+        }
+        long expiresAt = claims.getExpiration().getTime();
+        
+        List<String> roles = jwtUtil.extractRoles(claims);
+        Long version = jwtUtil.extractVersion(claims);
+        if (roles != null && version != null) {
+            return new VerifiedToken(username, toAuthorities(roles), version, expiresAt);
+        }
+        
+        // Legacy token without roles
+        return userRepository.findByEmail(username)
+                .map(user -> new VerifiedToken(username,
+                        toAuthorities(user.getRoles().stream().map(Enum::name).toList()), null, expiresAt))
+                .orElse(null);
+    }
+    
+    private static List<GrantedAuthority> toAuthorities(List<String> roles) {
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
 }
-
-
-
-
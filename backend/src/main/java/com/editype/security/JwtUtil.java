@@ -1,9 +1,12 @@
 package com.editype.security;
 
+import com.editype.user.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -11,6 +14,7 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -20,12 +24,29 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
     
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERSION_CLAIM = "ver";
+    
     @Value("${spring.security.jwt.secret}")
     private String secret;
     
     @Value("${spring.security.jwt.expiration}")
     private Long expiration;
     
+    @Value("${spring.security.jwt.embed-roles:true}")
+    private boolean embedRoles;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     /**
      * Extract username from token
      */
@@ -44,27 +65,23 @@ public class JwtUtil {
      * Extract specific claim from token
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
     
     /**
-     * Extract all claims from token
+     * Verify the signature and expiry of a token and return its claims.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
      */
-    private Claims extractAllClaims(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     /**
-     * Check if token is expired
+     * Check if claims are expired
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
     
     /**
@@ -75,17 +92,47 @@ public class JwtUtil {
         return createToken(claims, username);
     }
     
+    /**
+     * Generate token for user. Unless disabled, the token carries the user's roles
+     * and token version so requests can be authorised without loading the user.
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        if (embedRoles) {
+            claims.put(ROLES_CLAIM, user.getRoles().stream().map(Enum::name).sorted().toList());
+            claims.put(VERSION_CLAIM, TokenVersionRegistry.versionOf(user));
+        }
+        return createToken(claims, user.getEmail());
+    }
+    
+    /**
+     * Roles embedded in the token, or null for tokens issued without them
+     */
+    public List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return null;
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
+    
+    /**
+     * Token version embedded in the token, or null for tokens issued without it
+     */
+    public Long extractVersion(Claims claims) {
+        return claims.get(VERSION_CLAIM) instanceof Number version ? version.longValue() : null;
+    }
+    
     /**
      * Create token with claims
      */
     private String createToken(Map<String, Object> claims, String subject) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -93,8 +140,8 @@ public class JwtUtil {
      * Validate token
      */
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(username) && !isTokenExpired(claims));
     }
 }
 
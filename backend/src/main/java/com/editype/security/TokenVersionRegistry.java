@@ -0,0 +1,94 @@
+package com.editype.security;
+
+import com.editype.user.entity.User;
+import com.editype.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory map of the current token version of each user.
+ * Tokens that carry their roles are accepted only while their version matches,
+ * so changing roles or deleting a user revokes outstanding tokens without a
+ * database read per request. Versions are loaded once per user and refreshed
+ * in the background, which also picks up changes made by other replicas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private static final long UNKNOWN_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.security.jwt.version-refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${spring.security.jwt.cache.max-entries:50000}")
+    private long maxEntries;
+
+    private LoadingCache<String, Long> versions;
+
+    @PostConstruct
+    void init() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofHours(1))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .recordStats()
+                .build(this::load);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "security.jwt.versions");
+    }
+
+    /**
+     * Check that a token version is still the user's current one.
+     * Fails closed if the version cannot be loaded.
+     */
+    public boolean isCurrent(String username, long version) {
+        try {
+            long current = versions.get(username);
+            return current != UNKNOWN_USER && current == version;
+        } catch (RuntimeException e) {
+            log.warn("Could not load token version for {}: {}", username, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Record the user's version after it was saved
+     */
+    public void update(User user) {
+        versions.put(user.getEmail(), versionOf(user));
+    }
+
+    /**
+     * Reject all tokens issued for an email, e.g. after the user was deleted or renamed
+     */
+    public void revoke(String email) {
+        versions.put(email, UNKNOWN_USER);
+    }
+
+    /**
+     * Token version of a user; documents created before versioning count as 0
+     */
+    public static long versionOf(User user) {
+        return user.getTokenVersion() != null ? user.getTokenVersion() : 0L;
+    }
+
+    private Long load(String email) {
+        return userRepository.findTokenVersionByEmail(email)
+                .map(TokenVersionRegistry::versionOf)
+                .orElse(UNKNOWN_USER);
+    }
+}
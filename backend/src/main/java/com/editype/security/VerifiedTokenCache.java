@@ -0,0 +1,98 @@
+package com.editype.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of JWTs that have already been verified, keyed by the raw token.
+ * Each entry holds the subject and resolved authorities and expires exactly
+ * when the token itself does, so a hit skips both signature verification and
+ * the user lookup. Entries for a user are evicted when their account changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.security.jwt.cache.max-entries:50000}")
+    private long maxEntries;
+
+    private Cache<String, VerifiedToken> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken value, long currentTime) {
+                        long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(token, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "security.jwt.tokens");
+        log.info("Verified token cache: maxEntries={}", maxEntries);
+    }
+
+    /**
+     * Previously verified token, or null
+     */
+    public VerifiedToken get(String token) {
+        return cache.getIfPresent(token);
+    }
+
+    /**
+     * Remember a verified token until it expires
+     */
+    public void put(String token, VerifiedToken verified) {
+        cache.put(token, verified);
+    }
+
+    /**
+     * Drop all cached tokens of a user, e.g. after their roles changed or the account was deleted
+     */
+    public void evictUser(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.asMap().values().removeIf(verified -> username.equals(verified.username()));
+    }
+
+    /**
+     * Verified subject and authorities of a token.
+     * The version is set for tokens that carry their roles and is checked against
+     * {@link TokenVersionRegistry} on every request; it is null for legacy tokens.
+     */
+    public record VerifiedToken(String username, List<GrantedAuthority> authorities, Long version,
+                                long expiresAtMillis) {
+    }
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -28,6 +29,7 @@ public class ParagraphStyle {
     private String id;
 
     private String name; // Display name (e.g., "Heading 1", "Body Text", "Quote")
+    @Indexed
     private String type; // Technical type (e.g., "heading1", "paragraph", "quote", "list_item")
     private String description;
 
@@ -46,6 +48,7 @@ public class ParagraphStyle {
     private Boolean isSystemStyle;
 
     // Category for grouping styles (e.g., "headings", "text", "special")
+    @Indexed
     private String category;
 
     // Icon or visual indicator for the style
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -22,6 +23,10 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "document_templates")
+@CompoundIndex(name = "documentType_active_default", def = "{'documentTypeId': 1, 'active': 1, 'isDefault': 1}")
+@CompoundIndex(name = "category_active", def = "{'category': 1, 'active': 1}")
+@CompoundIndex(name = "active_createdAt", def = "{'active': 1, 'createdAt': -1}")
+@CompoundIndex(name = "createdBy_active_createdAt", def = "{'createdBy': 1, 'active': 1, 'createdAt': -1}")
 public class DocumentTemplate {
     
     @Id
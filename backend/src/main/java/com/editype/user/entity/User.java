@@ -40,6 +40,10 @@ public class User {
     @Builder.Default
     private Set<UserRole> roles = new HashSet<>();
     
+    // Версия токенов: увеличивается при смене ролей, пароля или email, старые JWT перестают приниматься
+    @Builder.Default
+    private Long tokenVersion = 0L;
+    
     // Editorum интеграция
     private String editorumUserId; // ID пользователя в системе Editorum
     private String editorumAccessToken; // Токен доступа к Editorum API
@@ -2,6 +2,7 @@ package com.editype.user.repository;
 
 import com.editype.user.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -18,6 +19,12 @@ public interface UserRepository extends MongoRepository<User, String> {
      * Check if user exists by email
      */
     boolean existsByEmail(String email);
+    
+    /**
+     * Find only the email and token version of a user (used by JWT revocation checks)
+     */
+    @Query(value = "{ 'email': ?0 }", fields = "{ 'email': 1, 'tokenVersion': 1 }")
+    Optional<User> findTokenVersionByEmail(String email);
 }
 
 
@@ -1,6 +1,8 @@
 package com.editype.user.service;
 
 import com.editype.exception.ResourceNotFoundException;
+import com.editype.security.TokenVersionRegistry;
+import com.editype.security.VerifiedTokenCache;
 import com.editype.user.dto.UserRequestDTO;
 import com.editype.user.dto.UserResponseDTO;
 import com.editype.user.entity.User;
@@ -23,6 +25,8 @@ import java.util.stream.Collectors;
 public class UserService {
     
     private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
     
     /**
      * Get all users
@@ -66,6 +70,7 @@ public class UserService {
                 .build();
         
         User savedUser = userRepository.save(user);
+        tokenVersionRegistry.update(savedUser);
         return UserResponseDTO.fromEntity(savedUser);
     }
     
@@ -75,6 +80,8 @@ public class UserService {
     public UserResponseDTO updateUser(String id, UserRequestDTO requestDTO) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        String previousEmail = user.getEmail();
+        boolean credentialsChanged = false;
         
         // Update email if changed and not already taken
         if (!user.getEmail().equals(requestDTO.getEmail())) {
@@ -82,20 +89,33 @@ public class UserService {
                 throw new IllegalArgumentException("Email " + requestDTO.getEmail() + " is already in use");
             }
             user.setEmail(requestDTO.getEmail());
+            credentialsChanged = true;
         }
         
         // Update password if provided
         if (requestDTO.getPassword() != null && !requestDTO.getPassword().isEmpty()) {
             String hashedPassword = BCrypt.hashpw(requestDTO.getPassword(), BCrypt.gensalt());
             user.setPassword(hashedPassword);
+            credentialsChanged = true;
         }
         
         // Update roles if provided
-        if (requestDTO.getRoles() != null) {
+        if (requestDTO.getRoles() != null && !requestDTO.getRoles().equals(user.getRoles())) {
             user.setRoles(requestDTO.getRoles());
+            credentialsChanged = true;
+        }
+        
+        // Issued tokens carry the old email and roles, bump the version to revoke them
+        if (credentialsChanged) {
+            user.setTokenVersion(TokenVersionRegistry.versionOf(user) + 1);
         }
         
         User updatedUser = userRepository.save(user);
+        verifiedTokenCache.evictUser(previousEmail);
+        if (!previousEmail.equals(updatedUser.getEmail())) {
+            tokenVersionRegistry.revoke(previousEmail);
+        }
+        tokenVersionRegistry.update(updatedUser);
         return UserResponseDTO.fromEntity(updatedUser);
     }
     
@@ -103,10 +123,11 @@ public class UserService {
      * Delete user by ID
      */
     public void deleteUser(String id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         userRepository.deleteById(id);
+        verifiedTokenCache.evictUser(user.getEmail());
+        tokenVersionRegistry.revoke(user.getEmail());
     }
 }
 
@@ -1,7 +1,7 @@
 package com.editype.znan.controller;
 
 import com.editype.auth.service.AuthService;
-import com.editype.editorum.client.EditorumApiClient;
+import com.editype.editorum.cache.EditorumReferenceCache;
 import com.editype.editorum.dto.EditorumDocumentTypeDTO;
 import com.editype.znan.dto.ZnanDocumentTypeResponseDTO;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +24,7 @@ import java.util.stream.Collectors;
 public class DocumentTypesController {
     
     private final AuthService authService;
-    private final EditorumApiClient editorumApiClient;
+    private final EditorumReferenceCache referenceCache;
     
     /**
      * Получение доступных типов документов
@@ -43,8 +43,8 @@ public class DocumentTypesController {
             }
             
             // Загружаем типы документов из Editorum API
-            List<EditorumDocumentTypeDTO> editorumTypes = editorumApiClient.getDocumentTypes(
-                "Bearer " + editorumToken
+            List<EditorumDocumentTypeDTO> editorumTypes = referenceCache.getDocumentTypes(
+                userEmail, "Bearer " + editorumToken
             );
             
             // Конвертируем в формат Znan.io
@@ -79,8 +79,8 @@ public class DocumentTypesController {
             }
             
             // Загружаем тип документа из Editorum API
-            EditorumDocumentTypeDTO editorumType = editorumApiClient.getDocumentType(
-                "Bearer " + editorumToken, id
+            EditorumDocumentTypeDTO editorumType = referenceCache.getDocumentType(
+                userEmail, id, "Bearer " + editorumToken
             );
             
             // Конвертируем в формат Znan.io
@@ -0,0 +1,112 @@
+// Long-lived Vivliostyle renderer started by the backend (VivliostyleWorkerPool).
+// Keeps one headless Chromium open and lays out every job in a fresh page of the
+// Vivliostyle viewer, the same way `vivliostyle build` does, without the browser startup.
+//
+// Protocol: one JSON object per line on stdin, one reply per line on stdout.
+//   {"id": 1, "op": "render", "html": "/abs/article.html", "css": "/abs/style.css",
+//    "pdf": "/abs/article.pdf", "size": "A4", "timeoutMs": 180000}
+//   {"id": 2, "op": "ping"}
+// Replies: {"id": 1, "ok": true} or {"id": 1, "ok": false, "error": "..."}.
+// The first line written is {"ready": true} once the browser is up.
+
+import { existsSync } from 'node:fs';
+import { createRequire } from 'node:module';
+import path from 'node:path';
+import { createInterface } from 'node:readline';
+import { pathToFileURL } from 'node:url';
+
+// Locate a package the way Node would from `from`, without going through its exports map
+function packageDir(name, from) {
+  for (let dir = from; ; dir = path.dirname(dir)) {
+    const candidate = path.join(dir, 'node_modules', name);
+    if (existsSync(path.join(candidate, 'package.json'))) {
+      return candidate;
+    }
+    if (path.dirname(dir) === dir) {
+      throw new Error(`Cannot find ${name} from ${from}`);
+    }
+  }
+}
+
+// playwright-core and the viewer are dependencies of the globally installed CLI
+const globalModules = (process.env.NODE_PATH || '/usr/local/lib/node_modules').split(path.delimiter)[0];
+const cliDir = path.join(globalModules, '@vivliostyle', 'cli');
+const { chromium } = createRequire(path.join(cliDir, 'package.json'))('playwright-core');
+const viewerIndex = path.join(packageDir('@vivliostyle/viewer', cliDir), 'lib', 'index.html');
+
+const browser = await chromium.launch({
+  headless: true,
+  executablePath: process.env.VIVLIOSTYLE_BROWSER || undefined,
+  args: ['--allow-file-access-from-files', '--disable-dev-shm-usage'],
+});
+// A crashed browser cannot be recovered here; the backend replaces the worker
+browser.on('disconnected', () => process.exit(1));
+
+const context = await browser.newContext();
+
+function reply(message) {
+  process.stdout.write(JSON.stringify(message) + '\n');
+}
+
+function viewerUrl(job) {
+  const params = [
+    ['src', pathToFileURL(job.html).href],
+    ['bookMode', 'false'],
+    ['renderAllPages', 'true'],
+  ];
+  if (job.css) {
+    params.push(['style', pathToFileURL(job.css).href]);
+  }
+  if (job.size) {
+    params.push(['userStyle', 'data:,' + encodeURIComponent(`@page { size: ${job.size}; }`)]);
+  }
+  const hash = params.map(([key, value]) => `${key}=${encodeURIComponent(value)}`).join('&');
+  return `${pathToFileURL(viewerIndex).href}#${hash}`;
+}
+
+async function render(job) {
+  const timeout = job.timeoutMs || 180000;
+  const page = await context.newPage();
+  try {
+    await page.goto(viewerUrl(job), { timeout });
+    await page.waitForFunction(
+      () => window.coreViewer && window.coreViewer.readyState === 'complete',
+      null,
+      { timeout, polling: 100 },
+    );
+    await page.pdf({ path: job.pdf, printBackground: true, preferCSSPageSize: true, timeout });
+  } finally {
+    await page.close();
+  }
+}
+
+// Jobs are handled one at a time; the backend never sends a second request before the reply
+const lines = createInterface({ input: process.stdin });
+reply({ ready: true });
+
+for await (const line of lines) {
+  if (!line.trim()) {
+    continue;
+  }
+  let job;
+  try {
+    job = JSON.parse(line);
+  } catch (e) {
+    reply({ ok: false, error: 'Malformed request' });
+    continue;
+  }
+  try {
+    if (job.op === 'render') {
+      await render(job);
+    } else if (job.op !== 'ping') {
+      throw new Error(`Unknown op: ${job.op}`);
+    }
+    reply({ id: job.id, ok: true });
+  } catch (e) {
+    reply({ id: job.id, ok: false, error: String(e && e.message ? e.message : e) });
+  }
+}
+
+// stdin closed: the backend is shutting the worker down
+await browser.close();
+process.exit(0);
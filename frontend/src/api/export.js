@@ -65,6 +65,29 @@ export const exportApi = {
     })
   },
 
+  /**
+   * Start background export job (format: pdf-latex | pdf-vivliostyle | latex)
+   */
+  createJob(articleId, format, lang = 'en') {
+    return axios.post('/export/jobs', { articleId, format, lang })
+  },
+
+  /**
+   * Get background export job status
+   */
+  getJob(jobId) {
+    return axios.get(`/export/jobs/${jobId}`)
+  },
+
+  /**
+   * Download result of a finished export job
+   */
+  downloadJobResult(jobId) {
+    return axios.get(`/export/jobs/${jobId}/result`, {
+      responseType: 'blob'
+    })
+  },
+
   /**
    * Export article to DOCX (Pandoc)
    */